@@ -43,6 +43,8 @@ public class Configs
         public static final BooleanAndFileConfig CUSTOM_SCHEMATIC_DIRECTORY         = new BooleanAndFileConfig("customSchematicDirectory", false, DefaultDirectories.getDefaultSchematicDirectory());
 
         public static final BooleanConfig AREAS_PER_WORLD                           = new BooleanConfig("areaSelectionsPerWorld", true);
+        public static final BooleanConfig BACKGROUND_CHUNK_PROCESSING               = new BooleanConfig("backgroundChunkProcessing", true);
+        public static final BooleanConfig BACKGROUND_SCHEMATIC_WORLD_BUILDING       = new BooleanConfig("backgroundSchematicWorldBuilding", true);
         public static final BooleanConfig BETTER_RENDER_ORDER                       = new BooleanConfig("betterRenderOrder", true);
         public static final BooleanConfig CHANGE_SELECTED_CORNER                    = new BooleanConfig("changeSelectedCornerOnMove", true);
         public static final BooleanConfig CLONE_AT_ORIGINAL_POS                     = new BooleanConfig("cloneAtOriginalPosition", true);
@@ -56,13 +58,21 @@ public class Configs
         public static final BooleanConfig LOAD_ENTIRE_SCHEMATICS                    = new BooleanConfig("loadEntireSchematics", false);
         public static final BooleanConfig MATERIAL_LIST_IGNORE_BLOCK_STATE          = new BooleanConfig("materialListIgnoreBlockState", false);
         public static final BooleanConfig MATERIALS_FROM_CONTAINER                  = new BooleanConfig("materialListFromContainer", true);
+        public static final BooleanConfig PARALLEL_SCHEMATIC_COMPRESSION            = new BooleanConfig("parallelSchematicCompression", true);
+        public static final BooleanConfig PARALLEL_SCHEMATIC_IO                     = new BooleanConfig("parallelSchematicRegionIO", true);
         public static final IntegerConfig PASTE_COMMAND_INTERVAL                    = new IntegerConfig("pasteCommandInterval", 1, 1, 1000);
         public static final IntegerConfig PASTE_COMMAND_LIMIT                       = new IntegerConfig("pasteCommandLimit", 64, 1, 1000);
         public static final BooleanConfig PICK_BLOCK_IGNORE_NBT                     = new BooleanConfig("pickBlockIgnoreNBT", true);
         public static final StringConfig  PICK_BLOCKABLE_SLOTS                      = new StringConfig( "pickBlockableSlots", "6-9");
         public static final BooleanConfig PLACEMENTS_INFRONT                        = new BooleanConfig("placementInfrontOfPlayer", false);
+        public static final IntegerConfig RENDER_COMPILE_CACHE_SIZE                 = new IntegerConfig("renderCompileCacheSize", 64, 0, 4096);
+        public static final IntegerConfig RENDER_LOD_DISTANCE                       = new IntegerConfig("renderLodDistance", 0, 0, 64);
         public static final BooleanConfig RENDER_MATERIALS_IN_GUI                   = new BooleanConfig("renderMaterialListInGuis", true);
+        public static final BooleanConfig RENDER_MULTI_DRAW_BATCHING                = new BooleanConfig("renderMultiDrawBatching", true);
+        public static final BooleanConfig RENDER_OCCLUSION_CULLING                  = new BooleanConfig("renderOcclusionCulling", true);
         public static final BooleanConfig RENDER_THREAD_NO_TIMEOUT                  = new BooleanConfig("renderThreadNoTimeout", true);
+        public static final IntegerConfig RENDER_UPLOAD_BUDGET                      = new IntegerConfig("renderUploadBudget", 8192, 64, 1048576);
+        public static final IntegerConfig TASK_TICK_TIME_BUDGET                     = new IntegerConfig("taskTickTimeBudget", 0, 0, 1000000);
         public static final StringConfig  TOOL_ITEM                                 = new StringConfig( "toolItem", "minecraft:stick");
 
         public static final OptionListConfig<SelectionMode> DEFAULT_AREA_SELECTION_MODE   = new OptionListConfig<>("defaultAreaSelectionMode", SelectionMode.SIMPLE, SelectionMode.VALUES);
@@ -72,6 +82,8 @@ public class Configs
 
         public static final ImmutableList<ConfigOption<?>> OPTIONS = ImmutableList.of(
                 AREAS_PER_WORLD,
+                BACKGROUND_CHUNK_PROCESSING,
+                BACKGROUND_SCHEMATIC_WORLD_BUILDING,
                 BETTER_RENDER_ORDER,
                 CHANGE_SELECTED_CORNER,
                 CLONE_AT_ORIGINAL_POS,
@@ -88,6 +100,8 @@ public class Configs
                 LOAD_ENTIRE_SCHEMATICS,
                 MATERIAL_LIST_IGNORE_BLOCK_STATE,
                 MATERIALS_FROM_CONTAINER,
+                PARALLEL_SCHEMATIC_COMPRESSION,
+                PARALLEL_SCHEMATIC_IO,
                 PASTE_REPLACE_BEHAVIOR,
                 PASTE_COMMAND_INTERVAL,
                 PASTE_COMMAND_LIMIT,
@@ -97,11 +111,17 @@ public class Configs
                 PICK_BLOCKABLE_SLOTS,
                 PLACEMENT_RESTRICTION,
                 PLACEMENTS_INFRONT,
+                RENDER_COMPILE_CACHE_SIZE,
+                RENDER_LOD_DISTANCE,
                 RENDER_MATERIALS_IN_GUI,
+                RENDER_MULTI_DRAW_BATCHING,
+                RENDER_OCCLUSION_CULLING,
                 RENDER_THREAD_NO_TIMEOUT,
+                RENDER_UPLOAD_BUDGET,
                 SCHEMATIC_BROWSER_COLUMNS,
                 SELECTION_CORNERS_MODE,
                 SIGN_TEXT_PASTE,
+                TASK_TICK_TIME_BUDGET,
                 TOOL_ITEM_ENABLED,
                 TOOL_ITEM
         );
@@ -219,6 +239,7 @@ public class Configs
         public static final BooleanConfig MATERIAL_LIST_HUD_STACKS                  = new BooleanConfig("materialListHudStacks", true);
         public static final BooleanConfig MATERIAL_LIST_SLOT_HIGHLIGHT              = new BooleanConfig("materialListSlotHighlight", true);
         public static final BooleanConfig STATUS_INFO_HUD_AUTO                      = new BooleanConfig("statusInfoHudAuto", true);
+        public static final BooleanConfig TASK_STATISTICS_ON_HUD                    = new BooleanConfig("taskStatisticsOnHud", false);
         public static final BooleanConfig TOOL_HUD_ALWAYS_VISIBLE                   = new BooleanConfig("toolHudAlwaysVisible", false);
         public static final Vec2iConfig   TOOL_HUD_OFFSET                           = new Vec2iConfig(  "toolHudOffset", new Vec2i(1, 1));
         public static final DoubleConfig  TOOL_HUD_SCALE                            = new DoubleConfig( "toolHudScale", 1.0, 0.1, 4.0);
@@ -241,6 +262,7 @@ public class Configs
                 MATERIAL_LIST_HUD_STACKS,
                 MATERIAL_LIST_SLOT_HIGHLIGHT,
                 STATUS_INFO_HUD_AUTO,
+                TASK_STATISTICS_ON_HUD,
                 TOOL_HUD_ALWAYS_VISIBLE,
                 WARN_DISABLED_RENDERING,
 
@@ -0,0 +1,334 @@
+package fi.dy.masa.litematica.data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.NBTTagCompound;
+import fi.dy.masa.malilib.overlay.message.MessageDispatcher;
+import fi.dy.masa.malilib.util.StringUtils;
+import fi.dy.masa.malilib.util.nbt.NbtUtils;
+import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.render.infohud.IInfoHudRenderer;
+import fi.dy.masa.litematica.render.infohud.InfoHud;
+import fi.dy.masa.litematica.render.infohud.RenderPhase;
+import fi.dy.masa.litematica.schematic.ISchematic;
+import fi.dy.masa.litematica.schematic.LitematicaSchematic;
+import fi.dy.masa.litematica.schematic.SchematicType;
+
+/**
+ * Reads schematic files on a background thread, so that loading
+ * a large schematic doesn't stall the client thread.
+ * The loaded schematics are only handed to the listeners on the client thread.
+ * All the methods in this class should be called from the client thread.
+ */
+public class AsyncSchematicLoader implements IInfoHudRenderer
+{
+    private static final AsyncSchematicLoader INSTANCE = new AsyncSchematicLoader();
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Schematic Loader").setDaemon(true).build();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+    private final Map<File, LoadHandle> pendingLoads = new LinkedHashMap<>();
+    /** The number of finished and all loads since the HUD was last empty, for the HUD progress */
+    private int completedLoads;
+    private int totalLoads;
+    private final Minecraft mc = Minecraft.getMinecraft();
+
+    public static AsyncSchematicLoader getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts reading the given schematic file in the background.
+     * If the same file is already being loaded, then the existing handle is returned.
+     */
+    public LoadHandle loadAsync(File file)
+    {
+        LoadHandle handle = this.pendingLoads.get(file);
+
+        if (handle != null)
+        {
+            return handle;
+        }
+
+        final LoadHandle newHandle = new LoadHandle(file);
+        this.pendingLoads.put(file, newHandle);
+        ++this.totalLoads;
+
+        if (this.pendingLoads.size() == 1)
+        {
+            InfoHud.getInstance().addInfoHudRenderer(this, true);
+        }
+
+        this.executor.execute(() -> {
+            Supplier<ISchematic> finisher = () -> null;
+
+            if (newHandle.cancelled == false)
+            {
+                newHandle.readStartTime = System.currentTimeMillis();
+                newHandle.started = true;
+
+                try
+                {
+                    finisher = readSchematic(file);
+                }
+                catch (Exception e)
+                {
+                    Litematica.logger.warn("Exception while loading the schematic '{}'", file.getAbsolutePath(), e);
+                }
+            }
+
+            final Supplier<ISchematic> result = finisher;
+            this.mc.addScheduledTask(() -> this.onLoadFinished(newHandle, result));
+        });
+
+        return newHandle;
+    }
+
+    /**
+     * Reads the schematic file on the loader thread. No messages can be shown from the loader thread,
+     * so the returned supplier is called on the client thread to finish the load and to show any errors.
+     * The Litematica format is fully read here, the other formats are only read as NBT here,
+     * and the schematic is then created from the NBT on the client thread.
+     */
+    private static Supplier<ISchematic> readSchematic(File file)
+    {
+        List<SchematicType<?>> possibleTypes = SchematicType.getPossibleTypesFromFileName(file);
+
+        if (possibleTypes.size() == 1 && possibleTypes.get(0) == SchematicType.LITEMATICA)
+        {
+            LitematicaSchematic schematic = SchematicType.LITEMATICA.createSchematic(file);
+            boolean success = schematic.readFromFileWithDeferredErrors();
+
+            return () -> {
+                schematic.showDeferredReadErrors();
+                return success ? schematic : null;
+            };
+        }
+
+        if (possibleTypes.isEmpty() == false)
+        {
+            NBTTagCompound tag = NbtUtils.readNbtFromFile(file);
+
+            if (tag != null)
+            {
+                return () -> SchematicType.tryCreateSchematicFrom(file, tag);
+            }
+        }
+
+        return () -> null;
+    }
+
+    public boolean isLoading(File file)
+    {
+        return this.pendingLoads.containsKey(file);
+    }
+
+    /**
+     * Cancels all the pending loads. None of their listeners will get called.
+     */
+    public void cancelAll()
+    {
+        for (LoadHandle handle : this.pendingLoads.values())
+        {
+            handle.cancelled = true;
+        }
+
+        this.pendingLoads.clear();
+        this.completedLoads = 0;
+        this.totalLoads = 0;
+        InfoHud.getInstance().removeInfoHudRenderer(this, false);
+    }
+
+    private void onLoadFinished(LoadHandle handle, Supplier<ISchematic> finisher)
+    {
+        if (this.pendingLoads.get(handle.file) == handle)
+        {
+            this.pendingLoads.remove(handle.file);
+            ++this.completedLoads;
+        }
+
+        if (this.pendingLoads.isEmpty())
+        {
+            this.completedLoads = 0;
+            this.totalLoads = 0;
+            InfoHud.getInstance().removeInfoHudRenderer(this, false);
+        }
+
+        if (handle.cancelled == false)
+        {
+            ISchematic schematic = null;
+
+            try
+            {
+                schematic = finisher.get();
+            }
+            catch (Exception e)
+            {
+                Litematica.logger.warn("Exception while loading the schematic '{}'", handle.file.getAbsolutePath(), e);
+            }
+
+            handle.complete(schematic);
+        }
+    }
+
+    @Override
+    public boolean getShouldRenderText(RenderPhase phase)
+    {
+        return phase == RenderPhase.POST && this.pendingLoads.isEmpty() == false;
+    }
+
+    @Override
+    public boolean shouldRenderInGuis()
+    {
+        return true;
+    }
+
+    @Override
+    public List<String> getText(RenderPhase phase)
+    {
+        List<String> lines = new ArrayList<>();
+        long currentTime = System.currentTimeMillis();
+
+        lines.add(StringUtils.translate("litematica.title.hud.schematic_loading", this.completedLoads, this.totalLoads));
+
+        for (LoadHandle handle : this.pendingLoads.values())
+        {
+            if (handle.started)
+            {
+                double seconds = (currentTime - handle.readStartTime) / 1000.0;
+                lines.add(StringUtils.translate("litematica.hud.schematic_loading.reading", handle.file.getName(), String.format("%.1f", seconds)));
+            }
+            else
+            {
+                lines.add(StringUtils.translate("litematica.hud.schematic_loading.queued", handle.file.getName()));
+            }
+        }
+
+        return lines;
+    }
+
+    public static class LoadHandle
+    {
+        private final File file;
+        private final List<Consumer<ISchematic>> loadListeners = new ArrayList<>();
+        private final List<Runnable> failureListeners = new ArrayList<>();
+        @Nullable private ISchematic schematic;
+        private volatile long readStartTime;
+        private volatile boolean started;
+        private volatile boolean cancelled;
+        private boolean done;
+
+        private LoadHandle(File file)
+        {
+            this.file = file;
+        }
+
+        public File getFile()
+        {
+            return this.file;
+        }
+
+        public boolean isDone()
+        {
+            return this.done;
+        }
+
+        public boolean isCancelled()
+        {
+            return this.cancelled;
+        }
+
+        /**
+         * @return the loaded schematic, or null if the load hasn't finished yet or it failed
+         */
+        @Nullable
+        public ISchematic getSchematic()
+        {
+            return this.schematic;
+        }
+
+        /**
+         * Adds a listener that gets called on the client thread with the loaded schematic.
+         * If the load has already finished successfully, then the listener is called immediately.
+         */
+        public LoadHandle whenLoaded(Consumer<ISchematic> listener)
+        {
+            if (this.done)
+            {
+                if (this.schematic != null)
+                {
+                    listener.accept(this.schematic);
+                }
+            }
+            else
+            {
+                this.loadListeners.add(listener);
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds a listener that gets called on the client thread if the schematic fails to load
+         */
+        public LoadHandle whenFailed(Runnable listener)
+        {
+            if (this.done)
+            {
+                if (this.schematic == null)
+                {
+                    listener.run();
+                }
+            }
+            else
+            {
+                this.failureListeners.add(listener);
+            }
+
+            return this;
+        }
+
+        /**
+         * Cancels this load. The schematic may still get read,
+         * but it will not be passed on to any of the listeners.
+         */
+        public void cancel()
+        {
+            this.cancelled = true;
+        }
+
+        private void complete(@Nullable ISchematic schematic)
+        {
+            this.schematic = schematic;
+            this.done = true;
+
+            if (schematic != null)
+            {
+                this.loadListeners.forEach(listener -> listener.accept(schematic));
+            }
+            // The failure listeners show their own, more specific messages
+            else if (this.failureListeners.isEmpty())
+            {
+                MessageDispatcher.error("litematica.error.schematic_load.failed", this.file.getAbsolutePath());
+            }
+            else
+            {
+                this.failureListeners.forEach(Runnable::run);
+            }
+
+            this.loadListeners.clear();
+            this.failureListeners.clear();
+        }
+    }
+}
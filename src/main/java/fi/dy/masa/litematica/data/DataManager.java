@@ -38,6 +38,7 @@ import fi.dy.masa.litematica.render.infohud.InfoHud;
 import fi.dy.masa.litematica.scheduler.TaskScheduler;
 import fi.dy.masa.litematica.schematic.placement.SchematicPlacementManager;
 import fi.dy.masa.litematica.schematic.projects.SchematicProjectsManager;
+import fi.dy.masa.litematica.schematic.verifier.SchematicVerifierManager;
 import fi.dy.masa.litematica.selection.AreaSelectionSimple;
 import fi.dy.masa.litematica.selection.SelectionManager;
 import fi.dy.masa.litematica.tool.ToolMode;
@@ -48,6 +49,7 @@ import fi.dy.masa.litematica.world.SchematicWorldRenderingNotifier;
 public class DataManager implements DirectoryCache
 {
     public static final DataManager INSTANCE = new DataManager();
+    public static final String SCHEMATIC_BROWSER_CONTEXT = "schematic_browser";
 
     private static final Pattern PATTERN_ITEM_META_NBT = Pattern.compile("^(?<name>[a-z0-9\\._-]+:[a-z0-9\\._-]+)@(?<meta>[0-9]+)(?<nbt>\\{.*\\})$");
     private static final Pattern PATTERN_ITEM_META = Pattern.compile("^(?<name>[a-z0-9\\._-]+:[a-z0-9\\._-]+)@(?<meta>[0-9]+)$");
@@ -177,6 +179,12 @@ public class DataManager implements DirectoryCache
     public void setCurrentDirectoryForContext(String context, File dir)
     {
         LAST_DIRECTORIES.put(context, FileUtils.getCanonicalFileIfPossible(dir));
+
+        // Refresh the schematic metadata index when browsing to a new schematic directory
+        if (SCHEMATIC_BROWSER_CONTEXT.equals(context))
+        {
+            SchematicMetadataIndex.getInstance().scanDirectoryAsync(dir);
+        }
     }
 
     public static void clear()
@@ -192,6 +200,7 @@ public class DataManager implements DirectoryCache
         this.selectionManager.clear();
         this.schematicPlacementManager.clear();
         this.schematicProjectsManager.clear();
+        SchematicVerifierManager.INSTANCE.clear();
         this.areaSimple = new AreaSelectionSimple(true);
 
         if (isLogout || (this.materialList != null && this.materialList.isForPlacement()))
@@ -331,6 +340,7 @@ public class DataManager implements DirectoryCache
     private void savePerDimensionData()
     {
         this.schematicProjectsManager.saveCurrentProject();
+        SchematicVerifierManager.INSTANCE.saveSessions();
 
         File file = getCurrentStorageFile(false);
         JsonUtils.writeJsonToFile(this.toJson(), file);
@@ -454,6 +464,14 @@ public class DataManager implements DirectoryCache
     }
 
     private static File getCurrentStorageFile(boolean globalData)
+    {
+        return new File(getCurrentWorldDataDirectory(), getStorageFileName(globalData));
+    }
+
+    /**
+     * @return the data directory of the current world or server
+     */
+    public static File getCurrentWorldDataDirectory()
     {
         File dir;
         String worldName = StringUtils.getWorldOrServerName();
@@ -473,7 +491,7 @@ public class DataManager implements DirectoryCache
             Litematica.logger.warn("Failed to create the config directory '{}'", dir.getAbsolutePath());
         }
 
-        return new File(dir, getStorageFileName(globalData));
+        return dir;
     }
 
     private static String getStorageFileName(boolean globalData)
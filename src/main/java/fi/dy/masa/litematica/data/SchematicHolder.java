@@ -3,6 +3,7 @@ package fi.dy.masa.litematica.data;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import fi.dy.masa.litematica.schematic.ISchematic;
 import fi.dy.masa.litematica.schematic.SchematicType;
@@ -45,15 +46,14 @@ public class SchematicHolder
             return null;
         }
 
-        for (ISchematic schematic : this.schematics)
+        ISchematic schematic = this.getLoaded(file);
+
+        if (schematic != null)
         {
-            if (file.equals(schematic.getFile()))
-            {
-                return schematic;
-            }
+            return schematic;
         }
 
-        ISchematic schematic = SchematicType.tryCreateSchematicFrom(file);
+        schematic = SchematicType.tryCreateSchematicFrom(file);
 
         if (schematic != null)
         {
@@ -63,6 +63,59 @@ public class SchematicHolder
         return schematic;
     }
 
+    /**
+     * Calls the listener on the client thread with the schematic from the given file.
+     * If the schematic is not loaded yet, then it is read on a background thread
+     * and added to the loaded schematics once it's done.
+     * @return true if the schematic was already loaded, and thus the listener was already called
+     */
+    public boolean getOrLoadAsync(File file, Consumer<ISchematic> listener, @Nullable Runnable failureListener)
+    {
+        ISchematic schematic = this.getLoaded(file);
+
+        if (schematic != null)
+        {
+            listener.accept(schematic);
+            return true;
+        }
+
+        AsyncSchematicLoader.LoadHandle handle = AsyncSchematicLoader.getInstance().loadAsync(file);
+
+        handle.whenLoaded(loaded -> {
+            ISchematic existing = this.getLoaded(file);
+
+            // Another request for the same file may have already added it
+            if (existing == null)
+            {
+                this.schematics.add(loaded);
+                existing = loaded;
+            }
+
+            listener.accept(existing);
+        });
+
+        if (failureListener != null)
+        {
+            handle.whenFailed(failureListener);
+        }
+
+        return false;
+    }
+
+    @Nullable
+    private ISchematic getLoaded(File file)
+    {
+        for (ISchematic schematic : this.schematics)
+        {
+            if (file.equals(schematic.getFile()))
+            {
+                return schematic;
+            }
+        }
+
+        return null;
+    }
+
     public void addSchematic(ISchematic schematic, boolean allowDuplicates)
     {
         if (allowDuplicates || this.schematics.contains(schematic) == false)
@@ -0,0 +1,326 @@
+package fi.dy.masa.litematica.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nullable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import fi.dy.masa.malilib.util.FileUtils;
+import fi.dy.masa.malilib.util.data.Constants;
+import fi.dy.masa.malilib.util.nbt.NbtUtils;
+import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.schematic.ISchematic;
+import fi.dy.masa.litematica.schematic.LitematicaSchematic;
+import fi.dy.masa.litematica.schematic.SchematicMetadata;
+import fi.dy.masa.litematica.schematic.SchematicType;
+
+/**
+ * A persistent per-directory index of the schematic metadata (including the preview images),
+ * so that the schematic browsers don't need to read and decompress every schematic file
+ * just to show their basic information. The entries are keyed by the file name,
+ * and are considered valid as long as the file's size and modification time match.
+ */
+public class SchematicMetadataIndex
+{
+    private static final SchematicMetadataIndex INSTANCE = new SchematicMetadataIndex();
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Schematic Index Scanner").setDaemon(true).build();
+    private static final int INDEX_VERSION = 1;
+
+    private final Map<File, DirectoryIndex> directories = new ConcurrentHashMap<>();
+    private final Set<File> pendingScans = ConcurrentHashMap.newKeySet();
+    private final ExecutorService scanner = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+
+    public static SchematicMetadataIndex getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the metadata for the given schematic file from the index, if the entry is still up to date.
+     * Otherwise reads the metadata from the file, and updates the index.
+     * The index file itself is only read by the background scanner, so until the directory
+     * has been scanned, this just reads the metadata from the schematic file.
+     */
+    @Nullable
+    public SchematicMetadata getOrReadMetadata(File file)
+    {
+        DirectoryIndex index = this.getIndex(file.getParentFile());
+        SchematicMetadata metadata = index.getMetadata(file);
+
+        if (metadata == null)
+        {
+            metadata = readMetadataFromFile(file, true);
+
+            if (metadata != null)
+            {
+                index.put(file, metadata);
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Refreshes the index of the given directory on a background thread.
+     * Only the .litematic files are read by the scanner, as only those contain
+     * the metadata directly. The metadata for other formats gets added
+     * to the index when it's first requested via {@link #getOrReadMetadata(File)}.
+     */
+    public void scanDirectoryAsync(@Nullable File dir)
+    {
+        if (dir == null || dir.isDirectory() == false)
+        {
+            return;
+        }
+
+        final File canonicalDir = FileUtils.getCanonicalFileIfPossible(dir);
+
+        if (this.pendingScans.add(canonicalDir))
+        {
+            this.scanner.execute(() -> {
+                try
+                {
+                    this.scanDirectory(canonicalDir);
+                }
+                catch (Exception e)
+                {
+                    Litematica.logger.warn("Exception while scanning the schematic directory '{}'", canonicalDir.getAbsolutePath(), e);
+                }
+                finally
+                {
+                    this.pendingScans.remove(canonicalDir);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes all the modified directory indexes to disk, on the background thread
+     */
+    public void saveAllAsync()
+    {
+        this.scanner.execute(() -> this.directories.values().forEach(DirectoryIndex::saveIfDirty));
+    }
+
+    private void scanDirectory(File dir)
+    {
+        File[] files = dir.listFiles(SchematicType.SCHEMATIC_FILE_FILTER);
+
+        if (files == null)
+        {
+            return;
+        }
+
+        DirectoryIndex index = this.getIndex(dir);
+        Set<String> existingFiles = new HashSet<>();
+
+        index.readFromFileIfNeeded();
+
+        for (File file : files)
+        {
+            existingFiles.add(file.getName());
+
+            if (file.getName().endsWith(LitematicaSchematic.FILE_NAME_EXTENSION) && index.getMetadata(file) == null)
+            {
+                SchematicMetadata metadata = readMetadataFromFile(file, false);
+
+                if (metadata != null)
+                {
+                    index.put(file, metadata);
+                }
+            }
+        }
+
+        index.retainOnly(existingFiles);
+        index.saveIfDirty();
+    }
+
+    /**
+     * Returns the index holder for the given directory. The index file is not read here,
+     * that only happens on the scanner thread via {@link DirectoryIndex#readFromFileIfNeeded()}.
+     */
+    private DirectoryIndex getIndex(File dir)
+    {
+        File canonicalDir = FileUtils.getCanonicalFileIfPossible(dir);
+        return this.directories.computeIfAbsent(canonicalDir, DirectoryIndex::new);
+    }
+
+    /**
+     * Reads the metadata from the given file. For the Litematica format, only the metadata
+     * tag is read, otherwise the whole schematic needs to be read if <b>allowFullRead</b> is true.
+     */
+    @Nullable
+    private static SchematicMetadata readMetadataFromFile(File file, boolean allowFullRead)
+    {
+        if (file.getName().endsWith(LitematicaSchematic.FILE_NAME_EXTENSION))
+        {
+            return LitematicaSchematic.readMetadataFromFile(file);
+        }
+        else if (allowFullRead)
+        {
+            ISchematic schematic = SchematicType.tryCreateSchematicFrom(file);
+            return schematic != null ? schematic.getMetadata() : null;
+        }
+
+        return null;
+    }
+
+    private static class DirectoryIndex
+    {
+        private final File dir;
+        private final File indexFile;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private volatile boolean dirty;
+        private volatile boolean loaded;
+
+        private DirectoryIndex(File dir)
+        {
+            this.dir = dir;
+
+            String fileName = Integer.toHexString(dir.getAbsolutePath().hashCode()) + ".nbt";
+            this.indexFile = new File(DataManager.getDataBaseDirectory("schematic_index"), fileName);
+        }
+
+        @Nullable
+        private SchematicMetadata getMetadata(File file)
+        {
+            Entry entry = this.entries.get(file.getName());
+
+            if (entry != null && entry.lastModified == file.lastModified() && entry.fileSize == file.length())
+            {
+                return entry.metadata;
+            }
+
+            return null;
+        }
+
+        private void put(File file, SchematicMetadata metadata)
+        {
+            this.entries.put(file.getName(), new Entry(file.lastModified(), file.length(), metadata));
+            this.dirty = true;
+        }
+
+        private void retainOnly(Set<String> fileNames)
+        {
+            if (this.entries.keySet().retainAll(fileNames))
+            {
+                this.dirty = true;
+            }
+        }
+
+        private synchronized void readFromFileIfNeeded()
+        {
+            if (this.loaded == false)
+            {
+                this.loaded = true;
+                this.readFromFile();
+            }
+        }
+
+        private void readFromFile()
+        {
+            if (this.indexFile.isFile() == false)
+            {
+                return;
+            }
+
+            NBTTagCompound tag = NbtUtils.readNbtFromFile(this.indexFile);
+
+            // Different directories could in theory end up with the same file name via a hash collision
+            if (tag == null ||
+                tag.getInteger("Version") != INDEX_VERSION ||
+                tag.getString("Directory").equals(this.dir.getAbsolutePath()) == false)
+            {
+                return;
+            }
+
+            NBTTagList list = tag.getTagList("Entries", Constants.NBT.TAG_COMPOUND);
+            final int size = list.tagCount();
+
+            for (int i = 0; i < size; ++i)
+            {
+                NBTTagCompound entryTag = list.getCompoundTagAt(i);
+                SchematicMetadata metadata = new SchematicMetadata();
+                metadata.fromTag(entryTag.getCompoundTag("Metadata"));
+
+                // Any entries read from the schematic files before the index got loaded are newer
+                Entry entry = new Entry(entryTag.getLong("LastModified"), entryTag.getLong("FileSize"), metadata);
+                this.entries.putIfAbsent(entryTag.getString("File"), entry);
+            }
+        }
+
+        private synchronized void saveIfDirty()
+        {
+            if (this.dirty == false)
+            {
+                return;
+            }
+
+            // Don't drop the existing entries by overwriting an index that was never read
+            this.readFromFileIfNeeded();
+
+            this.dirty = false;
+
+            NBTTagCompound tag = new NBTTagCompound();
+            NBTTagList list = new NBTTagList();
+
+            for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet())
+            {
+                Entry entry = mapEntry.getValue();
+                NBTTagCompound entryTag = new NBTTagCompound();
+
+                entryTag.setString("File", mapEntry.getKey());
+                entryTag.setLong("LastModified", entry.lastModified);
+                entryTag.setLong("FileSize", entry.fileSize);
+                entryTag.setTag("Metadata", entry.metadata.toTag());
+
+                list.appendTag(entryTag);
+            }
+
+            tag.setInteger("Version", INDEX_VERSION);
+            tag.setString("Directory", this.dir.getAbsolutePath());
+            tag.setTag("Entries", list);
+
+            File tmpFile = new File(this.indexFile.getParentFile(), this.indexFile.getName() + ".tmp");
+
+            try
+            {
+                FileOutputStream os = new FileOutputStream(tmpFile);
+                CompressedStreamTools.writeCompressed(tag, os);
+                os.close();
+
+                if ((this.indexFile.exists() && this.indexFile.delete() == false) || tmpFile.renameTo(this.indexFile) == false)
+                {
+                    Litematica.logger.warn("Failed to replace the schematic index file '{}'", this.indexFile.getAbsolutePath());
+                }
+            }
+            catch (Exception e)
+            {
+                Litematica.logger.warn("Failed to write the schematic index file '{}'", this.indexFile.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private static class Entry
+    {
+        private final long lastModified;
+        private final long fileSize;
+        private final SchematicMetadata metadata;
+
+        private Entry(long lastModified, long fileSize, SchematicMetadata metadata)
+        {
+            this.lastModified = lastModified;
+            this.fileSize = fileSize;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import fi.dy.masa.malilib.gui.widget.list.BaseFileBrowserWidget.DirectoryEntry;
 import fi.dy.masa.malilib.util.StringUtils;
 import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.data.DataManager;
+import fi.dy.masa.litematica.data.SchematicMetadataIndex;
 import fi.dy.masa.litematica.gui.util.SchematicBrowserIconProvider;
 import fi.dy.masa.litematica.gui.widget.SchematicInfoWidget;
 import fi.dy.masa.litematica.schematic.SchematicType;
@@ -67,6 +68,9 @@ public class BaseSchematicBrowserScreen extends BaseListScreen<BaseFileBrowserWi
         BaseFileBrowserWidget listWidget = new BaseFileBrowserWidget(dir, dir, DataManager.INSTANCE,
                                                                      this.browserContext, this.cachingIconProvider);
 
+        File currentDir = DataManager.INSTANCE.getCurrentDirectoryForContext(this.browserContext);
+        SchematicMetadataIndex.getInstance().scanDirectoryAsync(currentDir != null ? currentDir : dir);
+
         listWidget.setParentScreen(this.getParent());
         listWidget.getEntrySelectionHandler().setSelectionListener(this::onSelectionChange);
         setCommonSchematicBrowserSettings(listWidget);
@@ -1,6 +1,7 @@
 package fi.dy.masa.litematica.gui;
 
 import java.io.File;
+import javax.annotation.Nullable;
 import fi.dy.masa.malilib.gui.BaseScreen;
 import fi.dy.masa.malilib.gui.widget.CheckBoxWidget;
 import fi.dy.masa.malilib.gui.widget.button.GenericButton;
@@ -9,11 +10,10 @@ import fi.dy.masa.malilib.gui.widget.list.BaseFileBrowserWidget.DirectoryEntryTy
 import fi.dy.masa.malilib.overlay.message.MessageDispatcher;
 import fi.dy.masa.litematica.Reference;
 import fi.dy.masa.litematica.config.Configs;
+import fi.dy.masa.litematica.data.AsyncSchematicLoader;
 import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.data.SchematicHolder;
 import fi.dy.masa.litematica.materials.MaterialListUtils;
-import fi.dy.masa.litematica.schematic.ISchematic;
-import fi.dy.masa.litematica.schematic.SchematicType;
 import fi.dy.masa.litematica.schematic.placement.SchematicPlacementManager;
 
 public class SchematicBrowserScreen extends BaseSchematicBrowserScreen
@@ -24,7 +24,7 @@ public class SchematicBrowserScreen extends BaseSchematicBrowserScreen
 
     public SchematicBrowserScreen()
     {
-        super(10, 24, 20 + 170 + 2, 70, "schematic_browser");
+        super(10, 24, 20 + 170 + 2, 70, DataManager.SCHEMATIC_BROWSER_CONTEXT);
 
         this.loadButton             = GenericButton.create("litematica.button.schematic_browser.load_schematic", this::loadSchematic);
         this.materialListButton     = GenericButton.create("litematica.button.misc.material_list", this::createMaterialList);
@@ -63,54 +63,60 @@ public class SchematicBrowserScreen extends BaseSchematicBrowserScreen
 
     protected void loadSchematic()
     {
-        ISchematic schematic = tryLoadSchematic(this.getListWidget().getEntrySelectionHandler().getLastSelectedEntry());
+        File file = getSelectedSchematicFile(this.getListWidget().getEntrySelectionHandler().getLastSelectedEntry());
 
-        if (schematic == null)
+        if (file == null)
         {
             return;
         }
 
-        SchematicHolder.getInstance().addSchematic(schematic, true);
-        MessageDispatcher.success("litematica.message.info.schematic_loaded_to_memory", schematic.getFile().getName());
+        final boolean createPlacement = Configs.Internal.CREATE_PLACEMENT_ON_LOAD.getBooleanValue();
+        final boolean createAsEnabled = BaseScreen.isShiftDown() == false;
+
+        // The schematic is read on a background thread, and only handed over on the client thread once it's done
+        AsyncSchematicLoader.getInstance().loadAsync(file).whenLoaded(schematic -> {
+            SchematicHolder.getInstance().addSchematic(schematic, true);
+            MessageDispatcher.success("litematica.message.info.schematic_loaded_to_memory", file.getName());
+
+            if (createPlacement)
+            {
+                SchematicPlacementManager manager = DataManager.getSchematicPlacementManager();
+                manager.createPlacementForNewlyLoadedSchematic(schematic, createAsEnabled);
+            }
+        }).whenFailed(SchematicBrowserScreen::showInvalidSchematicFileError);
 
         // Clear the parent after loading as schematic, as presumably in most cases
         // the user would just want to close the screen at that point.
         this.setParent(null);
-
-        if (Configs.Internal.CREATE_PLACEMENT_ON_LOAD.getBooleanValue())
-        {
-            SchematicPlacementManager manager = DataManager.getSchematicPlacementManager();
-            manager.createPlacementForNewlyLoadedSchematic(schematic, BaseScreen.isShiftDown() == false);
-        }
     }
 
     protected void createMaterialList()
     {
-        ISchematic schematic = tryLoadSchematic(this.getListWidget().getEntrySelectionHandler().getLastSelectedEntry());
+        File file = getSelectedSchematicFile(this.getListWidget().getEntrySelectionHandler().getLastSelectedEntry());
 
-        if (schematic != null)
+        if (file != null)
         {
-            MaterialListUtils.openMaterialListScreenFor(schematic);
+            AsyncSchematicLoader.getInstance().loadAsync(file)
+                    .whenLoaded(MaterialListUtils::openMaterialListScreenFor)
+                    .whenFailed(SchematicBrowserScreen::showInvalidSchematicFileError);
         }
     }
 
-    public static ISchematic tryLoadSchematic(DirectoryEntry entry)
+    private static void showInvalidSchematicFileError()
+    {
+        MessageDispatcher.error("litematica.message.error.schematic_load.invalid_schematic_file");
+    }
+
+    @Nullable
+    public static File getSelectedSchematicFile(DirectoryEntry entry)
     {
         File file = entry != null && entry.getType() == DirectoryEntryType.FILE ? entry.getFullPath() : null;
 
         if (file == null)
         {
             MessageDispatcher.error("litematica.message.error.schematic_load.no_schematic_selected");
-            return null;
-        }
-
-        ISchematic schematic = SchematicType.tryCreateSchematicFrom(file);
-
-        if (schematic == null)
-        {
-            MessageDispatcher.error("litematica.message.error.schematic_load.invalid_schematic_file");
         }
 
-        return schematic;
+        return file;
     }
 }
@@ -2,10 +2,12 @@ package fi.dy.masa.litematica.gui;
 
 import java.io.File;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import fi.dy.masa.malilib.gui.BaseScreen;
 import fi.dy.masa.malilib.gui.ConfirmActionScreen;
 import fi.dy.masa.malilib.gui.TextInputScreen;
+import fi.dy.masa.malilib.gui.util.GuiUtils;
 import fi.dy.masa.malilib.gui.widget.button.GenericButton;
 import fi.dy.masa.malilib.gui.widget.list.BaseFileBrowserWidget;
 import fi.dy.masa.malilib.gui.widget.list.BaseFileBrowserWidget.DirectoryEntry;
@@ -68,7 +70,7 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
 
         SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
 
-        if (info != null && info.schematic.getMetadata().getPreviewImagePixelData() != null)
+        if (info != null && info.metadata.getPreviewImagePixelData() != null)
         {
             this.addWidget(this.removePreviewButton);
         }
@@ -105,16 +107,32 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
         this.reAddActiveWidgets();
     }
 
-    protected void convertSchematic()
+    /**
+     * Reads the full selected schematic in the background, and then calls the action
+     * on the client thread, if this screen is still open.
+     */
+    protected void withSelectedSchematic(Consumer<ISchematic> action)
     {
         SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
 
         if (info != null)
         {
-            SaveConvertSchematicScreen screen = new SaveConvertSchematicScreen(info.schematic, false);
+            info.getSchematicAsync(schematic -> {
+                if (GuiUtils.getCurrentScreen() == this)
+                {
+                    action.accept(schematic);
+                }
+            });
+        }
+    }
+
+    protected void convertSchematic()
+    {
+        this.withSelectedSchematic(schematic -> {
+            SaveConvertSchematicScreen screen = new SaveConvertSchematicScreen(schematic, false);
             screen.setParent(this);
             BaseScreen.openScreen(screen);
-        }
+        });
     }
 
     protected void deleteFile()
@@ -134,17 +152,15 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
 
     protected void removePreview()
     {
-        SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
-
-        if (info != null)
-        {
+        // The schematic is read before the confirmation, so that it's ready to be written back
+        this.withSelectedSchematic(schematic -> {
             String title = "litematica.title.screen.schematic_manager.confirm_preview_removal";
             String msg = "litematica.info.schematic_manager.confirm_preview_removal";
-            String name = info.schematic.getMetadata().getName();
+            String name = schematic.getMetadata().getName();
             ConfirmActionScreen screen = new ConfirmActionScreen(320, title, this::executeRemovePreview, msg, name);
             screen.setParent(this);
             BaseScreen.openPopupScreen(screen);
-        }
+        });
     }
 
     protected boolean executeFileDelete()
@@ -202,31 +218,28 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
 
     protected void renameSchematic()
     {
-        SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
-
-        if (info != null)
-        {
-            if (info.schematic.getType().getHasName() == false)
+        this.withSelectedSchematic(schematic -> {
+            if (schematic.getType().getHasName() == false)
             {
                 MessageDispatcher.error("litematica.message.error.schematic_manager.schematic_type_has_no_name");
                 return;
             }
 
-            String oldName = info.schematic.getMetadata().getName();
+            String oldName = schematic.getMetadata().getName();
             String title = "litematica.title.screen.schematic_manager.rename_schematic";
             TextInputScreen screen = new TextInputScreen(title, oldName, this::renameSchematicToName, this);
             BaseScreen.openPopupScreen(screen);
-        }
+        });
     }
 
     protected boolean renameSchematicToName(String newName)
     {
         SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
+        ISchematic schematic = info != null ? info.getLoadedSchematic() : null;
 
-        if (info != null)
+        if (schematic != null)
         {
             SchematicPlacementManager manager = DataManager.getSchematicPlacementManager();
-            ISchematic schematic = info.schematic;
             String oldName = schematic.getMetadata().getName();
             schematic.getMetadata().setName(newName);
             schematic.getMetadata().setTimeModifiedToNow();
@@ -267,12 +280,7 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
 
     protected void setPreview()
     {
-        SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
-
-        if (info != null)
-        {
-            ISchematic schematic = info.schematic;
-
+        this.withSelectedSchematic(schematic -> {
             if (schematic.getType() == SchematicType.LITEMATICA)
             {
                 SetSchematicPreviewTask task = new SetSchematicPreviewTask(schematic);
@@ -288,16 +296,16 @@ public class SchematicManagerScreen extends BaseSchematicBrowserScreen
                 MessageDispatcher.error("litematica.message.error.schematic_manager.schematic_type_has_no_preview",
                                         schematic.getType().getDisplayName());
             }
-        }
+        });
     }
 
     protected void executeRemovePreview()
     {
         SchematicInfo info = this.schematicInfoWidget.getSelectedSchematicInfo();
+        ISchematic schematic = info != null ? info.getLoadedSchematic() : null;
 
-        if (info != null)
+        if (schematic != null)
         {
-            ISchematic schematic = info.schematic;
             SchematicMetadata meta = schematic.getMetadata();
 
             if (meta.getPreviewImagePixelData() != null)
@@ -2,16 +2,16 @@ package fi.dy.masa.litematica.gui.util;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.DynamicTexture;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.ResourceLocation;
-import fi.dy.masa.malilib.util.nbt.NbtUtils;
 import fi.dy.masa.litematica.Reference;
+import fi.dy.masa.litematica.data.AsyncSchematicLoader;
+import fi.dy.masa.litematica.data.SchematicMetadataIndex;
 import fi.dy.masa.litematica.schematic.ISchematic;
 import fi.dy.masa.litematica.schematic.SchematicMetadata;
-import fi.dy.masa.litematica.schematic.SchematicType;
 
 public class SchematicInfoCache
 {
@@ -35,6 +35,7 @@ public class SchematicInfoCache
         }
 
         this.cachedData.clear();
+        SchematicMetadataIndex.getInstance().saveAllAsync();
     }
 
     public void cacheSchematicInfo(File file)
@@ -44,20 +45,15 @@ public class SchematicInfoCache
             return;
         }
 
-        NBTTagCompound tag = NbtUtils.readNbtFromFile(file);
+        // This only reads the file if the metadata index entry is missing or out of date
+        SchematicMetadata metadata = SchematicMetadataIndex.getInstance().getOrReadMetadata(file);
         SchematicInfo data = null;
 
-        if (tag != null)
+        if (metadata != null)
         {
-            ISchematic schematic = SchematicType.tryCreateSchematicFrom(file, tag);
-
-            if (schematic != null)
-            {
-                SchematicMetadata metadata = schematic.getMetadata();
-                ResourceLocation iconName = new ResourceLocation(Reference.MOD_ID, file.getAbsolutePath());
-                DynamicTexture texture = this.createPreviewImage(iconName, metadata);
-                data = new SchematicInfo(schematic, iconName, texture);
-            }
+            ResourceLocation iconName = new ResourceLocation(Reference.MOD_ID, file.getAbsolutePath());
+            DynamicTexture texture = this.createPreviewImage(iconName, metadata);
+            data = new SchematicInfo(file, metadata, iconName, texture);
         }
 
         this.cachedData.put(file, data);
@@ -96,17 +92,48 @@ public class SchematicInfoCache
 
     public static class SchematicInfo
     {
-        public final ISchematic schematic;
+        public final File file;
+        public final SchematicMetadata metadata;
         public final ResourceLocation iconName;
         @Nullable public final DynamicTexture texture;
+        @Nullable protected ISchematic schematic;
 
-        protected SchematicInfo(ISchematic schematic,
+        protected SchematicInfo(File file,
+                                SchematicMetadata metadata,
                                 ResourceLocation iconName,
                                 @Nullable DynamicTexture texture)
         {
-            this.schematic = schematic;
+            this.file = file;
+            this.metadata = metadata;
             this.iconName = iconName;
             this.texture = texture;
         }
+
+        /**
+         * @return the full schematic, if it has already been read via {@link #getSchematicAsync(Consumer)}
+         */
+        @Nullable
+        public ISchematic getLoadedSchematic()
+        {
+            return this.schematic;
+        }
+
+        /**
+         * Calls the listener on the client thread with the full schematic. Only the metadata is read
+         * for the browser, so the schematic is read from the file on a background thread on the first call.
+         */
+        public void getSchematicAsync(Consumer<ISchematic> listener)
+        {
+            if (this.schematic != null)
+            {
+                listener.accept(this.schematic);
+                return;
+            }
+
+            AsyncSchematicLoader.getInstance().loadAsync(this.file).whenLoaded(schematic -> {
+                this.schematic = schematic;
+                listener.accept(schematic);
+            });
+        }
     }
 }
@@ -55,7 +55,7 @@ public class SchematicInfoWidget extends ContainerWidget
 
         int x = this.getX() + 4;
         int y = this.getY() + 4;
-        SchematicMetadata meta = this.currentInfo.schematic.getMetadata();
+        SchematicMetadata meta = this.currentInfo.metadata;
         LabelWidget label = this.createInfoLabelWidget(x, y, meta);
         this.addWidget(label);
 
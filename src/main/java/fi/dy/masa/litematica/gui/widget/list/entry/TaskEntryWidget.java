@@ -6,6 +6,7 @@ import fi.dy.masa.malilib.gui.widget.list.entry.DataListEntryWidgetData;
 import fi.dy.masa.malilib.render.text.StyledTextLine;
 import fi.dy.masa.litematica.scheduler.ITask;
 import fi.dy.masa.litematica.scheduler.TaskScheduler;
+import fi.dy.masa.litematica.scheduler.tasks.TaskBase;
 
 public class TaskEntryWidget extends BaseDataListEntryWidget<ITask>
 {
@@ -25,7 +26,7 @@ public class TaskEntryWidget extends BaseDataListEntryWidget<ITask>
             this.listWidget.refreshEntries();
         });
 
-        this.setText(StyledTextLine.of(data.getDisplayName()));
+        this.setText(StyledTextLine.of(data.getDisplayName() + " - " + TaskBase.getStatisticsString(data)));
     }
 
     @Override
@@ -3,6 +3,7 @@ package fi.dy.masa.litematica.materials;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.util.Arrays;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -41,8 +42,16 @@ import fi.dy.masa.litematica.world.WorldSchematic;
 
 public class MaterialCache
 {
-    private static final MaterialCache INSTANCE = new MaterialCache();
-
+    /** The state IDs are the block ID (12 bits) + the meta (4 bits) */
+    private static final int STATE_ID_COUNT = 1 << 16;
+    @Nullable private static MaterialCache INSTANCE;
+
+    /**
+     * The required build items indexed by Block.getStateId(), with null for the states that haven't been looked up yet.
+     * The states that only differ by their non-meta (actual state) properties share an entry,
+     * which is fine since those properties don't affect the required item.
+     */
+    protected final ItemStack[] buildItemsByStateId = new ItemStack[STATE_ID_COUNT];
     protected final IdentityHashMap<IBlockState, ItemStack> buildItemsForStates = new IdentityHashMap<>();
     protected final IdentityHashMap<IBlockState, ItemStack> displayItemsForStates = new IdentityHashMap<>();
     protected final WorldSchematic tempWorld;
@@ -62,6 +71,12 @@ public class MaterialCache
 
     public static MaterialCache getInstance()
     {
+        // Created lazily, so that the resource reload at game start doesn't create the temporary world too early
+        if (INSTANCE == null)
+        {
+            INSTANCE = new MaterialCache();
+        }
+
         /*
         if (INSTANCE.hasReadFromFile == false)
         {
@@ -72,8 +87,21 @@ public class MaterialCache
         return INSTANCE;
     }
 
+    /**
+     * Clears the cached items after a resource reload, as the items of the states may have changed
+     */
+    public static void onResourcesReloaded()
+    {
+        if (INSTANCE != null)
+        {
+            INSTANCE.clearCache();
+            INSTANCE.displayItemsForStates.clear();
+        }
+    }
+
     public void clearCache()
     {
+        Arrays.fill(this.buildItemsByStateId, null);
         this.buildItemsForStates.clear();
     }
 
@@ -84,11 +112,18 @@ public class MaterialCache
 
     public ItemStack getRequiredBuildItemForState(IBlockState state, World world, BlockPos pos)
     {
-        ItemStack stack = this.buildItemsForStates.get(state);
+        final int stateId = Block.getStateId(state);
+        final boolean validId = stateId >= 0 && stateId < STATE_ID_COUNT;
+        ItemStack stack = validId ? this.buildItemsByStateId[stateId] : this.buildItemsForStates.get(state);
 
         if (stack == null)
         {
             stack = this.getItemForStateFromWorld(state, world, pos, true);
+
+            if (validId)
+            {
+                this.buildItemsByStateId[stateId] = stack;
+            }
         }
 
         return stack;
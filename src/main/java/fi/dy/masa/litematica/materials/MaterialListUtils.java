@@ -4,10 +4,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
+import net.minecraft.init.Blocks;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.Vec3i;
@@ -22,6 +25,7 @@ import fi.dy.masa.litematica.gui.MaterialListScreen;
 import fi.dy.masa.litematica.schematic.ISchematic;
 import fi.dy.masa.litematica.schematic.ISchematicRegion;
 import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStateContainer;
+import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStatePalette;
 
 public class MaterialListUtils
 {
@@ -60,18 +64,29 @@ public class MaterialListUtils
                     final int sizeX = size.getX();
                     final int sizeY = size.getY();
                     final int sizeZ = size.getZ();
+                    final int[] rowIds = new int[sizeX];
+                    Int2LongOpenHashMap idCounts = new Int2LongOpenHashMap();
 
                     for (int y = 0; y < sizeY; ++y)
                     {
                         for (int z = 0; z < sizeZ; ++z)
                         {
+                            container.getBlockStateIdRow(0, y, z, sizeX, rowIds, 0);
+
                             for (int x = 0; x < sizeX; ++x)
                             {
-                                IBlockState state = container.getBlockState(x, y, z);
-                                countsTotal.addTo(state, 1);
+                                idCounts.addTo(rowIds[x], 1);
                             }
                         }
                     }
+
+                    ILitematicaBlockStatePalette palette = container.getPalette();
+
+                    for (Int2LongMap.Entry entry : idCounts.int2LongEntrySet())
+                    {
+                        IBlockState state = palette.getBlockState(entry.getIntKey());
+                        countsTotal.addTo(state != null ? state : Blocks.AIR.getDefaultState(), entry.getLongValue());
+                    }
                 }
             }
         }
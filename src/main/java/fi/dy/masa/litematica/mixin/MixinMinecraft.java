@@ -5,6 +5,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import fi.dy.masa.litematica.data.DataManager;
+import fi.dy.masa.litematica.materials.MaterialCache;
 import fi.dy.masa.litematica.schematic.util.SchematicEditUtils;
 import fi.dy.masa.litematica.util.EasyPlaceUtils;
 
@@ -47,6 +48,12 @@ public abstract class MixinMinecraft
         }
     }
 
+    @Inject(method = "refreshResources()V", at = @At("RETURN"))
+    private void onResourcesReloaded(CallbackInfo ci)
+    {
+        MaterialCache.onResourcesReloaded();
+    }
+
     @Inject(method = "runTick()V", at = @At("HEAD"))
     private void onRunTickStart(CallbackInfo ci)
     {
@@ -34,7 +34,7 @@ public abstract class MixinRenderGlobal
     {
         if (oldState != newState)
         {
-            SchematicVerifierManager.INSTANCE.onBlockChanged(pos);
+            SchematicVerifierManager.INSTANCE.onBlockChanged(pos, oldState);
 
             if (Configs.Visuals.MAIN_RENDERING_TOGGLE.getBooleanValue() &&
                 Configs.Visuals.SCHEMATIC_RENDERING.getBooleanValue())
@@ -341,9 +341,8 @@ public class OverlayRenderer
 
                 if (list.isEmpty() == false)
                 {
-                    List<BlockPairTypePosition> posList = verifier.getClosestSelectedPositions(cameraPos);
                     Entity entity = fi.dy.masa.malilib.util.EntityUtils.getCameraEntity();
-                    BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(posList, entity, 128);
+                    BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(verifier.getSelectedPositions(), entity, 128);
                     this.renderSchematicMismatches(list, lookPos, partialTicks);
                 }
             }
@@ -391,9 +390,10 @@ public class OverlayRenderer
             prevEntry = entry;
         }
 
-        if (lookedEntry != null)
+        // The looked at position can also be one of the selected positions outside of the closest highlighted positions
+        if (lookPos != null)
         {
-            if (connections && prevEntry != null)
+            if (lookedEntry != null && connections && prevEntry != null)
             {
                 RenderUtils.drawConnectingLineBatchedLines(prevEntry.posLong, lookedEntry.posLong, false, lookedEntry.type.getOverlayColor(), buffer, entity, partialTicks);
             }
@@ -402,7 +402,7 @@ public class OverlayRenderer
             buffer.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
 
             GlStateManager.glLineWidth(6f);
-            RenderUtils.drawBlockBoundingBoxOutlinesBatchedLines(lookPosLong, lookedEntry.type.getOverlayColor(), 0.002, buffer, entity, partialTicks);
+            RenderUtils.drawBlockBoundingBoxOutlinesBatchedLines(lookPosLong, lookPos.type.getOverlayColor(), 0.002, buffer, entity, partialTicks);
         }
 
         tessellator.draw();
@@ -503,13 +503,10 @@ public class OverlayRenderer
 
         if (activeVerifiers.isEmpty() == false)
         {
-            BlockPos cameraPos = EntityUtils.getCameraEntityBlockPos();
-
             for (SchematicVerifier verifier : activeVerifiers)
             {
                 Entity entity = fi.dy.masa.malilib.util.EntityUtils.getCameraEntity();
-                List<BlockPairTypePosition> posList = verifier.getClosestSelectedPositions(cameraPos);
-                BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(posList, entity, 32);
+                BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(verifier.getSelectedPositions(), entity, 32);
 
                 if (lookPos != null)
                 {
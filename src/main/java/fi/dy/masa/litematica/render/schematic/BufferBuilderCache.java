@@ -4,24 +4,37 @@ import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.util.BlockRenderLayer;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 
+/**
+ * The buffers used by one render chunk compile task.
+ * The buffers start small and grow on demand while rendering (which BufferBuilder does by itself),
+ * and {@link #trim()} can be used to release the buffers that have grown very large,
+ * for example after compiling some very dense render chunk.
+ */
 public class BufferBuilderCache
 {
+    // The BufferBuilder sizes are given in ints, not bytes
+    private static final int INITIAL_SIZE_BLOCKS = 65536;
+    private static final int INITIAL_SIZE_OVERLAY = 16384;
+    private static final int TRIM_THRESHOLD_MULTIPLIER = 4;
+
     private final BufferBuilder[] worldRenderers;
     private final BufferBuilder[] overlayBufferBuilders;
+    private final OverlayMesher overlayMesher = new OverlayMesher();
+    private final LodMesher lodMesher = new LodMesher();
 
     public BufferBuilderCache()
     {
         this.worldRenderers = new BufferBuilder[BlockRenderLayer.values().length];
         this.overlayBufferBuilders = new BufferBuilder[OverlayRenderType.values().length];
 
-        this.worldRenderers[BlockRenderLayer.SOLID.ordinal()] = new BufferBuilder(2097152);
-        this.worldRenderers[BlockRenderLayer.CUTOUT.ordinal()] = new BufferBuilder(131072);
-        this.worldRenderers[BlockRenderLayer.CUTOUT_MIPPED.ordinal()] = new BufferBuilder(131072);
-        this.worldRenderers[BlockRenderLayer.TRANSLUCENT.ordinal()] = new BufferBuilder(262144);
+        for (int i = 0; i < this.worldRenderers.length; ++i)
+        {
+            this.worldRenderers[i] = new BufferBuilder(INITIAL_SIZE_BLOCKS);
+        }
 
         for (int i = 0; i < this.overlayBufferBuilders.length; ++i)
         {
-            this.overlayBufferBuilders[i] = new BufferBuilder(262144);
+            this.overlayBufferBuilders[i] = new BufferBuilder(INITIAL_SIZE_OVERLAY);
         }
     }
 
@@ -39,4 +52,62 @@ public class BufferBuilderCache
     {
         return this.overlayBufferBuilders[type.ordinal()];
     }
+
+    public OverlayMesher getOverlayMesher()
+    {
+        return this.overlayMesher;
+    }
+
+    public LodMesher getLodMesher()
+    {
+        return this.lodMesher;
+    }
+
+    /**
+     * Replaces the buffers that have grown way past their initial size with new, small buffers.
+     * This must only be called while this cache is not being used by any compile task.
+     * @return the number of bytes released
+     */
+    public long trim()
+    {
+        return trim(this.worldRenderers, INITIAL_SIZE_BLOCKS) + trim(this.overlayBufferBuilders, INITIAL_SIZE_OVERLAY);
+    }
+
+    /**
+     * @return the total number of bytes currently allocated for the buffers
+     */
+    public long getAllocatedBytes()
+    {
+        long bytes = 0;
+
+        for (BufferBuilder buffer : this.worldRenderers)
+        {
+            bytes += buffer.getByteBuffer().capacity();
+        }
+
+        for (BufferBuilder buffer : this.overlayBufferBuilders)
+        {
+            bytes += buffer.getByteBuffer().capacity();
+        }
+
+        return bytes;
+    }
+
+    private static long trim(BufferBuilder[] buffers, int initialSize)
+    {
+        long released = 0;
+
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            final int capacity = buffers[i].getByteBuffer().capacity();
+
+            if (capacity > initialSize * 4 * TRIM_THRESHOLD_MULTIPLIER)
+            {
+                buffers[i] = new BufferBuilder(initialSize);
+                released += capacity - initialSize * 4;
+            }
+        }
+
+        return released;
+    }
 }
@@ -12,6 +12,7 @@ import net.minecraft.world.World;
 import net.minecraft.world.WorldType;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
 public class ChunkCacheSchematic implements IBlockAccess
 {
@@ -84,6 +85,34 @@ public class ChunkCacheSchematic implements IBlockAccess
         return AIR;
     }
 
+    /**
+     * @return the block storage section containing the given position,
+     * or null if the section is empty or outside of this cache
+     */
+    @Nullable
+    public ExtendedBlockStorage getSection(BlockPos pos)
+    {
+        if (pos.getY() >= 0 && pos.getY() < 256)
+        {
+            int cx = (pos.getX() >> 4) - this.chunkStartX;
+            int cz = (pos.getZ() >> 4) - this.chunkStartZ;
+
+            if (cx >= 0 && cx < this.chunkArray.length &&
+                cz >= 0 && cz < this.chunkArray[cx].length)
+            {
+                Chunk chunk = this.chunkArray[cx][cz];
+
+                if (chunk != null)
+                {
+                    ExtendedBlockStorage section = chunk.getBlockStorageArray()[pos.getY() >> 4];
+                    return section != Chunk.NULL_BLOCK_STORAGE && section.isEmpty() == false ? section : null;
+                }
+            }
+        }
+
+        return null;
+    }
+
     @Override
     public Biome getBiome(BlockPos pos)
     {
@@ -12,7 +12,9 @@ public class ChunkCompileTaskGeneratorSchematic implements Comparable<ChunkCompi
     private final ReentrantLock lock = new ReentrantLock();
     private final List<Runnable> listFinishRunnables = Lists.<Runnable>newArrayList();
     private final ChunkCompileTaskGeneratorSchematic.Type type;
-    private final double distanceSq;
+    private volatile double distanceSq;
+    private volatile boolean visible = true;
+    private final long creationTime = System.nanoTime();
     private BufferBuilderCache bufferBuilderCache;
     private CompiledChunk compiledChunk;
     private ChunkCompileTaskGeneratorSchematic.Status status = ChunkCompileTaskGeneratorSchematic.Status.PENDING;
@@ -30,6 +32,14 @@ public class ChunkCompileTaskGeneratorSchematic implements Comparable<ChunkCompi
         return this.status;
     }
 
+    /**
+     * @return the System.nanoTime() timestamp of when this task was created
+     */
+    public long getCreationTime()
+    {
+        return this.creationTime;
+    }
+
     public RenderChunkSchematicVbo getRenderChunk()
     {
         return this.renderChunk;
@@ -128,11 +138,29 @@ public class ChunkCompileTaskGeneratorSchematic implements Comparable<ChunkCompi
         return this.finished;
     }
 
+    /**
+     * Sorts the tasks of the visible render chunks first, and then by the distance to the camera
+     */
     public int compareTo(ChunkCompileTaskGeneratorSchematic other)
     {
+        if (this.visible != other.visible)
+        {
+            return this.visible ? -1 : 1;
+        }
+
         return Doubles.compare(this.distanceSq, other.distanceSq);
     }
 
+    /**
+     * Updates the sorting priority of this task.
+     * This must not be called while this task is in a sorted queue.
+     */
+    public void setPriority(double distanceSq, boolean visible)
+    {
+        this.distanceSq = distanceSq;
+        this.visible = visible;
+    }
+
     public double getDistanceSq()
     {
         return this.distanceSq;
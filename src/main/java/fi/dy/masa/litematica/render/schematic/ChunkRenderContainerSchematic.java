@@ -3,20 +3,45 @@ package fi.dy.masa.litematica.render.schematic;
 import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.client.renderer.ChunkRenderContainer;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.chunk.RenderChunk;
+import net.minecraft.util.math.BlockPos;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 
 public abstract class ChunkRenderContainerSchematic extends ChunkRenderContainer
 {
     protected List<RenderChunkSchematicVbo> overlayRenderChunks = new ArrayList<>(128);
+    protected double viewX;
+    protected double viewY;
+    protected double viewZ;
 
     @Override
     public void initialize(double viewEntityXIn, double viewEntityYIn, double viewEntityZIn)
     {
         super.initialize(viewEntityXIn, viewEntityYIn, viewEntityZIn);
 
+        this.viewX = viewEntityXIn;
+        this.viewY = viewEntityYIn;
+        this.viewZ = viewEntityZIn;
         this.overlayRenderChunks.clear();
     }
 
+    /**
+     * Translates to the mesh origin of the render chunk, instead of the render chunk position
+     */
+    @Override
+    public void preRenderChunk(RenderChunk renderChunk)
+    {
+        this.preRenderOrigin(((RenderChunkSchematicVbo) renderChunk).getMeshOrigin());
+    }
+
+    protected void preRenderOrigin(BlockPos origin)
+    {
+        GlStateManager.translate((float) (origin.getX() - this.viewX),
+                                 (float) (origin.getY() - this.viewY),
+                                 (float) (origin.getZ() - this.viewZ));
+    }
+
     public void addOverlayChunk(RenderChunkSchematicVbo renderChunk)
     {
         this.overlayRenderChunks.add(renderChunk);
@@ -1,11 +1,15 @@
 package fi.dy.masa.litematica.render.schematic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Queues;
 import com.google.common.primitives.Doubles;
@@ -19,82 +23,188 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.OpenGlHelper;
-import net.minecraft.client.renderer.VertexBufferUploader;
 import net.minecraft.client.renderer.WorldVertexBufferUploader;
 import net.minecraft.client.renderer.chunk.CompiledChunk;
 import net.minecraft.client.renderer.chunk.RenderChunk;
-import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.client.renderer.culling.ICamera;
 import net.minecraft.util.BlockRenderLayer;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 
 public class ChunkRenderDispatcherLitematica
 {
     private static final Logger LOGGER = Litematica.logger;
     private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Chunk Batcher %d").setDaemon(true).build();
+    /** A new worker is started when there are more than this many queued tasks per existing worker */
+    private static final int QUEUED_TASKS_PER_WORKER = 4;
+    /** A worker exits if it hasn't gotten any tasks in this time, unless the pool is already at its minimum size */
+    private static final long WORKER_IDLE_TIMEOUT_MS = 10000L;
+    private static final int LATENCY_SAMPLE_COUNT = 256;
 
     private final List<Thread> listWorkerThreads = Lists.<Thread>newArrayList();
     private final List<ChunkRenderWorkerLitematica> listThreadedWorkers = new ArrayList<>();
     private final PriorityBlockingQueue<ChunkCompileTaskGeneratorSchematic> queueChunkUpdates = Queues.newPriorityBlockingQueue();
     private final BlockingQueue<BufferBuilderCache> queueFreeRenderBuilders;
     private final WorldVertexBufferUploader displayListUploader = new WorldVertexBufferUploader();
-    private final VertexBufferUploader vertexBufferUploader = new VertexBufferUploader();
     private final Queue<ChunkRenderDispatcherLitematica.PendingUpload> queueChunkUploads = Queues.newPriorityQueue();
     private final ChunkRenderWorkerLitematica renderWorker;
+    private final AtomicInteger allocatedRenderBuilders = new AtomicInteger();
+    private final long[] queueLatencySamples = new long[LATENCY_SAMPLE_COUNT];
     private final int countRenderBuilders;
+    private final int minWorkerThreads;
+    private final int maxWorkerThreads;
+    private int queueLatencySampleIndex;
+    private int queueLatencySampleCount;
+    private volatile boolean stopped;
 
     public ChunkRenderDispatcherLitematica()
     {
         int threadLimitMemory = Math.max(1, (int)((double)Runtime.getRuntime().maxMemory() * 0.15D) / 10485760);
         int threadLimitCPU = Math.max(1, MathHelper.clamp(Runtime.getRuntime().availableProcessors(), 1, threadLimitMemory / 5));
         this.countRenderBuilders = MathHelper.clamp(threadLimitCPU * 8, 1, threadLimitMemory);
+        this.maxWorkerThreads = threadLimitCPU > 1 ? threadLimitCPU : 0;
+        this.minWorkerThreads = Math.min(1, this.maxWorkerThreads);
 
-        if (threadLimitCPU > 1)
+        if (this.maxWorkerThreads > 0)
         {
-            Litematica.logger.info("Creating {} render threads", threadLimitCPU);
+            Litematica.logger.info("Using up to {} render threads", this.maxWorkerThreads);
 
-            for (int i = 0; i < threadLimitCPU; ++i)
+            synchronized (this.listThreadedWorkers)
             {
-                ChunkRenderWorkerLitematica worker = new ChunkRenderWorkerLitematica(this);
-                Thread thread = THREAD_FACTORY.newThread(worker);
-                thread.start();
-                this.listThreadedWorkers.add(worker);
-                this.listWorkerThreads.add(thread);
+                for (int i = 0; i < this.minWorkerThreads; ++i)
+                {
+                    this.addWorkerThread();
+                }
             }
         }
 
-        Litematica.logger.info("Using {} total BufferBuilder caches", this.countRenderBuilders + 1);
+        // The BufferBuilder caches are allocated on demand, when there are no free caches available
+        Litematica.logger.info("Using up to {} total BufferBuilder caches", this.countRenderBuilders + 1);
 
         this.queueFreeRenderBuilders = Queues.newArrayBlockingQueue(this.countRenderBuilders);
+        this.renderWorker = new ChunkRenderWorkerLitematica(this, new BufferBuilderCache());
+    }
 
-        for (int i = 0; i < this.countRenderBuilders; ++i)
+    public String getDebugInfo()
+    {
+        if (this.maxWorkerThreads == 0)
         {
-            this.queueFreeRenderBuilders.add(new BufferBuilderCache());
+            return String.format("pC: %03d, single-threaded, %s", this.queueChunkUpdates.size(), this.getQueueLatencyInfo());
         }
 
-        this.renderWorker = new ChunkRenderWorkerLitematica(this, new BufferBuilderCache());
+        int workers;
+
+        synchronized (this.listThreadedWorkers)
+        {
+            workers = this.listThreadedWorkers.size();
+        }
+
+        return String.format("pC: %03d, pU: %1d, aB: %1d/%d, W: %d/%d, %s",
+                             this.queueChunkUpdates.size(), this.queueChunkUploads.size(), this.queueFreeRenderBuilders.size(),
+                             this.allocatedRenderBuilders.get(), workers, this.maxWorkerThreads, this.getQueueLatencyInfo());
     }
 
-    public String getDebugInfo()
+    private String getQueueLatencyInfo()
+    {
+        long[] samples;
+
+        synchronized (this.queueLatencySamples)
+        {
+            samples = Arrays.copyOf(this.queueLatencySamples, this.queueLatencySampleCount);
+        }
+
+        if (samples.length == 0)
+        {
+            return "qL: -";
+        }
+
+        Arrays.sort(samples);
+
+        return String.format("qL p50/p90/p99: %d/%d/%d ms", getPercentileMillis(samples, 0.5),
+                             getPercentileMillis(samples, 0.9), getPercentileMillis(samples, 0.99));
+    }
+
+    private static long getPercentileMillis(long[] sortedSamples, double percentile)
+    {
+        int index = Math.min(sortedSamples.length - 1, (int) (percentile * sortedSamples.length));
+        return sortedSamples[index] / 1000000L;
+    }
+
+    /**
+     * Records how long the given task waited in the queue before a worker picked it up
+     */
+    private void addQueueLatencySample(ChunkCompileTaskGeneratorSchematic generator)
+    {
+        final long latency = System.nanoTime() - generator.getCreationTime();
+
+        synchronized (this.queueLatencySamples)
+        {
+            this.queueLatencySamples[this.queueLatencySampleIndex] = latency;
+            this.queueLatencySampleIndex = (this.queueLatencySampleIndex + 1) % LATENCY_SAMPLE_COUNT;
+            this.queueLatencySampleCount = Math.min(this.queueLatencySampleCount + 1, LATENCY_SAMPLE_COUNT);
+        }
+    }
+
+    /**
+     * Must be called while synchronized on listThreadedWorkers
+     */
+    private void addWorkerThread()
     {
-        return this.listWorkerThreads.isEmpty() ? String.format("pC: %03d, single-threaded", this.queueChunkUpdates.size()) : String.format("pC: %03d, pU: %1d, aB: %1d", this.queueChunkUpdates.size(), this.queueChunkUploads.size(), this.queueFreeRenderBuilders.size());
+        ChunkRenderWorkerLitematica worker = new ChunkRenderWorkerLitematica(this);
+        Thread thread = THREAD_FACTORY.newThread(worker);
+        this.listThreadedWorkers.add(worker);
+        this.listWorkerThreads.add(thread);
+        thread.start();
     }
 
+    /**
+     * Starts a new worker thread, if there are a lot of queued tasks
+     * compared to the current number of workers, and the pool is not at its maximum size yet.
+     */
+    private void growWorkerPoolIfNeeded()
+    {
+        if (this.maxWorkerThreads == 0 || this.stopped)
+        {
+            return;
+        }
+
+        synchronized (this.listThreadedWorkers)
+        {
+            final int workers = this.listThreadedWorkers.size();
+
+            if (workers < this.maxWorkerThreads &&
+                this.queueChunkUpdates.size() > workers * QUEUED_TASKS_PER_WORKER)
+            {
+                this.addWorkerThread();
+            }
+        }
+    }
+
+    /**
+     * Runs the pending uploads until the given time, or until the upload byte budget has been used.
+     * At least one upload is always run, if there are any pending.
+     */
     public boolean runChunkUploads(long finishTimeNano)
     {
+        final long byteBudget = (long) Configs.Generic.RENDER_UPLOAD_BUDGET.getIntegerValue() * 1024L;
+        long uploadedBytes = 0;
         boolean ranTasks = false;
 
         while (true)
         {
             boolean processedTask = false;
 
-            if (this.listWorkerThreads.isEmpty())
+            if (this.maxWorkerThreads == 0)
             {
                 ChunkCompileTaskGeneratorSchematic generator = this.queueChunkUpdates.poll();
 
                 if (generator != null)
                 {
+                    this.addQueueLatencySample(generator);
+
                     try
                     {
                         this.renderWorker.processTask(generator);
@@ -111,13 +221,16 @@ public class ChunkRenderDispatcherLitematica
             {
                 if (!this.queueChunkUploads.isEmpty())
                 {
-                    (this.queueChunkUploads.poll()).uploadTask.run();
+                    PendingUpload upload = this.queueChunkUploads.poll();
+                    upload.uploadTask.run();
+                    uploadedBytes += upload.sizeBytes;
                     processedTask = true;
                     ranTasks = true;
                 }
             }
 
-            if (finishTimeNano == 0L || processedTask == false || finishTimeNano < System.nanoTime())
+            if (finishTimeNano == 0L || processedTask == false || finishTimeNano < System.nanoTime() ||
+                (finishTimeNano != Long.MAX_VALUE && uploadedBytes >= byteBudget))
             {
                 break;
             }
@@ -150,6 +263,10 @@ public class ChunkRenderDispatcherLitematica
             {
                 generator.finish();
             }
+            else
+            {
+                this.growWorkerPoolIfNeeded();
+            }
 
             flag1 = flag;
         }
@@ -194,13 +311,13 @@ public class ChunkRenderDispatcherLitematica
         this.clearChunkUpdates();
         List<BufferBuilderCache> list = new ArrayList<>();
 
-        while (list.size() != this.countRenderBuilders)
+        while (list.size() != this.allocatedRenderBuilders.get())
         {
             this.runChunkUploads(Long.MAX_VALUE);
 
             try
             {
-                list.add(this.allocateRenderBuilder());
+                list.add(this.queueFreeRenderBuilders.take());
             }
             catch (InterruptedException e)
             {
@@ -212,17 +329,73 @@ public class ChunkRenderDispatcherLitematica
 
     public void freeRenderBuilder(BufferBuilderCache builderCache)
     {
+        // Release the grown buffers once the rebuilds have settled down
+        if (this.queueChunkUpdates.isEmpty())
+        {
+            builderCache.trim();
+        }
+
         this.queueFreeRenderBuilders.add(builderCache);
     }
 
     public BufferBuilderCache allocateRenderBuilder() throws InterruptedException
     {
+        BufferBuilderCache cache = this.queueFreeRenderBuilders.poll();
+
+        if (cache != null)
+        {
+            return cache;
+        }
+
+        int count = this.allocatedRenderBuilders.get();
+
+        while (count < this.countRenderBuilders)
+        {
+            if (this.allocatedRenderBuilders.compareAndSet(count, count + 1))
+            {
+                return new BufferBuilderCache();
+            }
+
+            count = this.allocatedRenderBuilders.get();
+        }
+
         return this.queueFreeRenderBuilders.take();
     }
 
-    public ChunkCompileTaskGeneratorSchematic getNextChunkUpdate() throws InterruptedException
+    /**
+     * Waits for the next task for the given worker.
+     * @return the next task, or null if the worker should exit, because it has been idle
+     * and the pool has more than the minimum number of workers
+     */
+    @Nullable
+    public ChunkCompileTaskGeneratorSchematic getNextChunkUpdate(ChunkRenderWorkerLitematica worker) throws InterruptedException
     {
-        return this.queueChunkUpdates.take();
+        while (true)
+        {
+            ChunkCompileTaskGeneratorSchematic generator = this.queueChunkUpdates.poll(WORKER_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+            if (generator != null)
+            {
+                this.addQueueLatencySample(generator);
+                return generator;
+            }
+
+            synchronized (this.listThreadedWorkers)
+            {
+                if (this.listThreadedWorkers.size() > this.minWorkerThreads)
+                {
+                    int index = this.listThreadedWorkers.indexOf(worker);
+
+                    if (index >= 0)
+                    {
+                        this.listThreadedWorkers.remove(index);
+                        this.listWorkerThreads.remove(index);
+                    }
+
+                    return null;
+                }
+            }
+        }
     }
 
     public boolean updateTransparencyLater(RenderChunkSchematicVbo renderChunk)
@@ -250,6 +423,11 @@ public class ChunkRenderDispatcherLitematica
                 }
             });
             flag = this.queueChunkUpdates.offer(generator);
+
+            if (flag)
+            {
+                this.growWorkerPoolIfNeeded();
+            }
         }
         finally
         {
@@ -267,7 +445,7 @@ public class ChunkRenderDispatcherLitematica
             //if (GuiBase.isCtrlDown()) System.out.printf("uploadChunkBlocks()\n");
             if (OpenGlHelper.useVbo())
             {
-                this.uploadVertexBuffer(buffer, renderChunk.getVertexBufferByLayer(layer.ordinal()));
+                renderChunk.uploadBlocksToArena(layer, buffer);
             }
             else
             {
@@ -291,7 +469,7 @@ public class ChunkRenderDispatcherLitematica
 
             synchronized (this.queueChunkUploads)
             {
-                this.queueChunkUploads.add(new ChunkRenderDispatcherLitematica.PendingUpload(futureTask, distanceSq));
+                this.queueChunkUploads.add(new ChunkRenderDispatcherLitematica.PendingUpload(futureTask, distanceSq, getUploadSize(buffer)));
                 return futureTask;
             }
         }
@@ -305,7 +483,7 @@ public class ChunkRenderDispatcherLitematica
             //if (GuiBase.isCtrlDown()) System.out.printf("uploadChunkOverlay()\n");
             if (OpenGlHelper.useVbo())
             {
-                this.uploadVertexBuffer(buffer, renderChunk.getOverlayVertexBuffer(type));
+                renderChunk.uploadOverlayToArena(type, buffer);
             }
             else
             {
@@ -329,12 +507,41 @@ public class ChunkRenderDispatcherLitematica
 
             synchronized (this.queueChunkUploads)
             {
-                this.queueChunkUploads.add(new ChunkRenderDispatcherLitematica.PendingUpload(futureTask, distanceSq));
+                this.queueChunkUploads.add(new ChunkRenderDispatcherLitematica.PendingUpload(futureTask, distanceSq, getUploadSize(buffer)));
+                return futureTask;
+            }
+        }
+    }
+
+    /**
+     * Releases the shared vertex arena space used by the layers and overlay types
+     * that are empty in the newly compiled data of the given render chunk.
+     */
+    public ListenableFuture<Object> releaseEmptyArenaAllocations(final RenderChunkSchematicVbo renderChunk,
+            final CompiledChunkSchematic compiledChunk, final double distanceSq)
+    {
+        if (Minecraft.getMinecraft().isCallingFromMinecraftThread())
+        {
+            renderChunk.releaseEmptyArenaAllocations(compiledChunk);
+            return Futures.<Object>immediateFuture(null);
+        }
+        else
+        {
+            ListenableFutureTask<Object> futureTask = ListenableFutureTask.<Object>create(() -> renderChunk.releaseEmptyArenaAllocations(compiledChunk), null);
+
+            synchronized (this.queueChunkUploads)
+            {
+                this.queueChunkUploads.add(new ChunkRenderDispatcherLitematica.PendingUpload(futureTask, distanceSq, 0));
                 return futureTask;
             }
         }
     }
 
+    private static int getUploadSize(BufferBuilder buffer)
+    {
+        return buffer.getVertexCount() * buffer.getVertexFormat().getSize();
+    }
+
     private void uploadDisplayList(BufferBuilder bufferBuilderIn, int list, RenderChunk renderChunk)
     {
         GlStateManager.glNewList(list, GL11.GL_COMPILE);
@@ -347,10 +554,52 @@ public class ChunkRenderDispatcherLitematica
         GlStateManager.glEndList();
     }
 
-    private void uploadVertexBuffer(BufferBuilder bufferBuilder, VertexBuffer vertexBufferIn)
+    /**
+     * Re-evaluates the priorities of all the queued compile tasks for the current camera position
+     * and view frustum, and cancels the tasks of the render chunks that have left the render range.
+     * Cancelling a rebuild task marks the render chunk as needing an update again,
+     * so it will get rebuilt if it comes back into the render range.
+     * @return the number of cancelled tasks
+     */
+    public int updateChunkUpdatePriorities(double cameraX, double cameraY, double cameraZ, ICamera camera, int renderDistanceChunks)
     {
-        this.vertexBufferUploader.setVertexBuffer(vertexBufferIn);
-        this.vertexBufferUploader.draw(bufferBuilder);
+        List<ChunkCompileTaskGeneratorSchematic> tasks = new ArrayList<>();
+        List<ChunkCompileTaskGeneratorSchematic> remainingTasks = new ArrayList<>();
+        final int centerChunkX = MathHelper.floor(cameraX) >> 4;
+        final int centerChunkZ = MathHelper.floor(cameraZ) >> 4;
+        int cancelled = 0;
+
+        // The priority queue doesn't re-sort entries whose priority changes, so they are re-added
+        this.queueChunkUpdates.drainTo(tasks);
+
+        for (ChunkCompileTaskGeneratorSchematic generator : tasks)
+        {
+            if (generator.isFinished())
+            {
+                continue;
+            }
+
+            RenderChunkSchematicVbo renderChunk = generator.getRenderChunk();
+            BlockPos pos = renderChunk.getPosition();
+
+            if (Math.abs((pos.getX() >> 4) - centerChunkX) > renderDistanceChunks ||
+                Math.abs((pos.getZ() >> 4) - centerChunkZ) > renderDistanceChunks)
+            {
+                generator.finish();
+                ++cancelled;
+                continue;
+            }
+
+            double dx = pos.getX() + 8.0 - cameraX;
+            double dy = pos.getY() + 8.0 - cameraY;
+            double dz = pos.getZ() + 8.0 - cameraZ;
+            generator.setPriority(dx * dx + dy * dy + dz * dz, camera.isBoundingBoxInFrustum(renderChunk.boundingBox));
+            remainingTasks.add(generator);
+        }
+
+        this.queueChunkUpdates.addAll(remainingTasks);
+
+        return cancelled;
     }
 
     public void clearChunkUpdates()
@@ -373,14 +622,24 @@ public class ChunkRenderDispatcherLitematica
 
     public void stopWorkerThreads()
     {
+        this.stopped = true;
         this.clearChunkUpdates();
 
-        for (ChunkRenderWorkerLitematica worker : this.listThreadedWorkers)
+        List<ChunkRenderWorkerLitematica> workers;
+        List<Thread> threads;
+
+        synchronized (this.listThreadedWorkers)
+        {
+            workers = new ArrayList<>(this.listThreadedWorkers);
+            threads = new ArrayList<>(this.listWorkerThreads);
+        }
+
+        for (ChunkRenderWorkerLitematica worker : workers)
         {
             worker.notifyToStop();
         }
 
-        for (Thread thread : this.listWorkerThreads)
+        for (Thread thread : threads)
         {
             try
             {
@@ -398,18 +657,20 @@ public class ChunkRenderDispatcherLitematica
 
     public boolean hasNoFreeRenderBuilders()
     {
-        return this.queueFreeRenderBuilders.isEmpty();
+        return this.queueFreeRenderBuilders.isEmpty() && this.allocatedRenderBuilders.get() >= this.countRenderBuilders;
     }
 
     public static class PendingUpload implements Comparable<ChunkRenderDispatcherLitematica.PendingUpload>
     {
         private final ListenableFutureTask<Object> uploadTask;
         private final double distanceSq;
+        private final int sizeBytes;
 
-        public PendingUpload(ListenableFutureTask<Object> uploadTaskIn, double distanceSqIn)
+        public PendingUpload(ListenableFutureTask<Object> uploadTaskIn, double distanceSqIn, int sizeBytes)
         {
             this.uploadTask = uploadTaskIn;
             this.distanceSq = distanceSqIn;
+            this.sizeBytes = sizeBytes;
         }
 
         public int compareTo(ChunkRenderDispatcherLitematica.PendingUpload other)
@@ -11,6 +11,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.logging.log4j.Logger;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.OpenGlHelper;
 import net.minecraft.crash.CrashReport;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.BlockRenderLayer;
@@ -44,7 +45,16 @@ public class ChunkRenderWorkerLitematica implements Runnable
         {
             try
             {
-                this.processTask(this.chunkRenderDispatcher.getNextChunkUpdate());
+                ChunkCompileTaskGeneratorSchematic generator = this.chunkRenderDispatcher.getNextChunkUpdate(this);
+
+                // The worker pool is shrinking, and this worker was idle
+                if (generator == null)
+                {
+                    LOGGER.debug("Stopping idle chunk worker");
+                    return;
+                }
+
+                this.processTask(generator);
             }
             catch (InterruptedException e)
             {
@@ -156,6 +166,11 @@ public class ChunkRenderWorkerLitematica implements Runnable
                         futuresList.add(this.chunkRenderDispatcher.uploadChunkOverlay(type, buffer, renderChunk, compiledChunk, generator.getDistanceSq()));
                     }
                 }
+
+                if (OpenGlHelper.useVbo())
+                {
+                    futuresList.add(this.chunkRenderDispatcher.releaseEmptyArenaAllocations(renderChunk, compiledChunk, generator.getDistanceSq()));
+                }
             }
             else if (generatorType == ChunkCompileTaskGeneratorSchematic.Type.RESORT_TRANSPARENCY)
             {
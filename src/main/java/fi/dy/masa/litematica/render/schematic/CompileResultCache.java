@@ -0,0 +1,186 @@
+package fi.dy.masa.litematica.render.schematic;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.chunk.SetVisibility;
+import net.minecraft.util.BlockRenderLayer;
+import fi.dy.masa.litematica.config.Configs;
+import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
+
+/**
+ * A size limited, least-recently-used cache of the compiled vertex data of the schematic render chunks.
+ * The entries are keyed by the render chunk position and a hash of everything that
+ * the compiled geometry depends on, ie. the block states in and around the sub-chunk
+ * in both the schematic world and the client world, the overlay settings and the render layer range.
+ * This allows re-compiling a render chunk whose contents didn't actually change
+ * (for example after toggling a setting or the layer range back and forth, or after
+ * the render chunk was moved out of and back into the view) by just copying the vertex data.
+ */
+public class CompileResultCache
+{
+    private static final CompileResultCache INSTANCE = new CompileResultCache();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public static CompileResultCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled()
+    {
+        return Configs.Generic.RENDER_COMPILE_CACHE_SIZE.getIntegerValue() > 0;
+    }
+
+    @Nullable
+    public synchronized Entry get(Key key)
+    {
+        return this.entries.get(key);
+    }
+
+    public synchronized void put(Key key, Entry entry)
+    {
+        final long maxBytes = (long) Configs.Generic.RENDER_COMPILE_CACHE_SIZE.getIntegerValue() * 1024L * 1024L;
+
+        if (entry.sizeBytes > maxBytes)
+        {
+            return;
+        }
+
+        Entry old = this.entries.put(key, entry);
+
+        if (old != null)
+        {
+            this.totalBytes -= old.sizeBytes;
+        }
+
+        this.totalBytes += entry.sizeBytes;
+
+        // The iteration order is the access order, so the least recently used entries are removed first
+        Iterator<Entry> iter = this.entries.values().iterator();
+
+        while (this.totalBytes > maxBytes && iter.hasNext())
+        {
+            this.totalBytes -= iter.next().sizeBytes;
+            iter.remove();
+        }
+    }
+
+    public synchronized void clear()
+    {
+        this.entries.clear();
+        this.totalBytes = 0;
+    }
+
+    public static class Key
+    {
+        private final long position;
+        private final long contentHash;
+
+        public Key(long position, long contentHash)
+        {
+            this.position = position;
+            this.contentHash = contentHash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) { return true; }
+            if (o == null || this.getClass() != o.getClass()) { return false; }
+
+            Key other = (Key) o;
+            return this.position == other.position && this.contentHash == other.contentHash;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * Long.hashCode(this.position) + Long.hashCode(this.contentHash);
+        }
+    }
+
+    public static class Entry
+    {
+        private final int[][] blockData = new int[BlockRenderLayer.values().length][];
+        private final boolean[] usedLayers = new boolean[BlockRenderLayer.values().length];
+        private final int[][] overlayData = new int[OverlayRenderType.values().length][];
+        private SetVisibility visibility;
+        // A rough per-entry overhead, so that also the entries without any vertex data count towards the limit
+        private long sizeBytes = 128;
+
+        /**
+         * Copies the vertex data of all the started block layers and overlay types.
+         * This must be called after the buffers have been finished, but before they are uploaded.
+         */
+        public static Entry capture(CompiledChunkSchematic data, BufferBuilderCache buffers,
+                                    boolean[] usedLayers, Set<OverlayRenderType> overlayTypes)
+        {
+            Entry entry = new Entry();
+            entry.visibility = data.getVisibility();
+
+            for (BlockRenderLayer layer : BlockRenderLayer.values())
+            {
+                if (data.isLayerStarted(layer))
+                {
+                    int[] vertexData = getVertexData(buffers.getWorldRendererByLayer(layer));
+                    entry.blockData[layer.ordinal()] = vertexData;
+                    entry.usedLayers[layer.ordinal()] = usedLayers[layer.ordinal()];
+                    entry.sizeBytes += vertexData.length * 4L;
+                }
+            }
+
+            for (OverlayRenderType type : overlayTypes)
+            {
+                if (data.isOverlayTypeStarted(type))
+                {
+                    int[] vertexData = getVertexData(buffers.getOverlayBuffer(type));
+                    entry.overlayData[type.ordinal()] = vertexData;
+                    entry.sizeBytes += vertexData.length * 4L;
+                }
+            }
+
+            return entry;
+        }
+
+        /**
+         * @return the vertex data of the given layer, or null if the layer wasn't started
+         */
+        @Nullable
+        public int[] getBlockData(BlockRenderLayer layer)
+        {
+            return this.blockData[layer.ordinal()];
+        }
+
+        @Nullable
+        public SetVisibility getVisibility()
+        {
+            return this.visibility;
+        }
+
+        public boolean isLayerUsed(BlockRenderLayer layer)
+        {
+            return this.usedLayers[layer.ordinal()];
+        }
+
+        /**
+         * @return the vertex data of the given overlay type, or null if the overlay type wasn't started
+         */
+        @Nullable
+        public int[] getOverlayData(OverlayRenderType type)
+        {
+            return this.overlayData[type.ordinal()];
+        }
+
+        private static int[] getVertexData(BufferBuilder buffer)
+        {
+            int[] vertexData = new int[buffer.getVertexCount() * buffer.getVertexFormat().getIntegerSize()];
+            buffer.getByteBuffer().asIntBuffer().get(vertexData);
+            return vertexData;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package fi.dy.masa.litematica.render.schematic;
 
+import javax.annotation.Nullable;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.chunk.CompiledChunk;
+import net.minecraft.client.renderer.chunk.SetVisibility;
 import net.minecraft.util.BlockRenderLayer;
+import net.minecraft.util.EnumFacing;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 
 public class CompiledChunkSchematic extends CompiledChunk
@@ -11,6 +14,7 @@ public class CompiledChunkSchematic extends CompiledChunk
     private final boolean[] overlayLayersStarted = new boolean[OverlayRenderType.values().length];
     private final BufferBuilder.State[] blockBufferStates = new BufferBuilder.State[BlockRenderLayer.values().length];
     private final BufferBuilder.State[] overlayBufferStates = new BufferBuilder.State[OverlayRenderType.values().length];
+    private SetVisibility visibility;
     private boolean overlayEmpty = true;
 
     public boolean isOverlayEmpty()
@@ -39,6 +43,28 @@ public class CompiledChunkSchematic extends CompiledChunk
         return this.overlayLayersStarted[type.ordinal()];
     }
 
+    @Nullable
+    public SetVisibility getVisibility()
+    {
+        return this.visibility;
+    }
+
+    @Override
+    public void setVisibility(SetVisibility visibility)
+    {
+        this.visibility = visibility;
+    }
+
+    /**
+     * If the visibility hasn't been computed for this chunk, then all the sides are considered to be visible
+     * from each other, so that chunks that haven't been (or won't be) compiled don't block the occlusion walk.
+     */
+    @Override
+    public boolean isVisible(EnumFacing facing, EnumFacing facing2)
+    {
+        return this.visibility == null || this.visibility.isVisible(facing, facing2);
+    }
+
     public BufferBuilder.State getBlockBufferState(BlockRenderLayer layer)
     {
         return this.blockBufferStates[layer.ordinal()];
@@ -0,0 +1,163 @@
+package fi.dy.masa.litematica.render.schematic;
+
+import java.util.Arrays;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Builds the simplified level-of-detail mesh of one sub-chunk.
+ * The sub-chunk is divided into cells of 2x2x2 blocks, and each cell that has any
+ * rendered blocks in it is drawn as one plain colored cube, using the map color
+ * of the top-most block in the cell. Faces between two filled cells are culled.
+ * One instance is re-used for all the compile tasks using the same {@link BufferBuilderCache},
+ * so it must only be used by one thread at a time.
+ */
+public class LodMesher
+{
+    public static final int CELL_SIZE = 2;
+    private static final int CELLS = 16 / CELL_SIZE;
+    private static final float[] FACE_SHADE = new float[] { 0.5f, 1.0f, 0.8f, 0.8f, 0.6f, 0.6f };
+
+    /** The color of each cell in 0xAARRGGBB format, with a zero alpha for empty cells */
+    private final int[] colors = new int[CELLS * CELLS * CELLS];
+    private final int[] heights = new int[CELLS * CELLS * CELLS];
+    private boolean hasCells;
+
+    public boolean hasCells()
+    {
+        return this.hasCells;
+    }
+
+    public void clear()
+    {
+        if (this.hasCells)
+        {
+            Arrays.fill(this.colors, 0);
+            this.hasCells = false;
+        }
+    }
+
+    /**
+     * Adds a block with the given RGB color to the cell containing the given position.
+     * The color of the top-most block in each cell is used for the cell.
+     */
+    public void addBlock(BlockPos pos, int colorRgb)
+    {
+        final int y = pos.getY() & 15;
+        final int index = getIndex((pos.getX() & 15) / CELL_SIZE, y / CELL_SIZE, (pos.getZ() & 15) / CELL_SIZE);
+
+        if (this.colors[index] == 0 || y >= this.heights[index])
+        {
+            this.colors[index] = 0xFF000000 | colorRgb;
+            this.heights[index] = y;
+            this.hasCells = true;
+        }
+    }
+
+    /**
+     * Emits the cubes of all the filled cells into the given buffer, which must have been started
+     * in GL_QUADS mode using the BLOCK vertex format, and clears the cells.
+     * All the vertices use the same texture coordinate, which should point to a plain white texel.
+     * @param origin the minimum corner of the sub-chunk
+     */
+    public void emit(BlockPos origin, float u, float v, BufferBuilder buffer)
+    {
+        for (int cy = 0; cy < CELLS; ++cy)
+        {
+            for (int cz = 0; cz < CELLS; ++cz)
+            {
+                for (int cx = 0; cx < CELLS; ++cx)
+                {
+                    final int color = this.colors[getIndex(cx, cy, cz)];
+
+                    if (color == 0)
+                    {
+                        continue;
+                    }
+
+                    for (EnumFacing side : EnumFacing.values())
+                    {
+                        if (this.isFilled(cx + side.getXOffset(), cy + side.getYOffset(), cz + side.getZOffset()) == false)
+                        {
+                            this.emitFace(origin.getX() + cx * CELL_SIZE, origin.getY() + cy * CELL_SIZE, origin.getZ() + cz * CELL_SIZE,
+                                          side, color, u, v, buffer);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.clear();
+    }
+
+    private boolean isFilled(int cx, int cy, int cz)
+    {
+        // The faces on the sub-chunk edges are always rendered
+        if (cx < 0 || cy < 0 || cz < 0 || cx >= CELLS || cy >= CELLS || cz >= CELLS)
+        {
+            return false;
+        }
+
+        return this.colors[getIndex(cx, cy, cz)] != 0;
+    }
+
+    private void emitFace(int x, int y, int z, EnumFacing side, int color, float u, float v, BufferBuilder buffer)
+    {
+        final float shade = FACE_SHADE[side.getIndex()];
+        final int r = (int) (((color >>> 16) & 0xFF) * shade);
+        final int g = (int) (((color >>>  8) & 0xFF) * shade);
+        final int b = (int) ( (color         & 0xFF) * shade);
+        final int s = CELL_SIZE;
+
+        switch (side)
+        {
+            case DOWN:
+                this.vertex(x    , y    , z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y    , z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y    , z + s, r, g, b, u, v, buffer);
+                this.vertex(x    , y    , z + s, r, g, b, u, v, buffer);
+                break;
+            case UP:
+                this.vertex(x    , y + s, z    , r, g, b, u, v, buffer);
+                this.vertex(x    , y + s, z + s, r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z + s, r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z    , r, g, b, u, v, buffer);
+                break;
+            case NORTH:
+                this.vertex(x    , y    , z    , r, g, b, u, v, buffer);
+                this.vertex(x    , y + s, z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y    , z    , r, g, b, u, v, buffer);
+                break;
+            case SOUTH:
+                this.vertex(x    , y    , z + s, r, g, b, u, v, buffer);
+                this.vertex(x + s, y    , z + s, r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z + s, r, g, b, u, v, buffer);
+                this.vertex(x    , y + s, z + s, r, g, b, u, v, buffer);
+                break;
+            case WEST:
+                this.vertex(x    , y    , z    , r, g, b, u, v, buffer);
+                this.vertex(x    , y    , z + s, r, g, b, u, v, buffer);
+                this.vertex(x    , y + s, z + s, r, g, b, u, v, buffer);
+                this.vertex(x    , y + s, z    , r, g, b, u, v, buffer);
+                break;
+            case EAST:
+                this.vertex(x + s, y    , z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z    , r, g, b, u, v, buffer);
+                this.vertex(x + s, y + s, z + s, r, g, b, u, v, buffer);
+                this.vertex(x + s, y    , z + s, r, g, b, u, v, buffer);
+                break;
+        }
+    }
+
+    private void vertex(int x, int y, int z, int r, int g, int b, float u, float v, BufferBuilder buffer)
+    {
+        buffer.pos(x, y, z).color(r, g, b, 255).tex(u, v).lightmap(240, 240).endVertex();
+    }
+
+    private static int getIndex(int cx, int cy, int cz)
+    {
+        return (cy * CELLS + cz) * CELLS + cx;
+    }
+}
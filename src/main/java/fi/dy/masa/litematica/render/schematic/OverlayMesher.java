@@ -0,0 +1,326 @@
+package fi.dy.masa.litematica.render.schematic;
+
+import java.util.Arrays;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3i;
+import fi.dy.masa.malilib.util.data.Color4f;
+import fi.dy.masa.litematica.util.OverlayType;
+import fi.dy.masa.litematica.util.PositionUtils;
+
+/**
+ * Collects the simple full block overlay sides and outline edges of one sub-chunk,
+ * and then emits them merged into as few primitives as possible.
+ * The coplanar side faces of the same overlay type are greedily merged into maximal rectangles,
+ * and the collinear edge segments of the same overlay type are merged into continuous lines.
+ * One instance is re-used for all the compile tasks using the same {@link BufferBuilderCache},
+ * so it must only be used by one thread at a time.
+ */
+public class OverlayMesher
+{
+    private static final int SIZE = 16;
+    private static final int EDGE_GRID = SIZE + 1;
+
+    /** The overlay type ordinal + 1 of each face, or 0 for no face, as [facing][slice][v * 16 + u] */
+    private final byte[][][] faces = new byte[6][SIZE][SIZE * SIZE];
+    private final boolean[][] usedSlices = new boolean[6][SIZE];
+    /** A bit mask of the overlay type ordinals of each unit edge segment, as [axis][(b * 17 + a) * 16 + position] */
+    private final byte[][] edges = new byte[3][EDGE_GRID * EDGE_GRID * SIZE];
+    /** The sides and the edges use separate colors, as the outline color of a type may differ from its side color */
+    private final Color4f[] sideColors = new Color4f[OverlayType.values().length];
+    private final Color4f[] edgeColors = new Color4f[OverlayType.values().length];
+    private boolean hasFaces;
+    private boolean hasEdges;
+
+    public boolean hasFaces()
+    {
+        return this.hasFaces;
+    }
+
+    public boolean hasEdges()
+    {
+        return this.hasEdges;
+    }
+
+    /**
+     * Clears any collected sides and edges, for example if the previous compile task was aborted
+     */
+    public void clear()
+    {
+        if (this.hasFaces)
+        {
+            for (int facing = 0; facing < 6; ++facing)
+            {
+                for (int slice = 0; slice < SIZE; ++slice)
+                {
+                    Arrays.fill(this.faces[facing][slice], (byte) 0);
+                    this.usedSlices[facing][slice] = false;
+                }
+            }
+
+            this.hasFaces = false;
+        }
+
+        if (this.hasEdges)
+        {
+            for (byte[] axisEdges : this.edges)
+            {
+                Arrays.fill(axisEdges, (byte) 0);
+            }
+
+            this.hasEdges = false;
+        }
+    }
+
+    /**
+     * Adds the given side of the full block at the given position
+     */
+    public void addSide(BlockPos pos, EnumFacing side, OverlayType type, Color4f color)
+    {
+        final int x = pos.getX() & 15;
+        final int y = pos.getY() & 15;
+        final int z = pos.getZ() & 15;
+        final int facing = side.getIndex();
+        final int slice;
+        final int cell;
+
+        switch (side.getAxis())
+        {
+            case X:  slice = x; cell = (y << 4) | z; break;
+            case Y:  slice = y; cell = (z << 4) | x; break;
+            default: slice = z; cell = (y << 4) | x; break;
+        }
+
+        this.faces[facing][slice][cell] = (byte) (type.ordinal() + 1);
+        this.usedSlices[facing][slice] = true;
+        this.sideColors[type.ordinal()] = color;
+        this.hasFaces = true;
+    }
+
+    /**
+     * Adds all the sides of the full block at the given position
+     */
+    public void addAllSides(BlockPos pos, OverlayType type, Color4f color)
+    {
+        for (EnumFacing side : EnumFacing.values())
+        {
+            this.addSide(pos, side, type, color);
+        }
+    }
+
+    /**
+     * Adds one edge of the full block at the given position.
+     * The corner offset is the offset of the edge line's start point from the block position,
+     * as returned by {@link PositionUtils#getEdgeNeighborOffsets(EnumFacing.Axis, int)}.
+     */
+    public void addEdge(BlockPos pos, EnumFacing.Axis axis, Vec3i cornerOffset, OverlayType type, Color4f color)
+    {
+        final int x = (pos.getX() & 15) + cornerOffset.getX();
+        final int y = (pos.getY() & 15) + cornerOffset.getY();
+        final int z = (pos.getZ() & 15) + cornerOffset.getZ();
+        final int index;
+
+        switch (axis)
+        {
+            case X:  index = getEdgeIndex(y, z, x); break;
+            case Y:  index = getEdgeIndex(x, z, y); break;
+            default: index = getEdgeIndex(x, y, z); break;
+        }
+
+        this.edges[axis.ordinal()][index] |= (byte) (1 << type.ordinal());
+        this.edgeColors[type.ordinal()] = color;
+        this.hasEdges = true;
+    }
+
+    /**
+     * Adds all the edges of the full block at the given position
+     */
+    public void addAllEdges(BlockPos pos, OverlayType type, Color4f color)
+    {
+        for (EnumFacing.Axis axis : EnumFacing.Axis.values())
+        {
+            for (int corner = 0; corner < 4; ++corner)
+            {
+                this.addEdge(pos, axis, PositionUtils.getEdgeNeighborOffsets(axis, corner)[corner], type, color);
+            }
+        }
+    }
+
+    /**
+     * Emits the merged side quads into the given buffer, which must have been started in GL_QUADS mode,
+     * and clears the collected sides.
+     * @param origin the minimum corner of the sub-chunk
+     */
+    public void emitFaces(BlockPos origin, BufferBuilder buffer)
+    {
+        for (EnumFacing side : EnumFacing.values())
+        {
+            final int facing = side.getIndex();
+            final int planeOffset = side.getAxisDirection() == EnumFacing.AxisDirection.POSITIVE ? 1 : 0;
+
+            for (int slice = 0; slice < SIZE; ++slice)
+            {
+                if (this.usedSlices[facing][slice])
+                {
+                    this.emitSlice(this.faces[facing][slice], side.getAxis(), slice + planeOffset, origin, buffer);
+                    Arrays.fill(this.faces[facing][slice], (byte) 0);
+                    this.usedSlices[facing][slice] = false;
+                }
+            }
+        }
+
+        this.hasFaces = false;
+    }
+
+    /**
+     * Emits the merged edge lines into the given buffer, which must have been started in GL_LINES mode,
+     * and clears the collected edges.
+     * @param origin the minimum corner of the sub-chunk
+     */
+    public void emitEdges(BlockPos origin, BufferBuilder buffer)
+    {
+        for (EnumFacing.Axis axis : EnumFacing.Axis.values())
+        {
+            byte[] axisEdges = this.edges[axis.ordinal()];
+
+            for (int b = 0; b < EDGE_GRID; ++b)
+            {
+                for (int a = 0; a < EDGE_GRID; ++a)
+                {
+                    final int base = getEdgeIndex(a, b, 0);
+
+                    for (OverlayType type : OverlayType.values())
+                    {
+                        final int bit = 1 << type.ordinal();
+                        int start = -1;
+
+                        // Merge the consecutive segments on this line into one line
+                        for (int i = 0; i <= SIZE; ++i)
+                        {
+                            boolean set = i < SIZE && (axisEdges[base + i] & bit) != 0;
+
+                            if (set && start < 0)
+                            {
+                                start = i;
+                            }
+                            else if (set == false && start >= 0)
+                            {
+                                this.emitLine(axis, a, b, start, i, this.edgeColors[type.ordinal()], origin, buffer);
+                                start = -1;
+                            }
+                        }
+                    }
+
+                    Arrays.fill(axisEdges, base, base + SIZE, (byte) 0);
+                }
+            }
+        }
+
+        this.hasEdges = false;
+    }
+
+    private void emitSlice(byte[] mask, EnumFacing.Axis axis, int plane, BlockPos origin, BufferBuilder buffer)
+    {
+        for (int v = 0; v < SIZE; ++v)
+        {
+            for (int u = 0; u < SIZE; )
+            {
+                final byte value = mask[(v << 4) | u];
+
+                if (value == 0)
+                {
+                    ++u;
+                    continue;
+                }
+
+                // Grow the rectangle first along u, and then along v for as long as the whole row matches
+                int width = 1;
+
+                while (u + width < SIZE && mask[(v << 4) | (u + width)] == value)
+                {
+                    ++width;
+                }
+
+                int height = 1;
+
+                while (v + height < SIZE && isRowFilled(mask, v + height, u, width, value))
+                {
+                    ++height;
+                }
+
+                for (int dv = 0; dv < height; ++dv)
+                {
+                    Arrays.fill(mask, ((v + dv) << 4) | u, ((v + dv) << 4) | (u + width), (byte) 0);
+                }
+
+                this.emitQuad(axis, plane, u, v, u + width, v + height, this.sideColors[value - 1], origin, buffer);
+                u += width;
+            }
+        }
+    }
+
+    private static boolean isRowFilled(byte[] mask, int v, int u, int width, byte value)
+    {
+        for (int i = u; i < u + width; ++i)
+        {
+            if (mask[(v << 4) | i] != value)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void emitQuad(EnumFacing.Axis axis, int plane, int u1, int v1, int u2, int v2, Color4f color, BlockPos origin, BufferBuilder buffer)
+    {
+        this.vertexInPlane(axis, plane, u1, v1, color, origin, buffer);
+        this.vertexInPlane(axis, plane, u2, v1, color, origin, buffer);
+        this.vertexInPlane(axis, plane, u2, v2, color, origin, buffer);
+        this.vertexInPlane(axis, plane, u1, v2, color, origin, buffer);
+    }
+
+    private void vertexInPlane(EnumFacing.Axis axis, int plane, int u, int v, Color4f color, BlockPos origin, BufferBuilder buffer)
+    {
+        final double x;
+        final double y;
+        final double z;
+
+        switch (axis)
+        {
+            case X:  x = plane; y = v; z = u; break;
+            case Y:  x = u; y = plane; z = v; break;
+            default: x = u; y = v; z = plane; break;
+        }
+
+        buffer.pos(origin.getX() + x, origin.getY() + y, origin.getZ() + z).color(color.r, color.g, color.b, color.a).endVertex();
+    }
+
+    private void emitLine(EnumFacing.Axis axis, int a, int b, int start, int end, Color4f color, BlockPos origin, BufferBuilder buffer)
+    {
+        final int x = origin.getX();
+        final int y = origin.getY();
+        final int z = origin.getZ();
+
+        switch (axis)
+        {
+            case X:
+                buffer.pos(x + start, y + a, z + b).color(color.r, color.g, color.b, color.a).endVertex();
+                buffer.pos(x + end  , y + a, z + b).color(color.r, color.g, color.b, color.a).endVertex();
+                break;
+            case Y:
+                buffer.pos(x + a, y + start, z + b).color(color.r, color.g, color.b, color.a).endVertex();
+                buffer.pos(x + a, y + end  , z + b).color(color.r, color.g, color.b, color.a).endVertex();
+                break;
+            default:
+                buffer.pos(x + a, y + b, z + start).color(color.r, color.g, color.b, color.a).endVertex();
+                buffer.pos(x + a, y + b, z + end  ).color(color.r, color.g, color.b, color.a).endVertex();
+        }
+    }
+
+    private static int getEdgeIndex(int a, int b, int position)
+    {
+        return (b * EDGE_GRID + a) * SIZE + position;
+    }
+}
@@ -7,9 +7,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
-import com.google.common.collect.Sets;
 import org.lwjgl.opengl.GL11;
 import net.minecraft.block.Block;
+import net.minecraft.block.material.MapColor;
 import net.minecraft.block.state.BlockFaceShape;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
@@ -19,10 +19,11 @@ import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.client.renderer.block.model.IBakedModel;
 import net.minecraft.client.renderer.chunk.CompiledChunk;
 import net.minecraft.client.renderer.chunk.RenderChunk;
+import net.minecraft.client.renderer.chunk.VisGraph;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher;
 import net.minecraft.client.renderer.tileentity.TileEntitySpecialRenderer;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
-import net.minecraft.client.renderer.vertex.VertexBuffer;
 import net.minecraft.init.Blocks;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockRenderLayer;
@@ -32,7 +33,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3i;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
-import fi.dy.masa.malilib.render.ShapeRenderUtils;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 import fi.dy.masa.malilib.util.data.Color4f;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.malilib.util.position.LayerRange;
@@ -46,10 +47,14 @@ import fi.dy.masa.litematica.util.PositionUtils;
 
 public class RenderChunkSchematicVbo extends RenderChunk
 {
+    private static final int MESH_REGION_SHIFT = 7;
+    private static final double LOD_DISTANCE_HYSTERESIS = 8.0;
+
     public static int schematicRenderChunksUpdated;
 
     private final RenderGlobalSchematic renderGlobal;
-    private final VertexBuffer[] vertexBufferOverlay = new VertexBuffer[OverlayRenderType.values().length];
+    private final VertexArena.Allocation[] blockAllocations = new VertexArena.Allocation[BlockRenderLayer.values().length];
+    private final VertexArena.Allocation[] overlayAllocations = new VertexArena.Allocation[OverlayRenderType.values().length];
     private final Set<TileEntity> setTileEntities = new HashSet<>();
     private final List<IntBoundingBox> boxes = new ArrayList<>();
     private final EnumSet<OverlayRenderType> existingOverlays = EnumSet.noneOf(OverlayRenderType.class);
@@ -62,6 +67,8 @@ public class RenderChunkSchematicVbo extends RenderChunk
     private CompiledChunkSchematic schematicChunkRenderData;
 
     private boolean hasOverlay = false;
+    private volatile boolean renderLod;
+    @Nullable private VisGraph visGraph;
 
     private boolean ignoreClientWorldFluids;
     private boolean overlayEnabled;
@@ -89,11 +96,12 @@ public class RenderChunkSchematicVbo extends RenderChunk
         this.chunkRenderDataLock = new ReentrantLock();
         this.schematicChunkRenderData = CompiledChunkSchematic.EMPTY;
 
+        // The meshes are stored in the shared vertex arenas instead of the per-chunk vertex buffers
         if (OpenGlHelper.useVbo())
         {
-            for (int i = 0; i < OverlayRenderType.values().length; ++i)
+            for (int i = 0; i < BlockRenderLayer.values().length; ++i)
             {
-                this.vertexBufferOverlay[i] = new VertexBuffer(DefaultVertexFormats.POSITION_COLOR);
+                this.getVertexBufferByLayer(i).deleteGlBuffers();
             }
         }
     }
@@ -127,10 +135,108 @@ public class RenderChunkSchematicVbo extends RenderChunk
         return this.existingOverlays;
     }
 
-    public VertexBuffer getOverlayVertexBuffer(OverlayRenderType type)
+    /**
+     * @return true if the blocks of this render chunk were last compiled as the simplified LOD mesh
+     */
+    public boolean isRenderedAsLod()
+    {
+        return this.renderLod;
+    }
+
+    /**
+     * @return true if the blocks of this render chunk should be compiled as the simplified LOD mesh,
+     * when viewed from the given position. The LOD distance has a bit of hysteresis based on the current state,
+     * so that render chunks right at the LOD distance don't keep getting re-compiled as the view moves.
+     */
+    public boolean shouldRenderAsLod(double viewX, double viewZ)
+    {
+        final int lodDistance = Configs.Generic.RENDER_LOD_DISTANCE.getIntegerValue();
+
+        if (lodDistance <= 0)
+        {
+            return false;
+        }
+
+        BlockPos pos = this.getPosition();
+        double dx = pos.getX() + 8 - viewX;
+        double dz = pos.getZ() + 8 - viewZ;
+        double threshold = lodDistance * 16 + (this.renderLod ? -LOD_DISTANCE_HYSTERESIS : LOD_DISTANCE_HYSTERESIS);
+
+        return dx * dx + dz * dz > threshold * threshold;
+    }
+
+    /**
+     * @return the origin that the vertex positions in this render chunk's meshes are relative to.
+     * All the render chunks within the same 128 x 256 x 128 block region share the same origin,
+     * so that their meshes can be drawn in batches without changing the translation in between.
+     */
+    public BlockPos getMeshOrigin()
+    {
+        BlockPos pos = this.getPosition();
+        return new BlockPos((pos.getX() >> MESH_REGION_SHIFT) << MESH_REGION_SHIFT, 0, (pos.getZ() >> MESH_REGION_SHIFT) << MESH_REGION_SHIFT);
+    }
+
+    @Nullable
+    public VertexArena.Allocation getBlockAllocation(BlockRenderLayer layer)
+    {
+        return this.blockAllocations[layer.ordinal()];
+    }
+
+    @Nullable
+    public VertexArena.Allocation getOverlayAllocation(OverlayRenderType type)
     {
-        //if (GuiBase.isCtrlDown()) System.out.printf("getOverlayVertexBuffer: type: %s, buf: %s\n", type, this.vertexBufferOverlay[type.ordinal()]);
-        return this.vertexBufferOverlay[type.ordinal()];
+        return this.overlayAllocations[type.ordinal()];
+    }
+
+    /**
+     * Uploads the finished vertex data of the given layer into the shared vertex arenas.
+     * Must be called on the client thread.
+     */
+    public void uploadBlocksToArena(BlockRenderLayer layer, BufferBuilder buffer)
+    {
+        final int index = layer.ordinal();
+        this.blockAllocations[index] = this.renderGlobal.getVertexArenas().upload(this.blockAllocations[index], buffer);
+    }
+
+    /**
+     * Uploads the finished vertex data of the given overlay type into the shared vertex arenas.
+     * Must be called on the client thread.
+     */
+    public void uploadOverlayToArena(OverlayRenderType type, BufferBuilder buffer)
+    {
+        final int index = type.ordinal();
+        this.overlayAllocations[index] = this.renderGlobal.getVertexArenas().upload(this.overlayAllocations[index], buffer);
+    }
+
+    /**
+     * Releases the arena allocations of the layers and overlay types that are empty in the given data.
+     * Must be called on the client thread.
+     */
+    public void releaseEmptyArenaAllocations(CompiledChunkSchematic compiledChunk)
+    {
+        VertexArenaPool arenas = this.renderGlobal.getVertexArenas();
+
+        for (BlockRenderLayer layer : BlockRenderLayer.values())
+        {
+            final int index = layer.ordinal();
+
+            if (this.blockAllocations[index] != null && compiledChunk.isLayerEmpty(layer))
+            {
+                arenas.free(this.blockAllocations[index]);
+                this.blockAllocations[index] = null;
+            }
+        }
+
+        for (OverlayRenderType type : OverlayRenderType.values())
+        {
+            final int index = type.ordinal();
+
+            if (this.overlayAllocations[index] != null && compiledChunk.isOverlayTypeEmpty(type))
+            {
+                arenas.free(this.overlayAllocations[index]);
+                this.overlayAllocations[index] = null;
+            }
+        }
     }
 
     @Override
@@ -138,11 +244,23 @@ public class RenderChunkSchematicVbo extends RenderChunk
     {
         super.deleteGlResources();
 
-        for (int i = 0; i < this.vertexBufferOverlay.length; ++i)
+        VertexArenaPool arenas = this.renderGlobal.getVertexArenas();
+
+        for (int i = 0; i < this.blockAllocations.length; ++i)
         {
-            if (this.vertexBufferOverlay[i] != null)
+            if (this.blockAllocations[i] != null)
             {
-                this.vertexBufferOverlay[i].deleteGlBuffers();
+                arenas.free(this.blockAllocations[i]);
+                this.blockAllocations[i] = null;
+            }
+        }
+
+        for (int i = 0; i < this.overlayAllocations.length; ++i)
+        {
+            if (this.overlayAllocations[i] != null)
+            {
+                arenas.free(this.overlayAllocations[i]);
+                this.overlayAllocations[i] = null;
             }
         }
     }
@@ -163,7 +281,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 {
                     BufferBuilder buffer = buffers.getWorldRendererByLayer(layer);
 
-                    this.preRenderBlocks(buffer, this.getPosition());
+                    this.preRenderBlocks(buffer, this.getMeshOrigin());
                     buffer.setVertexState(compiledChunk.getState());
                     this.postRenderBlocks(layer, x, y, z, buffer, compiledChunk);
                 }
@@ -172,7 +290,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
             {
                 BufferBuilder buffer = buffers.getWorldRendererByLayer(BlockRenderLayer.TRANSLUCENT);
 
-                this.preRenderBlocks(buffer, this.getPosition());
+                this.preRenderBlocks(buffer, this.getMeshOrigin());
                 buffer.setVertexState(bufferState);
                 this.postRenderBlocks(BlockRenderLayer.TRANSLUCENT, x, y, z, buffer, compiledChunk);
             }
@@ -221,6 +339,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
 
         this.existingOverlays.clear();
         this.hasOverlay = false;
+        this.renderLod = this.shouldRenderAsLod(x, z);
 
         synchronized (this.boxes)
         {
@@ -231,24 +350,36 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 ++schematicRenderChunksUpdated;
 
                 boolean[] usedLayers = new boolean[BlockRenderLayer.values().length];
+                boolean[] positionsToRender = new boolean[4096];
                 BufferBuilderCache buffers = generator.getBufferCache();
+                final int positionCount = this.getPositionsToRender(posChunk, positionsToRender);
+                CompileResultCache.Key cacheKey = null;
+                CompileResultCache.Entry cachedResult = null;
 
-                for (IntBoundingBox box : this.boxes)
+                // Skip all the per-block work if nothing in this sub-chunk can render anything
+                if (positionCount > 0)
                 {
-                    box = range.getClampedBox(box);
-
-                    // The rendered layer(s) don't intersect this sub-volume
-                    if (box == null)
+                    if (CompileResultCache.isEnabled())
                     {
-                        continue;
+                        cacheKey = this.getCompileResultCacheKey(posChunk, range);
+                        cachedResult = cacheKey != null ? CompileResultCache.getInstance().get(cacheKey) : null;
                     }
 
-                    BlockPos posFrom = new BlockPos(box.minX, box.minY, box.minZ);
-                    BlockPos posTo   = new BlockPos(box.maxX, box.maxY, box.maxZ);
-
-                    for (BlockPos.MutableBlockPos posMutable : BlockPos.getAllInBoxMutable(posFrom, posTo))
+                    if (cachedResult != null)
                     {
-                        this.renderBlocksAndOverlay(posMutable, tileEntities, usedLayers, data, buffers);
+                        this.restoreCompileResult(cachedResult, usedLayers, data, buffers);
+                    }
+                    else
+                    {
+                        buffers.getOverlayMesher().clear();
+                        buffers.getLodMesher().clear();
+                        this.visGraph = new VisGraph();
+                        this.renderBoxes(range, positionsToRender, tileEntities, usedLayers, data, buffers);
+                        this.emitMergedOverlay(posChunk, data, buffers);
+                        this.emitLodMesh(posChunk, usedLayers, data, buffers);
+                        this.addClientWorldOpaqueBlocks(posChunk, this.visGraph);
+                        data.setVisibility(this.visGraph.computeVisibility());
+                        this.visGraph = null;
                     }
                 }
 
@@ -277,20 +408,48 @@ public class RenderChunkSchematicVbo extends RenderChunk
                         }
                     }
                 }
+
+                if (cacheKey != null && cachedResult == null)
+                {
+                    CompileResultCache.getInstance().put(cacheKey, CompileResultCache.Entry.capture(data, buffers, usedLayers, this.existingOverlays));
+                }
             }
         }
 
+        // Most render chunks don't have any global tile entities, so avoid all the set operations for them
+        if (tileEntities.isEmpty() && this.setTileEntities.isEmpty())
+        {
+            return;
+        }
+
         this.getLockCompileTask().lock();
 
         try
         {
-            Set<TileEntity> set = Sets.newHashSet(tileEntities);
-            Set<TileEntity> set1 = Sets.newHashSet(this.setTileEntities);
-            set.removeAll(this.setTileEntities);
-            set1.removeAll(tileEntities);
-            this.setTileEntities.clear();
-            this.setTileEntities.addAll(tileEntities);
-            this.renderGlobal.updateTileEntities(set1, set);
+            List<TileEntity> removed = new ArrayList<>();
+            List<TileEntity> added = new ArrayList<>();
+
+            for (TileEntity te : this.setTileEntities)
+            {
+                if (tileEntities.contains(te) == false)
+                {
+                    removed.add(te);
+                }
+            }
+
+            for (TileEntity te : tileEntities)
+            {
+                if (this.setTileEntities.add(te))
+                {
+                    added.add(te);
+                }
+            }
+
+            if (removed.isEmpty() == false || added.isEmpty() == false)
+            {
+                this.setTileEntities.removeAll(removed);
+                this.renderGlobal.updateTileEntities(removed, added);
+            }
         }
         finally
         {
@@ -298,6 +457,306 @@ public class RenderChunkSchematicVbo extends RenderChunk
         }
     }
 
+    private void renderBoxes(LayerRange range, boolean[] positionsToRender, Set<TileEntity> tileEntities,
+                             boolean[] usedLayers, CompiledChunkSchematic data, BufferBuilderCache buffers)
+    {
+        for (IntBoundingBox box : this.boxes)
+        {
+            box = range.getClampedBox(box);
+
+            // The rendered layer(s) don't intersect this sub-volume
+            if (box == null)
+            {
+                continue;
+            }
+
+            BlockPos posFrom = new BlockPos(box.minX, box.minY, box.minZ);
+            BlockPos posTo   = new BlockPos(box.maxX, box.maxY, box.maxZ);
+
+            for (BlockPos.MutableBlockPos posMutable : BlockPos.getAllInBoxMutable(posFrom, posTo))
+            {
+                int index = ((posMutable.getY() & 15) << 8) | ((posMutable.getZ() & 15) << 4) | (posMutable.getX() & 15);
+
+                if (positionsToRender[index])
+                {
+                    this.renderBlocksAndOverlay(posMutable, tileEntities, usedLayers, data, buffers);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the opaque blocks of the client world in the sub-chunk in the visibility graph.
+     * The client world blocks are rendered by vanilla, but they hide the schematic blocks behind them all the same.
+     */
+    private void addClientWorldOpaqueBlocks(BlockPos posChunk, VisGraph visGraph)
+    {
+        if (this.clientWorldView.isEmpty())
+        {
+            return;
+        }
+
+        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
+
+        for (int y = 0; y < 16; ++y)
+        {
+            for (int z = 0; z < 16; ++z)
+            {
+                for (int x = 0; x < 16; ++x)
+                {
+                    posMutable.setPos(posChunk.getX() + x, posChunk.getY() + y, posChunk.getZ() + z);
+
+                    if (this.clientWorldView.getBlockState(posMutable).isOpaqueCube())
+                    {
+                        visGraph.setOpaqueCube(posMutable);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the merged simple overlay sides and outlines collected while rendering the boxes
+     */
+    private void emitMergedOverlay(BlockPos posChunk, CompiledChunkSchematic data, BufferBuilderCache buffers)
+    {
+        OverlayMesher mesher = buffers.getOverlayMesher();
+
+        if (mesher.hasFaces())
+        {
+            mesher.emitFaces(posChunk, this.getStartedOverlayBuffer(OverlayRenderType.QUAD, data, buffers));
+        }
+
+        if (mesher.hasEdges())
+        {
+            mesher.emitEdges(posChunk, this.getStartedOverlayBuffer(OverlayRenderType.OUTLINE, data, buffers));
+        }
+    }
+
+    /**
+     * Emits the LOD mesh of the blocks collected while rendering the boxes
+     */
+    private void emitLodMesh(BlockPos posChunk, boolean[] usedLayers, CompiledChunkSchematic data, BufferBuilderCache buffers)
+    {
+        LodMesher mesher = buffers.getLodMesher();
+
+        if (mesher.hasCells())
+        {
+            BlockRenderLayer layer = this.renderAsTranslucent ? BlockRenderLayer.TRANSLUCENT : BlockRenderLayer.SOLID;
+            BufferBuilder buffer = buffers.getWorldRendererByLayer(layer);
+
+            if (data.isLayerStarted(layer) == false)
+            {
+                data.setLayerStarted(layer);
+                this.preRenderBlocks(buffer, this.getMeshOrigin());
+            }
+
+            // Sample the middle of a plain white texture, so that the vertex colors are used as-is
+            TextureAtlasSprite sprite = Minecraft.getMinecraft().getTextureMapBlocks().getAtlasSprite("minecraft:blocks/wool_colored_white");
+            mesher.emit(posChunk, sprite.getInterpolatedU(8), sprite.getInterpolatedV(8), buffer);
+            usedLayers[layer.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Creates the compile result cache key for the current contents and settings of this render chunk.
+     * The block states are hashed in the sub-chunk and in a one block shell around it,
+     * as the actual states and the rendered faces depend on the adjacent blocks.
+     * @return the key, or null if the result can't be cached, because there are tile entities
+     * in or right next to this sub-chunk (as the tile entities may affect the actual states)
+     */
+    @Nullable
+    private CompileResultCache.Key getCompileResultCacheKey(BlockPos posChunk, LayerRange range)
+    {
+        boolean[] settings = new boolean[] {
+                this.ignoreClientWorldFluids, this.overlayEnabled, this.overlayLinesEnabled, this.overlayModelLines,
+                this.overlayModelSides, this.overlayReducedInnerSides, this.overlaySidesEnabled, this.overlayTypeExtra,
+                this.overlayTypeMissing, this.overlayTypeWrongBlock, this.overlayTypeWrongState, this.renderColliding,
+                this.renderAsTranslucent, this.renderLod, Configs.Visuals.TRANSLUCENT_INNER_SIDES.getBooleanValue(),
+                Minecraft.isAmbientOcclusionEnabled() };
+        long hash = 0;
+
+        for (boolean value : settings)
+        {
+            hash = mixHash(hash, value ? 1 : 0);
+        }
+
+        hash = mixHash(hash, this.overlayColorExtra.intValue);
+        hash = mixHash(hash, this.overlayColorMissing.intValue);
+        hash = mixHash(hash, this.overlayColorWrongBlock.intValue);
+        hash = mixHash(hash, this.overlayColorWrongState.intValue);
+
+        // The clamped chunk box includes the shell, so that it also captures the faces rendered at the layer range edges
+        hash = mixHash(hash, range.getClampedBox(new IntBoundingBox(posChunk.getX() - 1, posChunk.getY() - 1, posChunk.getZ() - 1,
+                                                                     posChunk.getX() + 16, posChunk.getY() + 16, posChunk.getZ() + 16)));
+
+        for (IntBoundingBox box : this.boxes)
+        {
+            hash = mixHash(hash, range.getClampedBox(box));
+        }
+
+        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
+
+        for (int y = posChunk.getY() - 1; y <= posChunk.getY() + 16; ++y)
+        {
+            for (int z = posChunk.getZ() - 1; z <= posChunk.getZ() + 16; ++z)
+            {
+                for (int x = posChunk.getX() - 1; x <= posChunk.getX() + 16; ++x)
+                {
+                    posMutable.setPos(x, y, z);
+                    IBlockState stateSchematic = this.schematicWorldView.getBlockState(posMutable);
+                    IBlockState stateClient = this.clientWorldView.getBlockState(posMutable);
+
+                    if (stateSchematic.getBlock().hasTileEntity() || stateClient.getBlock().hasTileEntity())
+                    {
+                        return null;
+                    }
+
+                    hash = mixHash(hash, Block.getStateId(stateSchematic));
+                    hash = mixHash(hash, Block.getStateId(stateClient));
+                }
+            }
+        }
+
+        return new CompileResultCache.Key(posChunk.toLong(), hash);
+    }
+
+    private static long mixHash(long hash, @Nullable IntBoundingBox box)
+    {
+        if (box == null)
+        {
+            return mixHash(hash, -1);
+        }
+
+        hash = mixHash(hash, box.minX);
+        hash = mixHash(hash, box.minY);
+        hash = mixHash(hash, box.minZ);
+        hash = mixHash(hash, box.maxX);
+        hash = mixHash(hash, box.maxY);
+        return mixHash(hash, box.maxZ);
+    }
+
+    private static long mixHash(long hash, int value)
+    {
+        return (hash ^ (value & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    }
+
+    /**
+     * Fills the buffers with the vertex data of a previously compiled result,
+     * in the same way as rendering the blocks and overlays would.
+     */
+    private void restoreCompileResult(CompileResultCache.Entry entry, boolean[] usedLayers, CompiledChunkSchematic data, BufferBuilderCache buffers)
+    {
+        if (entry.getVisibility() != null)
+        {
+            data.setVisibility(entry.getVisibility());
+        }
+
+        for (BlockRenderLayer layer : BlockRenderLayer.values())
+        {
+            int[] vertexData = entry.getBlockData(layer);
+
+            if (vertexData != null)
+            {
+                BufferBuilder buffer = buffers.getWorldRendererByLayer(layer);
+                data.setLayerStarted(layer);
+                this.preRenderBlocks(buffer, this.getMeshOrigin());
+                buffer.addVertexData(vertexData);
+                usedLayers[layer.ordinal()] = entry.isLayerUsed(layer);
+            }
+        }
+
+        for (OverlayRenderType type : OverlayRenderType.values())
+        {
+            int[] vertexData = entry.getOverlayData(type);
+
+            if (vertexData != null)
+            {
+                BufferBuilder buffer = buffers.getOverlayBuffer(type);
+                data.setOverlayTypeStarted(type);
+                this.preRenderOverlay(buffer, type);
+                buffer.addVertexData(vertexData);
+            }
+        }
+    }
+
+    /**
+     * Compares the raw block states in the schematic world's and the client world's sections
+     * of this render chunk, to find the positions that may render something.
+     * A position with the same state in both worlds doesn't render anything, unless a neighbor
+     * differs (as the actual state may depend on the neighbors), it's on the edge of the section
+     * (as the neighbors outside the section are not compared) or it has a tile entity
+     * (as the actual state may depend on the tile entity).
+     * Positions with air in both worlds never render anything.
+     * @param flags the array to set the flags for the positions to render into, indexed as (y << 8) | (z << 4) | x
+     * @return the number of positions to render
+     */
+    protected int getPositionsToRender(BlockPos posChunk, boolean[] flags)
+    {
+        ExtendedBlockStorage sectionSchematic = this.schematicWorldView.getSection(posChunk);
+        ExtendedBlockStorage sectionClient = this.clientWorldView.getSection(posChunk);
+
+        if (sectionSchematic == null && sectionClient == null)
+        {
+            return 0;
+        }
+
+        IBlockState air = Blocks.AIR.getDefaultState();
+        boolean[] differs = new boolean[4096];
+
+        for (int index = 0; index < 4096; ++index)
+        {
+            final int x = index & 15;
+            final int z = (index >> 4) & 15;
+            final int y = index >> 8;
+            IBlockState stateSchematic = sectionSchematic != null ? sectionSchematic.get(x, y, z) : air;
+            IBlockState stateClient    = sectionClient    != null ? sectionClient.get(x, y, z)    : air;
+            Block blockSchematic = stateSchematic.getBlock();
+
+            flags[index] = blockSchematic != Blocks.AIR || stateClient.getBlock() != Blocks.AIR;
+            differs[index] = stateSchematic != stateClient || blockSchematic.hasTileEntity();
+        }
+
+        // Spread the differences to all the neighbors, including the diagonal ones
+        differs = dilate(dilate(dilate(differs, 1), 16), 256);
+        int count = 0;
+
+        for (int index = 0; index < 4096; ++index)
+        {
+            final int x = index & 15;
+            final int z = (index >> 4) & 15;
+            final int y = index >> 8;
+            boolean edge = x == 0 || x == 15 || y == 0 || y == 15 || z == 0 || z == 15;
+
+            if (flags[index] && (differs[index] || edge))
+            {
+                ++count;
+            }
+            else
+            {
+                flags[index] = false;
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean[] dilate(boolean[] flags, int stride)
+    {
+        boolean[] result = new boolean[flags.length];
+
+        for (int index = 0; index < flags.length; ++index)
+        {
+            final int coord = (index / stride) & 15;
+
+            result[index] = flags[index] ||
+                            (coord > 0  && flags[index - stride]) ||
+                            (coord < 15 && flags[index + stride]);
+        }
+
+        return result;
+    }
+
     protected void renderBlocksAndOverlay(BlockPos pos, Set<TileEntity> tileEntities, boolean[] usedLayers, CompiledChunkSchematic data, BufferBuilderCache buffers)
     {
         IBlockState stateSchematic = this.schematicWorldView.getBlockState(pos);
@@ -325,14 +784,34 @@ public class RenderChunkSchematicVbo extends RenderChunk
             BlockRenderLayer layer = this.renderAsTranslucent ? BlockRenderLayer.TRANSLUCENT : blockSchematic.getRenderLayer();
             int layerIndex = layer.ordinal();
 
-            if (stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE)
+            // Translucent schematic blocks don't hide anything behind them
+            if (this.visGraph != null && this.renderAsTranslucent == false &&
+                stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE && stateSchematic.isOpaqueCube())
+            {
+                this.visGraph.setOpaqueCube(pos);
+            }
+
+            if (this.renderLod)
+            {
+                if (stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE)
+                {
+                    MapColor mapColor = stateSchematic.getMapColor(this.schematicWorldView, pos);
+
+                    // Blocks without a map color (like glass) are left out of the LOD mesh
+                    if (mapColor != MapColor.AIR)
+                    {
+                        buffers.getLodMesher().addBlock(pos, mapColor.colorValue);
+                    }
+                }
+            }
+            else if (stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE)
             {
                 BufferBuilder bufferSchematic = buffers.getWorldRendererByLayerId(layerIndex);
 
                 if (data.isLayerStarted(layer) == false)
                 {
                     data.setLayerStarted(layer);
-                    this.preRenderBlocks(bufferSchematic, this.getPosition());
+                    this.preRenderBlocks(bufferSchematic, this.getMeshOrigin());
                 }
 
                 usedLayers[layerIndex] |= this.renderGlobal.renderBlock(stateSchematic, pos, this.schematicWorldView, bufferSchematic);
@@ -354,17 +833,11 @@ public class RenderChunkSchematicVbo extends RenderChunk
     protected void renderOverlay(BlockPos pos, IBlockState stateSchematic, OverlayType type, Color4f overlayColor, CompiledChunkSchematic data, BufferBuilderCache buffers)
     {
         boolean missing = type == OverlayType.MISSING;
+        // The simple full block sides and edges are collected into the mesher, which merges them after all the blocks are done
+        OverlayMesher mesher = buffers.getOverlayMesher();
 
         if (this.overlaySidesEnabled)
         {
-            BufferBuilder bufferOverlayQuads = buffers.getOverlayBuffer(OverlayRenderType.QUAD);
-
-            if (data.isOverlayTypeStarted(OverlayRenderType.QUAD) == false)
-            {
-                data.setOverlayTypeStarted(OverlayRenderType.QUAD);
-                this.preRenderOverlay(bufferOverlayQuads, OverlayRenderType.QUAD);
-            }
-
             if (this.overlayReducedInnerSides)
             {
                 BlockPos.PooledMutableBlockPos posMutable = BlockPos.PooledMutableBlockPos.retain();
@@ -386,6 +859,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                         if (type.getRenderPriority() > typeAdj.getRenderPriority() ||
                             stateSchematic.getBlockFaceShape(this.schematicWorldView, pos, side) != BlockFaceShape.SOLID)
                         {
+                            BufferBuilder bufferOverlayQuads = this.getStartedOverlayBuffer(OverlayRenderType.QUAD, data, buffers);
                             RenderUtils.drawBlockModelQuadOverlayBatched(bakedModel, stateSchematic, pos, side, overlayColor, 0, bufferOverlayQuads);
                         }
                     }
@@ -393,7 +867,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     {
                         if (type.getRenderPriority() > typeAdj.getRenderPriority())
                         {
-                            ShapeRenderUtils.renderBlockPosSideQuad(pos, side, 0, overlayColor, bufferOverlayQuads);
+                            mesher.addSide(pos, side, type, overlayColor);
                         }
                     }
                 }
@@ -406,25 +880,18 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 if (missing && this.overlayModelSides)
                 {
                     IBakedModel bakedModel = this.renderGlobal.getModelForState(stateSchematic);
+                    BufferBuilder bufferOverlayQuads = this.getStartedOverlayBuffer(OverlayRenderType.QUAD, data, buffers);
                     RenderUtils.drawBlockModelQuadOverlayBatched(bakedModel, stateSchematic, pos, overlayColor, 0, bufferOverlayQuads);
                 }
                 else
                 {
-                    ShapeRenderUtils.renderBlockPosSideQuads(pos, 0, overlayColor, bufferOverlayQuads);
+                    mesher.addAllSides(pos, type, overlayColor);
                 }
             }
         }
 
         if (this.overlayLinesEnabled)
         {
-            BufferBuilder bufferOverlayOutlines = buffers.getOverlayBuffer(OverlayRenderType.OUTLINE);
-
-            if (data.isOverlayTypeStarted(OverlayRenderType.OUTLINE) == false)
-            {
-                data.setOverlayTypeStarted(OverlayRenderType.OUTLINE);
-                this.preRenderOverlay(bufferOverlayOutlines, OverlayRenderType.OUTLINE);
-            }
-
             overlayColor = new Color4f(overlayColor.r, overlayColor.g, overlayColor.b, 1f);
 
             if (this.overlayReducedInnerSides)
@@ -463,16 +930,17 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     // FIXME: how to implement this correctly here... >_>
                     if (stateSchematic.isFullCube())
                     {
-                        this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, bufferOverlayOutlines);
+                        this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, mesher);
                     }
                     else
                     {
+                        BufferBuilder bufferOverlayOutlines = this.getStartedOverlayBuffer(OverlayRenderType.OUTLINE, data, buffers);
                         RenderUtils.drawBlockModelOutlinesBatched(bakedModel, stateSchematic, pos, overlayColor, bufferOverlayOutlines);
                     }
                 }
                 else
                 {
-                    this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, bufferOverlayOutlines);
+                    this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, mesher);
                 }
             }
             else
@@ -481,17 +949,18 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 if (missing && this.overlayModelLines)
                 {
                     IBakedModel bakedModel = this.renderGlobal.getModelForState(stateSchematic);
+                    BufferBuilder bufferOverlayOutlines = this.getStartedOverlayBuffer(OverlayRenderType.OUTLINE, data, buffers);
                     RenderUtils.drawBlockModelOutlinesBatched(bakedModel, stateSchematic, pos, overlayColor, bufferOverlayOutlines);
                 }
                 else
                 {
-                    ShapeRenderUtils.renderBlockPosEdgeLines(pos, 0, overlayColor, bufferOverlayOutlines);
+                    mesher.addAllEdges(pos, type, overlayColor);
                 }
             }
         }
     }
 
-    protected void renderOverlayReducedEdges(BlockPos pos, OverlayType[][][] adjTypes, OverlayType typeSelf, Color4f overlayColor, BufferBuilder bufferOverlayOutlines)
+    protected void renderOverlayReducedEdges(BlockPos pos, OverlayType[][][] adjTypes, OverlayType typeSelf, Color4f overlayColor, OverlayMesher mesher)
     {
         OverlayType[] neighborTypes = new OverlayType[4];
         Vec3i[] neighborPositions = new Vec3i[4];
@@ -560,7 +1029,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     if (posTmp.getX() == pos.getX() && posTmp.getY() == pos.getY() && posTmp.getZ() == pos.getZ())
                     {
                         //System.out.printf("plop 2 index: %d, ind: %d, pos: %s, off: %s\n", index, ind, pos, posTmp);
-                        RenderUtils.drawBlockBoxEdgeBatchedLines(pos, axis, corner, overlayColor, bufferOverlayOutlines);
+                        mesher.addEdge(pos, axis, offsets[corner], typeSelf, overlayColor);
                         lines++;
                     }
                 }
@@ -676,19 +1145,32 @@ public class RenderChunkSchematicVbo extends RenderChunk
         buffer.finishDrawing();
     }
 
+    private BufferBuilder getStartedOverlayBuffer(OverlayRenderType type, CompiledChunkSchematic data, BufferBuilderCache buffers)
+    {
+        BufferBuilder buffer = buffers.getOverlayBuffer(type);
+
+        if (data.isOverlayTypeStarted(type) == false)
+        {
+            data.setOverlayTypeStarted(type);
+            this.preRenderOverlay(buffer, type);
+        }
+
+        return buffer;
+    }
+
     private void preRenderOverlay(BufferBuilder buffer, OverlayRenderType type)
     {
         this.existingOverlays.add(type);
         this.hasOverlay = true;
 
-        BlockPos pos = this.getPosition();
+        BlockPos pos = this.getMeshOrigin();
         buffer.begin(type.getGlMode(), DefaultVertexFormats.POSITION_COLOR);
         buffer.setTranslation(-pos.getX(), -pos.getY(), -pos.getZ());
     }
 
     private void preRenderOverlay(BufferBuilder buffer, int glMode)
     {
-        BlockPos pos = this.getPosition();
+        BlockPos pos = this.getMeshOrigin();
         buffer.begin(glMode, DefaultVertexFormats.POSITION_COLOR);
         buffer.setTranslation(-pos.getX(), -pos.getY(), -pos.getZ());
     }
@@ -1,6 +1,8 @@
 package fi.dy.masa.litematica.render.schematic;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -37,6 +39,7 @@ import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockRenderLayer;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ClassInheritanceMultiMap;
 import net.minecraft.util.EnumBlockRenderType;
 import net.minecraft.util.ReportedException;
@@ -51,11 +54,14 @@ import fi.dy.masa.malilib.render.RenderUtils;
 import fi.dy.masa.malilib.util.GameUtils;
 import fi.dy.masa.malilib.util.position.LayerRange;
 import fi.dy.masa.malilib.util.position.SubChunkPos;
+import fi.dy.masa.litematica.config.Configs;
+import fi.dy.masa.litematica.config.Hotkeys;
 import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.mixin.IMixinBlockRendererDispatcher;
 import fi.dy.masa.litematica.mixin.IMixinViewFrustum;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 import fi.dy.masa.litematica.util.IGenericEventListener;
+import fi.dy.masa.litematica.world.WorldSchematic;
 
 public class RenderGlobalSchematic extends RenderGlobal implements IGenericEventListener
 {
@@ -67,6 +73,7 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
     private final Set<TileEntity> setTileEntities = new HashSet<>();
     private final List<RenderChunkSchematicVbo> renderInfos = new ArrayList<>(1024);
     private final List<SubChunkPos> subChunksWithinRenderRange = new ArrayList<>();
+    private final VertexArenaPool vertexArenas = new VertexArenaPool();
     private Set<RenderChunkSchematicVbo> chunksToUpdate = new LinkedHashSet<>();
     private WorldClient world;
     private ViewFrustum viewFrustum;
@@ -86,6 +93,7 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
     private IRenderChunkFactory renderChunkFactory;
     private final BlockPos.MutableBlockPos viewPosSubChunk = new BlockPos.MutableBlockPos();
     private BlockPos lastSubChunkUpdatePos;
+    private long lastCompileQueueUpdateTime;
     //private ShaderGroup entityOutlineShader;
     //private boolean entityOutlinesRendered;
 
@@ -144,7 +152,13 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
     {
         int rcTotal = this.viewFrustum != null ? this.viewFrustum.renderChunks.length : 0;
         int rcRendered = this.viewFrustum != null ? this.getRenderedChunks() : 0;
-        return String.format("C: %d/%d %sD: %d, L: %d, %s", rcRendered, rcTotal, this.mc.renderChunksMany ? "(s) " : "", this.renderDistanceChunks, 0, this.renderDispatcher == null ? "null" : this.renderDispatcher.getDebugInfo());
+        String str = String.format("C: %d/%d %sD: %d, L: %d, %s", rcRendered, rcTotal, this.mc.renderChunksMany ? "(s) " : "", this.renderDistanceChunks, 0, this.renderDispatcher == null ? "null" : this.renderDispatcher.getDebugInfo());
+        return this.vboEnabled ? str + ", " + this.vertexArenas.getDebugInfo() : str;
+    }
+
+    public VertexArenaPool getVertexArenas()
+    {
+        return this.vertexArenas;
     }
 
     @Override
@@ -204,6 +218,8 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
                 this.viewFrustum = null;
             }
 
+            this.vertexArenas.deleteAll();
+
             if (this.renderDispatcher != null)
             {
                 this.renderDispatcher.stopWorkerThreads();
@@ -248,6 +264,10 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
             }
 
             this.stopChunkUpdates();
+            this.vertexArenas.deleteEmptyArenas();
+
+            // The cached geometry may have been built using the previous resource packs or models
+            CompileResultCache.getInstance().clear();
 
             synchronized (this.setTileEntities)
             {
@@ -367,6 +387,14 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
 
             //if (GuiBase.isCtrlDown()) System.out.printf("sorted positions: %d\n", positions.size());
 
+            world.profiler.endStartSection("occlusion");
+            Set<RenderChunkSchematicVbo> reachableChunks = null;
+
+            if (this.isOcclusionCullingEnabled(playerSpectator))
+            {
+                reachableChunks = this.getReachableRenderChunks(this.viewPosSubChunk, camera, centerChunkX, centerChunkZ, renderDistance);
+            }
+
             world.profiler.endStartSection("iteration");
 
             //while (queuePositions.isEmpty() == false)
@@ -384,7 +412,8 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
                     BlockPos subChunkCornerPos = new BlockPos(subChunk.getX() << 4, subChunk.getY() << 4, subChunk.getZ() << 4);
                     RenderChunkSchematicVbo renderChunk = (RenderChunkSchematicVbo) ((IMixinViewFrustum) this.viewFrustum).invokeGetRenderChunk(subChunkCornerPos);
 
-                    if (renderChunk != null)
+                    // Skip the render chunks that are completely hidden behind opaque blocks
+                    if (renderChunk != null && (reachableChunks == null || reachableChunks.contains(renderChunk)))
                     {
                         if (renderChunk.setFrameIndex(frameCount) && camera.isBoundingBoxInFrustum(renderChunk.boundingBox))
                         {
@@ -393,6 +422,11 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
                             {
                                 renderChunk.setNeedsUpdate(true);
                             }
+                            // The render chunk moved across the LOD distance, re-compile it at the other detail level
+                            else if (renderChunk.needsUpdate() == false && renderChunk.isRenderedAsLod() != renderChunk.shouldRenderAsLod(x, z))
+                            {
+                                renderChunk.setNeedsUpdate(false);
+                            }
 
                             this.renderInfos.add(renderChunk);
                         }
@@ -400,6 +434,16 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
                 }
             }
 
+            long currentTime = System.currentTimeMillis();
+
+            // The view has changed, re-sort the queued compile tasks, but not on every frame
+            if (currentTime - this.lastCompileQueueUpdateTime >= 250L)
+            {
+                world.profiler.endStartSection("compile_queue");
+                this.renderDispatcher.updateChunkUpdatePriorities(x, y, z, camera, renderDistance + 1);
+                this.lastCompileQueueUpdateTime = currentTime;
+            }
+
             world.profiler.endSection();
         }
 
@@ -438,10 +482,101 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
         world.profiler.endSection();
     }
 
+    private boolean isOcclusionCullingEnabled(boolean playerSpectator)
+    {
+        // The overlays rendered through blocks must not get culled, and a spectator can be inside the opaque blocks.
+        // The visibility graphs are built from all the schematic blocks, which don't hide anything if they are not rendered.
+        return Configs.Generic.RENDER_OCCLUSION_CULLING.getBooleanValue() &&
+               Configs.Visuals.SCHEMATIC_BLOCKS_RENDERING.getBooleanValue() &&
+               playerSpectator == false &&
+               Configs.Visuals.SCHEMATIC_OVERLAY_RENDER_THROUGH.getBooleanValue() == false &&
+               Hotkeys.RENDER_OVERLAY_THROUGH_BLOCKS.getKeyBind().isKeyBindHeld() == false;
+    }
+
+    /**
+     * Walks through the render chunks starting from the one the camera is in, in the same way as vanilla does.
+     * The walk only continues out of a render chunk through the sides that are visible from the side
+     * it was entered from, and never back towards the camera, using the visibility graph
+     * computed when compiling the render chunks. The render chunks that can't be reached
+     * are completely hidden behind opaque blocks, and don't need to be rendered.
+     * @return the reachable render chunks, or null if the walk can't start from the current view position
+     */
+    @Nullable
+    private Set<RenderChunkSchematicVbo> getReachableRenderChunks(BlockPos viewPos, ICamera camera,
+                                                                   int centerChunkX, int centerChunkZ, int renderDistance)
+    {
+        RenderChunkSchematicVbo start = viewPos.getY() >= 0 && viewPos.getY() < 256 ? this.getRenderChunk(viewPos) : null;
+
+        if (start == null)
+        {
+            return null;
+        }
+
+        Set<RenderChunkSchematicVbo> visited = new HashSet<>();
+        ArrayDeque<VisibilityWalkEntry> queue = new ArrayDeque<>();
+        visited.add(start);
+        queue.add(new VisibilityWalkEntry(start, null, 0));
+
+        while (queue.isEmpty() == false)
+        {
+            VisibilityWalkEntry entry = queue.poll();
+            CompiledChunk compiledChunk = entry.renderChunk.getChunkRenderData();
+
+            for (EnumFacing side : EnumFacing.values())
+            {
+                // Don't walk back towards the camera, and only exit through the sides visible from the entry side
+                if ((entry.directions & (1 << side.getOpposite().ordinal())) != 0 ||
+                    (entry.entrySide != null && compiledChunk.isVisible(entry.entrySide.getOpposite(), side) == false))
+                {
+                    continue;
+                }
+
+                BlockPos pos = entry.renderChunk.getPosition().offset(side, 16);
+
+                if (pos.getY() < 0 || pos.getY() >= 256 ||
+                    Math.abs((pos.getX() >> 4) - centerChunkX) > renderDistance ||
+                    Math.abs((pos.getZ() >> 4) - centerChunkZ) > renderDistance)
+                {
+                    continue;
+                }
+
+                RenderChunkSchematicVbo renderChunk = this.getRenderChunk(pos);
+
+                if (renderChunk != null && camera.isBoundingBoxInFrustum(renderChunk.boundingBox) && visited.add(renderChunk))
+                {
+                    queue.add(new VisibilityWalkEntry(renderChunk, side, entry.directions | (1 << side.ordinal())));
+                }
+            }
+        }
+
+        return visited;
+    }
+
+    @Nullable
+    private RenderChunkSchematicVbo getRenderChunk(BlockPos pos)
+    {
+        return (RenderChunkSchematicVbo) ((IMixinViewFrustum) this.viewFrustum).invokeGetRenderChunk(pos);
+    }
+
+    /**
+     * Updates the set of the global tile entities (those that need to be rendered even when
+     * their render chunk is not visible), which the render chunks call when they have been re-compiled.
+     */
+    @Override
+    public void updateTileEntities(Collection<TileEntity> tileEntitiesToRemove, Collection<TileEntity> tileEntitiesToAdd)
+    {
+        synchronized (this.setTileEntities)
+        {
+            this.setTileEntities.removeAll(tileEntitiesToRemove);
+            this.setTileEntities.addAll(tileEntitiesToAdd);
+        }
+    }
+
     @Override
     public void updateChunks(long finishTimeNano)
     {
         this.displayListEntitiesDirty |= this.renderDispatcher.runChunkUploads(finishTimeNano);
+        this.vertexArenas.deleteEmptyArenas();
 
         if (this.chunksToUpdate.isEmpty() == false)
         {
@@ -733,8 +868,16 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
             BlockPos.PooledMutableBlockPos posMutable = BlockPos.PooledMutableBlockPos.retain();
             LayerRange layerRange = DataManager.getRenderLayerRange();
 
+            // Only look up the entity lists of the sub-chunks that actually have entities in them
+            WorldSchematic worldSchematic = this.world instanceof WorldSchematic ? (WorldSchematic) this.world : null;
+
             for (RenderChunk renderChunk : this.renderInfos)
             {
+                if (worldSchematic != null && worldSchematic.hasEntitiesInSubChunk(renderChunk.getPosition()) == false)
+                {
+                    continue;
+                }
+
                 Chunk chunk = this.world.getChunk(renderChunk.getPosition());
                 ClassInheritanceMultiMap<Entity> classinheritancemultimap = chunk.getEntityLists()[renderChunk.getPosition().getY() / 16];
 
@@ -909,4 +1052,19 @@ public class RenderGlobalSchematic extends RenderGlobal implements IGenericEvent
     @Override public void broadcastSound(int soundID, BlockPos pos, int data) {}
     @Override public void playEvent(EntityPlayer player, int type, BlockPos blockPosIn, int data) {}
     @Override public void sendBlockBreakProgress(int breakerId, BlockPos pos, int progress) {}
+
+    private static class VisibilityWalkEntry
+    {
+        private final RenderChunkSchematicVbo renderChunk;
+        @Nullable private final EnumFacing entrySide;
+        /** The bit mask of all the directions taken so far on the way from the camera to this render chunk */
+        private final int directions;
+
+        private VisibilityWalkEntry(RenderChunkSchematicVbo renderChunk, @Nullable EnumFacing entrySide, int directions)
+        {
+            this.renderChunk = renderChunk;
+            this.entrySide = entrySide;
+            this.directions = directions;
+        }
+    }
 }
@@ -1,15 +1,40 @@
 package fi.dy.masa.litematica.render.schematic;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL14;
+import org.lwjgl.opengl.GLContext;
+import net.minecraft.client.renderer.GLAllocation;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.OpenGlHelper;
 import net.minecraft.client.renderer.chunk.RenderChunk;
-import net.minecraft.client.renderer.vertex.VertexBuffer;
 import net.minecraft.util.BlockRenderLayer;
+import net.minecraft.util.math.BlockPos;
+import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.render.schematic.RenderChunkSchematicVbo.OverlayRenderType;
 
+/**
+ * Draws the meshes of the visible render chunks from the shared vertex arenas.
+ * Consecutive meshes that are in the same arena and have the same mesh origin
+ * are drawn as one batch, with one glMultiDrawArrays() call if that is enabled and supported.
+ * For the layers that don't need to be drawn in the sorted order, the meshes
+ * are first grouped by the arena and the mesh origin, to make the batches as large as possible.
+ */
 public class VboRenderListSchematic extends ChunkRenderContainerSchematic
 {
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final Comparator<Mesh> BATCH_ORDER = Comparator.<Mesh>comparingInt(mesh -> mesh.allocation.getArena().getId())
+                                                                  .thenComparingInt(mesh -> mesh.origin.getX())
+                                                                  .thenComparingInt(mesh -> mesh.origin.getZ());
+
+    private final IntBuffer batchFirstVertices = GLAllocation.createDirectIntBuffer(MAX_BATCH_SIZE);
+    private final IntBuffer batchVertexCounts = GLAllocation.createDirectIntBuffer(MAX_BATCH_SIZE);
+    private final List<Mesh> meshes = new ArrayList<>();
+
     @Override
     public void renderChunkLayer(BlockRenderLayer layer)
     {
@@ -17,9 +42,18 @@ public class VboRenderListSchematic extends ChunkRenderContainerSchematic
         {
             for (RenderChunk renderChunk : this.renderChunks)
             {
-                this.renderBlocks(renderChunk.getVertexBufferByLayer(layer.ordinal()), renderChunk);
+                RenderChunkSchematicVbo renderChunkSchematic = (RenderChunkSchematicVbo) renderChunk;
+                VertexArena.Allocation allocation = renderChunkSchematic.getBlockAllocation(layer);
+
+                if (allocation != null)
+                {
+                    this.meshes.add(new Mesh(allocation, renderChunkSchematic.getMeshOrigin()));
+                }
             }
 
+            // The translucent layer has to be drawn in the back-to-front order
+            this.renderMeshes(GL11.GL_QUADS, layer != BlockRenderLayer.TRANSLUCENT, true);
+
             OpenGlHelper.glBindBuffer(OpenGlHelper.GL_ARRAY_BUFFER, 0);
             GlStateManager.resetColor();
 
@@ -34,9 +68,17 @@ public class VboRenderListSchematic extends ChunkRenderContainerSchematic
         {
             for (RenderChunkSchematicVbo renderChunk : this.overlayRenderChunks)
             {
-                this.renderOverlay(renderChunk.getOverlayVertexBuffer(type), renderChunk, type.getGlMode());
+                VertexArena.Allocation allocation = renderChunk.getOverlayAllocation(type);
+
+                if (allocation != null)
+                {
+                    this.meshes.add(new Mesh(allocation, renderChunk.getMeshOrigin()));
+                }
             }
 
+            // The overlay quads are translucent, and have to be drawn in the back-to-front order
+            this.renderMeshes(type.getGlMode(), type != OverlayRenderType.QUAD, false);
+
             OpenGlHelper.glBindBuffer(OpenGlHelper.GL_ARRAY_BUFFER, 0);
             GlStateManager.resetColor();
 
@@ -44,30 +86,90 @@ public class VboRenderListSchematic extends ChunkRenderContainerSchematic
         }
     }
 
-    private void renderBlocks(VertexBuffer vertexBuffer, RenderChunk renderChunk)
+    private void renderMeshes(int glMode, boolean allowReordering, boolean blocks)
     {
-        GlStateManager.pushMatrix();
+        if (allowReordering)
+        {
+            this.meshes.sort(BATCH_ORDER);
+        }
 
-        this.preRenderChunk(renderChunk);
-        //renderChunk.multModelviewMatrix();
-        vertexBuffer.bindBuffer();
-        this.setupArrayPointersBlocks();
-        vertexBuffer.drawArrays(GL11.GL_QUADS);
+        final boolean multiDraw = Configs.Generic.RENDER_MULTI_DRAW_BATCHING.getBooleanValue() && GLContext.getCapabilities().OpenGL14;
+        final int size = this.meshes.size();
+        VertexArena boundArena = null;
+        int start = 0;
 
-        GlStateManager.popMatrix();
+        while (start < size)
+        {
+            Mesh first = this.meshes.get(start);
+            int end = start + 1;
+
+            while (end < size && end - start < MAX_BATCH_SIZE && this.meshes.get(end).canBatchWith(first))
+            {
+                ++end;
+            }
+
+            boundArena = this.renderBatch(start, end, first, glMode, multiDraw, boundArena, blocks);
+            start = end;
+        }
+
+        this.meshes.clear();
     }
 
-    private void renderOverlay(VertexBuffer vertexBuffer, RenderChunk renderChunk, int glMode)
+    /**
+     * Draws the meshes in the given index range, which all are in the same arena and have the same origin.
+     * The arena only needs to be bound, and the array pointers set up,
+     * when it's different from the previously used arena.
+     * @return the now bound arena
+     */
+    private VertexArena renderBatch(int start, int end, Mesh first, int glMode, boolean multiDraw, @Nullable VertexArena boundArena, boolean blocks)
     {
+        VertexArena arena = first.allocation.getArena();
+
+        if (arena != boundArena)
+        {
+            arena.bindBuffer();
+
+            if (blocks)
+            {
+                this.setupArrayPointersBlocks();
+            }
+            else
+            {
+                this.setupArrayPointersOverlay();
+            }
+        }
+
         GlStateManager.pushMatrix();
+        this.preRenderOrigin(first.origin);
 
-        this.preRenderChunk(renderChunk);
-        //renderChunk.multModelviewMatrix();
-        vertexBuffer.bindBuffer();
-        this.setupArrayPointersOverlay();
-        vertexBuffer.drawArrays(glMode);
+        if (multiDraw)
+        {
+            this.batchFirstVertices.clear();
+            this.batchVertexCounts.clear();
+
+            for (int i = start; i < end; ++i)
+            {
+                VertexArena.Allocation allocation = this.meshes.get(i).allocation;
+                this.batchFirstVertices.put(allocation.getFirstVertex());
+                this.batchVertexCounts.put(allocation.getVertexCount());
+            }
+
+            this.batchFirstVertices.flip();
+            this.batchVertexCounts.flip();
+            GL14.glMultiDrawArrays(glMode, this.batchFirstVertices, this.batchVertexCounts);
+        }
+        else
+        {
+            for (int i = start; i < end; ++i)
+            {
+                VertexArena.Allocation allocation = this.meshes.get(i).allocation;
+                GlStateManager.glDrawArrays(glMode, allocation.getFirstVertex(), allocation.getVertexCount());
+            }
+        }
 
         GlStateManager.popMatrix();
+
+        return arena;
     }
 
     private void setupArrayPointersBlocks()
@@ -85,4 +187,21 @@ public class VboRenderListSchematic extends ChunkRenderContainerSchematic
         GlStateManager.glVertexPointer(3, GL11.GL_FLOAT, 16, 0);
         GlStateManager.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 16, 12);
     }
+
+    private static class Mesh
+    {
+        private final VertexArena.Allocation allocation;
+        private final BlockPos origin;
+
+        private Mesh(VertexArena.Allocation allocation, BlockPos origin)
+        {
+            this.allocation = allocation;
+            this.origin = origin;
+        }
+
+        private boolean canBatchWith(Mesh other)
+        {
+            return this.allocation.getArena() == other.allocation.getArena() && this.origin.equals(other.origin);
+        }
+    }
 }
@@ -0,0 +1,224 @@
+package fi.dy.masa.litematica.render.schematic;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.lwjgl.opengl.ARBVertexBufferObject;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GLContext;
+import net.minecraft.client.renderer.OpenGlHelper;
+
+/**
+ * One large GL vertex buffer, which is shared by the meshes of many render chunks.
+ * The buffer is sub-allocated in whole vertices using a first-fit free list,
+ * so that the meshes can be drawn with glDrawArrays() using their first vertex index.
+ * All the GL methods must be called on the client thread.
+ */
+public class VertexArena
+{
+    private static int nextId;
+
+    private final int id;
+    private final int vertexSize;
+    private final int capacityVertices;
+    /** The free vertex ranges, as first vertex -> vertex count */
+    private final TreeMap<Integer, Integer> freeRanges = new TreeMap<>();
+    private int glBufferId;
+    private int usedVertices;
+
+    VertexArena(int vertexSize, int capacityVertices)
+    {
+        this.id = nextId++;
+        this.vertexSize = vertexSize;
+        this.capacityVertices = capacityVertices;
+        this.freeRanges.put(0, capacityVertices);
+        this.glBufferId = OpenGlHelper.glGenBuffers();
+
+        this.bindBuffer();
+
+        if (useArbFunctions())
+        {
+            ARBVertexBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, (long) capacityVertices * vertexSize, ARBVertexBufferObject.GL_STATIC_DRAW_ARB);
+        }
+        else
+        {
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, (long) capacityVertices * vertexSize, GL15.GL_STATIC_DRAW);
+        }
+
+        this.unbindBuffer();
+    }
+
+    /**
+     * @return a unique id for this arena, used for grouping the meshes by their arena
+     */
+    public int getId()
+    {
+        return this.id;
+    }
+
+    public int getVertexSize()
+    {
+        return this.vertexSize;
+    }
+
+    public int getCapacityBytes()
+    {
+        return this.capacityVertices * this.vertexSize;
+    }
+
+    public int getUsedBytes()
+    {
+        return this.usedVertices * this.vertexSize;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.usedVertices == 0;
+    }
+
+    /**
+     * @return a new allocation for the given number of vertices, or null if there is no large enough free range left
+     */
+    @Nullable
+    Allocation allocate(int vertexCount)
+    {
+        for (Map.Entry<Integer, Integer> entry : this.freeRanges.entrySet())
+        {
+            final int start = entry.getKey();
+            final int length = entry.getValue();
+
+            if (length >= vertexCount)
+            {
+                this.freeRanges.remove(start);
+
+                if (length > vertexCount)
+                {
+                    this.freeRanges.put(start + vertexCount, length - vertexCount);
+                }
+
+                this.usedVertices += vertexCount;
+
+                return new Allocation(this, start, vertexCount);
+            }
+        }
+
+        return null;
+    }
+
+    void free(Allocation allocation)
+    {
+        int start = allocation.firstVertex;
+        int length = allocation.capacityVertices;
+        this.usedVertices -= length;
+
+        // Merge with the adjacent free ranges
+        Map.Entry<Integer, Integer> previous = this.freeRanges.floorEntry(start);
+
+        if (previous != null && previous.getKey() + previous.getValue() == start)
+        {
+            start = previous.getKey();
+            length += previous.getValue();
+            this.freeRanges.remove(previous.getKey());
+        }
+
+        Integer nextLength = this.freeRanges.remove(start + length);
+
+        if (nextLength != null)
+        {
+            length += nextLength;
+        }
+
+        this.freeRanges.put(start, length);
+    }
+
+    /**
+     * Uploads the given vertex data to the given allocation in this arena.
+     * The data must not be larger than the allocation.
+     */
+    void upload(Allocation allocation, ByteBuffer data)
+    {
+        this.bindBuffer();
+
+        if (useArbFunctions())
+        {
+            ARBVertexBufferObject.glBufferSubDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, (long) allocation.firstVertex * this.vertexSize, data);
+        }
+        else
+        {
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, (long) allocation.firstVertex * this.vertexSize, data);
+        }
+
+        this.unbindBuffer();
+    }
+
+    public void bindBuffer()
+    {
+        OpenGlHelper.glBindBuffer(OpenGlHelper.GL_ARRAY_BUFFER, this.glBufferId);
+    }
+
+    public void unbindBuffer()
+    {
+        OpenGlHelper.glBindBuffer(OpenGlHelper.GL_ARRAY_BUFFER, 0);
+    }
+
+    void delete()
+    {
+        if (this.glBufferId >= 0)
+        {
+            OpenGlHelper.glDeleteBuffers(this.glBufferId);
+            this.glBufferId = -1;
+        }
+    }
+
+    private static boolean useArbFunctions()
+    {
+        return GLContext.getCapabilities().OpenGL15 == false;
+    }
+
+    /**
+     * A range of vertices in an arena, used by one mesh
+     */
+    public static class Allocation
+    {
+        private final VertexArena arena;
+        private final int firstVertex;
+        private final int capacityVertices;
+        private int vertexCount;
+
+        private Allocation(VertexArena arena, int firstVertex, int capacityVertices)
+        {
+            this.arena = arena;
+            this.firstVertex = firstVertex;
+            this.capacityVertices = capacityVertices;
+        }
+
+        public VertexArena getArena()
+        {
+            return this.arena;
+        }
+
+        public int getFirstVertex()
+        {
+            return this.firstVertex;
+        }
+
+        public int getCapacity()
+        {
+            return this.capacityVertices;
+        }
+
+        /**
+         * @return the number of vertices in the mesh currently stored in this allocation
+         */
+        public int getVertexCount()
+        {
+            return this.vertexCount;
+        }
+
+        void setVertexCount(int vertexCount)
+        {
+            this.vertexCount = vertexCount;
+        }
+    }
+}
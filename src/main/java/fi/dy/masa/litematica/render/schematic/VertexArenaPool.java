@@ -0,0 +1,153 @@
+package fi.dy.masa.litematica.render.schematic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Manages the shared vertex arenas of the schematic render chunks.
+ * Each vertex format (identified by its vertex size) has its own set of arenas,
+ * and new arenas are created when the existing ones don't have enough free space.
+ * The meshes are allocated with some rounding, so that a re-compiled mesh
+ * of a similar size can usually be uploaded in place.
+ * The allocation and upload methods must be called on the client thread.
+ */
+public class VertexArenaPool
+{
+    private static final int ARENA_SIZE_BYTES = 4 * 1024 * 1024;
+    private static final int ALLOCATION_GRANULARITY = 256;
+
+    private final Map<Integer, List<VertexArena>> arenas = new HashMap<>();
+
+    /**
+     * Uploads the finished vertex data in the given buffer into an arena, re-using the
+     * existing allocation if the data still fits in it, and resets the buffer.
+     * @return the allocation now holding the data, or null if the buffer was empty
+     */
+    @Nullable
+    public synchronized VertexArena.Allocation upload(@Nullable VertexArena.Allocation existing, BufferBuilder buffer)
+    {
+        final int vertexCount = buffer.getVertexCount();
+        final int vertexSize = buffer.getVertexFormat().getSize();
+        VertexArena.Allocation allocation = existing;
+
+        if (allocation != null &&
+            (allocation.getArena().getVertexSize() != vertexSize ||
+             allocation.getCapacity() < vertexCount ||
+             allocation.getCapacity() > roundUp(vertexCount) * 2))
+        {
+            this.free(allocation);
+            allocation = null;
+        }
+
+        if (vertexCount == 0)
+        {
+            if (allocation != null)
+            {
+                this.free(allocation);
+            }
+
+            buffer.reset();
+            return null;
+        }
+
+        if (allocation == null)
+        {
+            allocation = this.allocate(vertexSize, roundUp(vertexCount));
+        }
+
+        allocation.getArena().upload(allocation, buffer.getByteBuffer());
+        allocation.setVertexCount(vertexCount);
+        buffer.reset();
+
+        return allocation;
+    }
+
+    public synchronized void free(VertexArena.Allocation allocation)
+    {
+        allocation.getArena().free(allocation);
+    }
+
+    private VertexArena.Allocation allocate(int vertexSize, int vertexCount)
+    {
+        List<VertexArena> list = this.arenas.computeIfAbsent(vertexSize, (size) -> new ArrayList<>());
+
+        for (VertexArena arena : list)
+        {
+            VertexArena.Allocation allocation = arena.allocate(vertexCount);
+
+            if (allocation != null)
+            {
+                return allocation;
+            }
+        }
+
+        // Very large meshes get an arena of their own
+        VertexArena arena = new VertexArena(vertexSize, Math.max(ARENA_SIZE_BYTES / vertexSize, vertexCount));
+        list.add(arena);
+
+        return arena.allocate(vertexCount);
+    }
+
+    /**
+     * Deletes the arenas that don't have any meshes in them anymore,
+     * except for one arena per vertex format.
+     */
+    public synchronized void deleteEmptyArenas()
+    {
+        for (List<VertexArena> list : this.arenas.values())
+        {
+            Iterator<VertexArena> iter = list.iterator();
+
+            while (iter.hasNext() && list.size() > 1)
+            {
+                VertexArena arena = iter.next();
+
+                if (arena.isEmpty())
+                {
+                    arena.delete();
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    public synchronized void deleteAll()
+    {
+        for (List<VertexArena> list : this.arenas.values())
+        {
+            list.forEach(VertexArena::delete);
+        }
+
+        this.arenas.clear();
+    }
+
+    public synchronized String getDebugInfo()
+    {
+        int count = 0;
+        long used = 0;
+        long capacity = 0;
+
+        for (List<VertexArena> list : this.arenas.values())
+        {
+            for (VertexArena arena : list)
+            {
+                ++count;
+                used += arena.getUsedBytes();
+                capacity += arena.getCapacityBytes();
+            }
+        }
+
+        return String.format("VA: %d, %.1f/%.1f MB", count, used / 1048576.0, capacity / 1048576.0);
+    }
+
+    private static int roundUp(int vertexCount)
+    {
+        return MathHelper.roundUp(Math.max(vertexCount, 1), ALLOCATION_GRANULARITY);
+    }
+}
@@ -16,6 +16,7 @@ public class ClientTickHandler implements fi.dy.masa.malilib.event.ClientTickHan
         DataManager.getRenderLayerRange().followPlayerIfEnabled(mc.player);
         DataManager.getSchematicPlacementManager().processQueuedChunks();
         TaskScheduler.getInstanceClient().runTasks();
+        SchematicVerifierManager.INSTANCE.processChangedBlocks();
 
         if ((this.tickCounter) % 10 == 0)
         {
@@ -47,4 +47,47 @@ public interface ITask
      * @param interval
      */
     void createTimer(int interval);
+
+    /**
+     * Returns the priority of this task, which is used to order the tasks
+     * and to divide the per-tick time budget between them
+     */
+    default TaskPriority getPriority()
+    {
+        return TaskPriority.NORMAL;
+    }
+
+    /**
+     * Sets the System.nanoTime() deadline for the current execution of this task.
+     * Tasks that process their work in smaller pieces should stop and
+     * continue on the next execution once this deadline has passed.
+     * @param deadline the deadline, or 0 for no time limit
+     */
+    default void setExecutionDeadline(long deadline)
+    {
+    }
+
+    /**
+     * Called by the scheduler after each execution of this task
+     * @param nanos the time the execution took, in nanoseconds
+     */
+    default void onExecuted(long nanos)
+    {
+    }
+
+    /**
+     * Returns the total time spent executing this task so far, in nanoseconds
+     */
+    default long getTotalExecutionTime()
+    {
+        return 0;
+    }
+
+    /**
+     * Returns the number of work items (for example chunks) processed by this task so far
+     */
+    default long getProcessedItemCount()
+    {
+        return 0;
+    }
 }
@@ -0,0 +1,23 @@
+package fi.dy.masa.litematica.scheduler;
+
+public enum TaskPriority
+{
+    LOW     (1),
+    NORMAL  (2),
+    HIGH    (4);
+
+    private final int weight;
+
+    TaskPriority(int weight)
+    {
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the relative share of the per-tick time budget that tasks of this priority get
+     */
+    public int getWeight()
+    {
+        return this.weight;
+    }
+}
@@ -1,18 +1,23 @@
 package fi.dy.masa.litematica.scheduler;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import net.minecraft.client.Minecraft;
+import fi.dy.masa.litematica.config.Configs;
 
 public class TaskScheduler
 {
     private static final TaskScheduler INSTANCE_CLIENT = new TaskScheduler();
     private static final TaskScheduler INSTANCE_SERVER = new TaskScheduler();
+    private static final Comparator<ITask> PRIORITY_COMPARATOR = Comparator.comparingInt((ITask task) -> task.getPriority().getWeight()).reversed();
 
     private final List<ITask> tasks = new ArrayList<>();
     private final List<ITask> tasksToAdd = new ArrayList<>();
+    private int rotation;
 
     private TaskScheduler()
     {
@@ -52,26 +57,15 @@ public class TaskScheduler
         {
             if (this.tasks.isEmpty() == false)
             {
-                for (int i = 0; i < this.tasks.size(); ++i)
+                final long budget = Configs.Generic.TASK_TICK_TIME_BUDGET.getIntegerValue() * 1000L;
+
+                if (budget > 0)
+                {
+                    this.runTasksWithinBudget(budget);
+                }
+                else
                 {
-                    boolean finished = false;
-                    ITask task = this.tasks.get(i);
-
-                    if (task.shouldRemove())
-                    {
-                        finished = true;
-                    }
-                    else if (task.canExecute() && task.getTimer().tick())
-                    {
-                        finished = task.execute();
-                    }
-
-                    if (finished)
-                    {
-                        task.stop();
-                        this.tasks.remove(i);
-                        --i;
-                    }
+                    this.runAllTasks();
                 }
             }
 
@@ -82,6 +76,89 @@ public class TaskScheduler
         }
     }
 
+    private void runAllTasks()
+    {
+        for (int i = 0; i < this.tasks.size(); ++i)
+        {
+            boolean finished = false;
+            ITask task = this.tasks.get(i);
+
+            if (task.shouldRemove())
+            {
+                finished = true;
+            }
+            else if (task.canExecute() && task.getTimer().tick())
+            {
+                finished = this.executeTask(task, 0L);
+            }
+
+            if (finished)
+            {
+                task.stop();
+                this.tasks.remove(i);
+                --i;
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks in priority order, dividing the given time budget between them
+     * according to their priority weights. Tasks of the same priority take turns
+     * at running first. Each task still gets executed at least briefly even if
+     * the budget has already been used up, so that all of them keep progressing.
+     * @param budget the total time budget for this tick, in nanoseconds
+     */
+    private void runTasksWithinBudget(long budget)
+    {
+        List<ITask> orderedTasks = new ArrayList<>(this.tasks);
+        List<ITask> tasksToRun = new ArrayList<>();
+        int remainingWeight = 0;
+
+        Collections.rotate(orderedTasks, -(this.rotation++ % orderedTasks.size()));
+        orderedTasks.sort(PRIORITY_COMPARATOR);
+
+        for (ITask task : orderedTasks)
+        {
+            if (task.shouldRemove())
+            {
+                task.stop();
+                this.tasks.remove(task);
+            }
+            else if (task.canExecute() && task.getTimer().tick())
+            {
+                tasksToRun.add(task);
+                remainingWeight += task.getPriority().getWeight();
+            }
+        }
+
+        final long tickDeadline = System.nanoTime() + budget;
+
+        for (ITask task : tasksToRun)
+        {
+            final long currentTime = System.nanoTime();
+            final int weight = task.getPriority().getWeight();
+            long slice = Math.max(tickDeadline - currentTime, 0L) * weight / remainingWeight;
+            remainingWeight -= weight;
+
+            if (this.executeTask(task, currentTime + Math.max(slice, 1L)))
+            {
+                task.stop();
+                this.tasks.remove(task);
+            }
+        }
+    }
+
+    private boolean executeTask(ITask task, long deadline)
+    {
+        long startTime = System.nanoTime();
+
+        task.setExecutionDeadline(deadline);
+        boolean finished = task.execute();
+        task.onExecuted(System.nanoTime() - startTime);
+
+        return finished;
+    }
+
     private void addNewTasks()
     {
         for (ITask task : this.tasksToAdd)
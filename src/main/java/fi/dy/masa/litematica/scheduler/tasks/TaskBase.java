@@ -2,6 +2,7 @@ package fi.dy.masa.litematica.scheduler.tasks;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import javax.annotation.Nullable;
 import net.minecraft.client.Minecraft;
@@ -16,6 +17,7 @@ import fi.dy.masa.litematica.render.infohud.IInfoHudRenderer;
 import fi.dy.masa.litematica.render.infohud.InfoHud;
 import fi.dy.masa.litematica.render.infohud.RenderPhase;
 import fi.dy.masa.litematica.scheduler.ITask;
+import fi.dy.masa.litematica.scheduler.TaskPriority;
 import fi.dy.masa.litematica.scheduler.TaskTimer;
 import fi.dy.masa.litematica.util.PositionUtils;
 
@@ -26,8 +28,12 @@ public abstract class TaskBase implements ITask, IInfoHudRenderer
     protected final Minecraft mc;
     protected String name = "";
     protected List<String> infoHudLines = new ArrayList<>();
+    protected TaskPriority priority = TaskPriority.NORMAL;
     protected boolean finished;
     protected boolean printCompletionMessage = true;
+    protected long executionDeadline;
+    protected long totalExecutionTime;
+    protected long processedItemCount;
     @Nullable private TaskCompletionListener completionListener;
 
     protected TaskBase()
@@ -53,6 +59,55 @@ public abstract class TaskBase implements ITask, IInfoHudRenderer
         this.timer = new TaskTimer(interval);
     }
 
+    @Override
+    public TaskPriority getPriority()
+    {
+        return this.priority;
+    }
+
+    public void setPriority(TaskPriority priority)
+    {
+        this.priority = priority;
+    }
+
+    @Override
+    public void setExecutionDeadline(long deadline)
+    {
+        this.executionDeadline = deadline;
+    }
+
+    /**
+     * Returns true if the time budget given by the scheduler
+     * for the current execution of this task has been used up
+     */
+    protected boolean isTimeBudgetExhausted()
+    {
+        return this.executionDeadline != 0 && System.nanoTime() >= this.executionDeadline;
+    }
+
+    @Override
+    public void onExecuted(long nanos)
+    {
+        this.totalExecutionTime += nanos;
+    }
+
+    @Override
+    public long getTotalExecutionTime()
+    {
+        return this.totalExecutionTime;
+    }
+
+    @Override
+    public long getProcessedItemCount()
+    {
+        return this.processedItemCount;
+    }
+
+    protected void addProcessedItems(int count)
+    {
+        this.processedItemCount += count;
+    }
+
     public void disableCompletionMessage()
     {
         this.printCompletionMessage = false;
@@ -164,6 +219,21 @@ public abstract class TaskBase implements ITask, IInfoHudRenderer
     @Override
     public List<String> getText(RenderPhase phase)
     {
+        if (Configs.InfoOverlays.TASK_STATISTICS_ON_HUD.getBooleanValue() && this.infoHudLines.isEmpty() == false)
+        {
+            List<String> lines = new ArrayList<>(this.infoHudLines);
+            lines.add(1, getStatisticsString(this));
+            return lines;
+        }
+
         return this.infoHudLines;
     }
+
+    public static String getStatisticsString(ITask task)
+    {
+        double totalMs = task.getTotalExecutionTime() / 1000000.0;
+        String priority = task.getPriority().name().toLowerCase(Locale.ROOT);
+        return StringUtils.translate("litematica.hud.task_statistics", String.format("%.1f", totalMs),
+                                     task.getProcessedItemCount(), priority);
+    }
 }
@@ -1,7 +1,10 @@
 package fi.dy.masa.litematica.scheduler.tasks;
 
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
 import fi.dy.masa.litematica.materials.IMaterialList;
 import fi.dy.masa.litematica.selection.AreaSelection;
 
@@ -19,9 +22,14 @@ public class TaskCountBlocksArea extends TaskCountBlocksMaterialList
     }
 
     @Override
-    protected void countAtPosition(BlockPos pos)
+    protected void countAtPosition(BlockPos pos,
+                                   IBlockAccess clientWorld,
+                                   @Nullable IBlockAccess schematicWorld,
+                                   Object2LongOpenHashMap<IBlockState> countsTotal,
+                                   Object2LongOpenHashMap<IBlockState> countsMissing,
+                                   Object2LongOpenHashMap<IBlockState> countsMismatch)
     {
-        IBlockState stateClient = this.worldClient.getBlockState(pos).getActualState(this.worldClient, pos);
-        this.countsTotal.addTo(stateClient, 1);
+        IBlockState stateClient = clientWorld.getBlockState(pos).getActualState(clientWorld, pos);
+        countsTotal.addTo(stateClient, 1);
     }
 }
@@ -1,5 +1,8 @@
 package fi.dy.masa.litematica.scheduler.tasks;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.EnumFacing;
@@ -7,6 +10,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.malilib.util.position.LayerRange;
+import fi.dy.masa.litematica.scheduler.TaskPriority;
 
 public abstract class TaskCountBlocksBase extends TaskProcessChunkBase
 {
@@ -15,6 +19,8 @@ public abstract class TaskCountBlocksBase extends TaskProcessChunkBase
     protected TaskCountBlocksBase(String nameOnHud)
     {
         super(nameOnHud);
+
+        this.priority = TaskPriority.LOW;
     }
 
     @Override
@@ -26,35 +32,18 @@ public abstract class TaskCountBlocksBase extends TaskProcessChunkBase
 
     protected void countBlocksInChunk(ChunkPos pos)
     {
-        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
-
-        for (IntBoundingBox bb : this.getBoxesInChunk(pos))
-        {
-            final int startX = bb.minX;
-            final int startY = bb.minY;
-            final int startZ = bb.minZ;
-            final int endX = bb.maxX;
-            final int endY = bb.maxY;
-            final int endZ = bb.maxZ;
-
-            for (int y = startY; y <= endY; ++y)
-            {
-                for (int z = startZ; z <= endZ; ++z)
-                {
-                    for (int x = startX; x <= endX; ++x)
-                    {
-                        posMutable.setPos(x, y, z);
-                        this.countAtPosition(posMutable);
-                    }
-                }
-            }
-        }
+        this.countBlocksInBoxes(this.getBoxesInChunk(pos), this::countAtPosition);
     }
 
     protected void countBlocksInChunkRespectingLayerRange(ChunkPos pos, LayerRange range)
+    {
+        this.countBlocksInBoxes(this.getLayerRangeClampedBoxesInChunk(pos, range), this::countAtPosition);
+    }
+
+    protected List<IntBoundingBox> getLayerRangeClampedBoxesInChunk(ChunkPos pos, LayerRange range)
     {
         EnumFacing.Axis axis = range.getAxis();
-        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
+        List<IntBoundingBox> list = new ArrayList<>();
 
         for (IntBoundingBox bb : this.getBoxesInChunk(pos))
         {
@@ -65,6 +54,32 @@ public abstract class TaskCountBlocksBase extends TaskProcessChunkBase
             final int endY = axis == EnumFacing.Axis.Y ? Math.min(bb.maxY, range.getMaxLayerBoundary()) : bb.maxY;
             final int endZ = axis == EnumFacing.Axis.Z ? Math.min(bb.maxZ, range.getMaxLayerBoundary()) : bb.maxZ;
 
+            if (startX <= endX && startY <= endY && startZ <= endZ)
+            {
+                list.add(new IntBoundingBox(startX, startY, startZ, endX, endY, endZ));
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Calls the counter for every position within the given boxes.
+     * This doesn't touch any of the task's state, so it can also be used from the worker threads.
+     */
+    protected void countBlocksInBoxes(List<IntBoundingBox> boxes, Consumer<BlockPos> counter)
+    {
+        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
+
+        for (IntBoundingBox bb : boxes)
+        {
+            final int startX = bb.minX;
+            final int startY = bb.minY;
+            final int startZ = bb.minZ;
+            final int endX = bb.maxX;
+            final int endY = bb.maxY;
+            final int endZ = bb.maxZ;
+
             for (int y = startY; y <= endY; ++y)
             {
                 for (int z = startZ; z <= endZ; ++z)
@@ -72,7 +87,7 @@ public abstract class TaskCountBlocksBase extends TaskProcessChunkBase
                     for (int x = startX; x <= endX; ++x)
                     {
                         posMutable.setPos(x, y, z);
-                        this.countAtPosition(posMutable);
+                        counter.accept(posMutable);
                     }
                 }
             }
@@ -1,9 +1,15 @@
 package fi.dy.masa.litematica.scheduler.tasks;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.malilib.util.position.LayerRange;
 import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.materials.IMaterialList;
@@ -11,6 +17,7 @@ import fi.dy.masa.litematica.materials.MaterialListEntry;
 import fi.dy.masa.litematica.materials.MaterialListUtils;
 import fi.dy.masa.litematica.render.infohud.InfoHud;
 import fi.dy.masa.litematica.util.BlockInfoListType;
+import fi.dy.masa.litematica.world.BlockRegionSnapshot;
 import fi.dy.masa.litematica.world.SchematicWorldRenderingNotifier;
 
 public abstract class TaskCountBlocksMaterialList extends TaskCountBlocksBase
@@ -43,6 +50,56 @@ public abstract class TaskCountBlocksMaterialList extends TaskCountBlocksBase
         return true;
     }
 
+    @Override
+    protected Callable<Runnable> createBackgroundJob(ChunkPos pos)
+    {
+        final List<IntBoundingBox> boxes = this.getLayerRangeClampedBoxesInChunk(pos, this.layerRange);
+        World schematicWorld = this.getSchematicWorld();
+        // The margin of one block is for the neighbor lookups in getActualState()
+        final IBlockAccess clientSnapshot = BlockRegionSnapshot.create(this.worldClient, boxes, 1, true);
+        final IBlockAccess schematicSnapshot = schematicWorld != null ? BlockRegionSnapshot.create(schematicWorld, boxes, 1, true) : null;
+
+        return () -> {
+            Object2LongOpenHashMap<IBlockState> total = new Object2LongOpenHashMap<>();
+            Object2LongOpenHashMap<IBlockState> missing = new Object2LongOpenHashMap<>();
+            Object2LongOpenHashMap<IBlockState> mismatch = new Object2LongOpenHashMap<>();
+
+            this.countBlocksInBoxes(boxes, p -> this.countAtPosition(p, clientSnapshot, schematicSnapshot, total, missing, mismatch));
+
+            return () -> {
+                total.object2LongEntrySet().forEach(e -> this.countsTotal.addTo(e.getKey(), e.getLongValue()));
+                missing.object2LongEntrySet().forEach(e -> this.countsMissing.addTo(e.getKey(), e.getLongValue()));
+                mismatch.object2LongEntrySet().forEach(e -> this.countsMismatch.addTo(e.getKey(), e.getLongValue()));
+            };
+        };
+    }
+
+    /**
+     * Returns the schematic world to compare against, if any
+     */
+    @Nullable
+    protected World getSchematicWorld()
+    {
+        return null;
+    }
+
+    @Override
+    protected void countAtPosition(BlockPos pos)
+    {
+        this.countAtPosition(pos, this.worldClient, this.getSchematicWorld(), this.countsTotal, this.countsMissing, this.countsMismatch);
+    }
+
+    /**
+     * Counts the block at the given position. This gets called from the worker threads
+     * with world snapshots, so this must only use the given worlds and count maps.
+     */
+    protected abstract void countAtPosition(BlockPos pos,
+                                            IBlockAccess clientWorld,
+                                            @Nullable IBlockAccess schematicWorld,
+                                            Object2LongOpenHashMap<IBlockState> countsTotal,
+                                            Object2LongOpenHashMap<IBlockState> countsMissing,
+                                            Object2LongOpenHashMap<IBlockState> countsMismatch);
+
     @Override
     protected void onStop()
     {
@@ -1,9 +1,13 @@
 package fi.dy.masa.litematica.scheduler.tasks;
 
 import java.util.Collection;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
 import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.materials.IMaterialList;
@@ -50,24 +54,40 @@ public class TaskCountBlocksPlacement extends TaskCountBlocksMaterialList
     }
 
     @Override
-    protected void countAtPosition(BlockPos pos)
+    protected World getSchematicWorld()
     {
-        IBlockState stateSchematic = this.worldSchematic.getBlockState(pos).getActualState(this.worldSchematic, pos);
+        return this.worldSchematic;
+    }
+
+    @Override
+    protected void countAtPosition(BlockPos pos,
+                                   IBlockAccess clientWorld,
+                                   @Nullable IBlockAccess schematicWorld,
+                                   Object2LongOpenHashMap<IBlockState> countsTotal,
+                                   Object2LongOpenHashMap<IBlockState> countsMissing,
+                                   Object2LongOpenHashMap<IBlockState> countsMismatch)
+    {
+        if (schematicWorld == null)
+        {
+            return;
+        }
+
+        IBlockState stateSchematic = schematicWorld.getBlockState(pos).getActualState(schematicWorld, pos);
 
         if (stateSchematic.getBlock() != Blocks.AIR)
         {
-            IBlockState stateClient = this.worldClient.getBlockState(pos).getActualState(this.worldClient, pos);
+            IBlockState stateClient = clientWorld.getBlockState(pos).getActualState(clientWorld, pos);
 
-            this.countsTotal.addTo(stateSchematic, 1);
+            countsTotal.addTo(stateSchematic, 1);
 
             if (stateClient.getBlock() == Blocks.AIR)
             {
-                this.countsMissing.addTo(stateSchematic, 1);
+                countsMissing.addTo(stateSchematic, 1);
             }
             else if (this.ignoreState ? stateClient.getBlock() != stateSchematic.getBlock() : stateClient != stateSchematic)
             {
-                this.countsMissing.addTo(stateSchematic, 1);
-                this.countsMismatch.addTo(stateSchematic, 1);
+                countsMissing.addTo(stateSchematic, 1);
+                countsMismatch.addTo(stateSchematic, 1);
             }
         }
     }
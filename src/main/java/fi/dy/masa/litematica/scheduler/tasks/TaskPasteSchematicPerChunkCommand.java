@@ -92,6 +92,7 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
                     {
                         this.boxesInChunks.removeAll(pos);
                         this.chunks.remove(0);
+                        this.addProcessedItems(1);
                         ++processed;
 
                         if (this.chunks.isEmpty())
@@ -82,6 +82,11 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
                     this.chunks.remove(chunkIndex);
                     --chunkIndex;
                 }
+
+                if (this.isTimeBudgetExhausted())
+                {
+                    break;
+                }
             }
         }
 
@@ -93,6 +98,7 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
 
         if (processed > 0)
         {
+            this.addProcessedItems(processed);
             this.updateInfoHudLines();
         }
 
@@ -1,11 +1,20 @@
 package fi.dy.masa.litematica.scheduler.tasks;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nullable;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
@@ -14,17 +23,26 @@ import fi.dy.masa.malilib.util.StringUtils;
 import fi.dy.masa.malilib.util.WorldUtils;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.malilib.util.position.LayerRange;
+import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.render.infohud.InfoHud;
 import fi.dy.masa.litematica.selection.Box;
 import fi.dy.masa.litematica.util.PositionUtils;
+import fi.dy.masa.litematica.world.BlockRegionSnapshot;
 
 public abstract class TaskProcessChunkBase extends TaskBase
 {
+    private static final int WORKER_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int MAX_PENDING_JOBS = WORKER_COUNT * 4;
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Chunk Processing Worker %d").setDaemon(true).build();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(WORKER_COUNT, THREAD_FACTORY);
+
     protected final ArrayListMultimap<ChunkPos, IntBoundingBox> boxesInChunks = ArrayListMultimap.create();
     protected final Set<ChunkPos> requiredChunks = new HashSet<>();
     protected final WorldClient worldClient;
     protected final World world;
     protected final boolean isClientWorld;
+    private final Map<ChunkPos, Future<Runnable>> pendingJobs = new HashMap<>();
 
     protected TaskProcessChunkBase(String nameOnHud)
     {
@@ -43,39 +61,121 @@ public abstract class TaskProcessChunkBase extends TaskBase
     {
         if (this.worldClient != null)
         {
+            int processed = this.applyCompletedBackgroundJobs();
+            final boolean useWorkers = Configs.Generic.BACKGROUND_CHUNK_PROCESSING.getBooleanValue();
             Iterator<ChunkPos> iter = this.requiredChunks.iterator();
-            int processed = 0;
 
             while (iter.hasNext())
             {
                 ChunkPos pos = iter.next();
 
-                if (this.canProcessChunk(pos) == false)
+                // Wait for the previous job of the same chunk to finish first
+                if (this.pendingJobs.containsKey(pos) || this.canProcessChunk(pos) == false)
                 {
                     continue;
                 }
 
-                if (this.processChunk(pos))
+                Callable<Runnable> job = useWorkers ? this.createBackgroundJob(pos) : null;
+
+                if (job != null)
+                {
+                    iter.remove();
+                    this.pendingJobs.put(pos, WORKERS.submit(job));
+
+                    if (this.pendingJobs.size() >= MAX_PENDING_JOBS)
+                    {
+                        break;
+                    }
+                }
+                else if (this.processChunk(pos))
                 {
                     iter.remove();
                     processed++;
                 }
+
+                // Continue from the remaining chunks on the next execution
+                if (this.isTimeBudgetExhausted())
+                {
+                    break;
+                }
             }
 
             if (processed > 0)
             {
+                this.addProcessedItems(processed);
                 this.updateInfoHudLinesMissingChunks(this.requiredChunks);
             }
         }
 
-        this.finished = this.requiredChunks.isEmpty();
+        this.finished = this.requiredChunks.isEmpty() && this.pendingJobs.isEmpty();
 
         return this.finished;
     }
 
+    /**
+     * Merges the results of the finished background jobs on the client thread.
+     * If a job failed, then its chunk is processed directly instead.
+     * @return the number of chunks completed
+     */
+    private int applyCompletedBackgroundJobs()
+    {
+        Iterator<Map.Entry<ChunkPos, Future<Runnable>>> iter = this.pendingJobs.entrySet().iterator();
+        int processed = 0;
+
+        while (iter.hasNext())
+        {
+            Map.Entry<ChunkPos, Future<Runnable>> entry = iter.next();
+            Future<Runnable> future = entry.getValue();
+
+            if (future.isDone() == false)
+            {
+                continue;
+            }
+
+            iter.remove();
+
+            try
+            {
+                future.get().run();
+                processed++;
+            }
+            catch (Exception e)
+            {
+                Litematica.logger.warn("Background processing of chunk {} failed, processing it directly", entry.getKey(), e);
+
+                if (this.processChunk(entry.getKey()))
+                {
+                    processed++;
+                }
+                else
+                {
+                    this.requiredChunks.add(entry.getKey());
+                }
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * Creates a job that processes the given chunk on a worker thread.
+     * This is called on the client thread, so any world data that the job needs
+     * must be captured here (for example via {@link BlockRegionSnapshot}).
+     * The returned Runnable is then run on the client thread to merge the results.
+     * @return the job, or null if this chunk should be processed directly via {@link #processChunk(ChunkPos)}
+     */
+    @Nullable
+    protected Callable<Runnable> createBackgroundJob(ChunkPos pos)
+    {
+        return null;
+    }
+
     @Override
     public void stop()
     {
+        this.pendingJobs.values().forEach(future -> future.cancel(false));
+        this.pendingJobs.clear();
+
         // Multiplayer, just a client world
         if (this.isClientWorld)
         {
@@ -3,15 +3,17 @@ package fi.dy.masa.litematica.schematic;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.math.Vec3i;
 import fi.dy.masa.malilib.overlay.message.MessageDispatcher;
-import fi.dy.masa.malilib.util.nbt.NbtUtils;
 import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.util.NbtUtils;
 
 public interface ISchematic
 {
@@ -106,10 +108,14 @@ public interface ISchematic
 
     /**
      * Writes this schematic to the given file.
+     * The data is first written to a temporary file, which then replaces the target file,
+     * so that a failed write doesn't destroy an existing schematic.
      * @return true on success, false on failure
      */
     default boolean writeToFile(File file, boolean override)
     {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
         try
         {
             if (override == false && file.exists())
@@ -119,9 +125,19 @@ public interface ISchematic
                 return false;
             }
 
-            FileOutputStream os = new FileOutputStream(file);
-            this.writeToStream(this.toTag(), os);
-            os.close();
+            try (FileOutputStream os = new FileOutputStream(tmpFile))
+            {
+                this.writeToStream(this.toTag(), os);
+            }
+
+            try
+            {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
 
             return true;
         }
@@ -130,6 +146,11 @@ public interface ISchematic
             MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exception",
                                     file.getAbsolutePath());
             Litematica.logger.warn("Failed to write schematic to file '{}'", file.getAbsolutePath(), e);
+
+            if (tmpFile.exists() && tmpFile.delete() == false)
+            {
+                Litematica.logger.warn("Failed to delete the temporary file '{}'", tmpFile.getAbsolutePath());
+            }
         }
 
         return false;
@@ -137,7 +158,7 @@ public interface ISchematic
 
     default void writeToStream(NBTTagCompound tag, FileOutputStream outputStream) throws IOException
     {
-        CompressedStreamTools.writeCompressed(tag, outputStream);
+        NbtUtils.writeCompressed(tag, "", outputStream);
     }
 
     /**
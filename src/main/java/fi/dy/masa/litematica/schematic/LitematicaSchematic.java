@@ -1,19 +1,24 @@
 package fi.dy.masa.litematica.schematic;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.nbt.NBTTagLongArray;
+import net.minecraft.nbt.NBTUtil;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
@@ -24,10 +29,12 @@ import fi.dy.masa.malilib.overlay.message.MessageDispatcher;
 import fi.dy.masa.malilib.util.data.Constants;
 import fi.dy.masa.malilib.util.nbt.NbtUtils;
 import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStateContainer;
 import fi.dy.masa.litematica.schematic.container.LitematicaBlockStateContainerFull;
 import fi.dy.masa.litematica.selection.Box;
 import fi.dy.masa.litematica.selection.SelectionBox;
+import fi.dy.masa.litematica.util.NbtStreamReader;
 import fi.dy.masa.litematica.util.PositionUtils;
 
 public class LitematicaSchematic extends SchematicBase
@@ -40,6 +47,8 @@ public class LitematicaSchematic extends SchematicBase
     private final Map<String, Map<BlockPos, NextTickListEntry>> pendingBlockTicks = new HashMap<>();
     private final Map<String, List<EntityInfo>> entities = new HashMap<>();
     private final Map<String, SubRegion> subRegions = new HashMap<>();
+    private final List<Runnable> deferredReadErrors = new ArrayList<>();
+    private boolean deferReadErrors;
 
     LitematicaSchematic(@Nullable File file)
     {
@@ -257,49 +266,301 @@ public class LitematicaSchematic extends SchematicBase
         return false;
     }
 
+    /**
+     * Reads the schematic directly from the compressed file stream, without first
+     * reading the entire tag tree into memory. The block state arrays are read
+     * straight into the containers, and any unknown tags are skipped.
+     */
+    @Override
+    public boolean readFromFile()
+    {
+        return this.readFromFileStream();
+    }
+
+    /**
+     * Reads the schematic like {@link #readFromFile()}, but stores any error messages instead of
+     * showing them, so that this can be called on a background thread. The stored messages
+     * can then be shown on the client thread via {@link #showDeferredReadErrors()}.
+     */
+    public boolean readFromFileWithDeferredErrors()
+    {
+        this.deferReadErrors = true;
+
+        try
+        {
+            return this.readFromFileStream();
+        }
+        finally
+        {
+            this.deferReadErrors = false;
+        }
+    }
+
+    /**
+     * Shows the error messages stored by {@link #readFromFileWithDeferredErrors()}.
+     * This must be called on the client thread.
+     */
+    public void showDeferredReadErrors()
+    {
+        this.deferredReadErrors.forEach(Runnable::run);
+        this.deferredReadErrors.clear();
+    }
+
+    private void readError(String translationKey, Object... args)
+    {
+        if (this.deferReadErrors)
+        {
+            this.deferredReadErrors.add(() -> MessageDispatcher.error().translate(translationKey, args));
+        }
+        else
+        {
+            MessageDispatcher.error().translate(translationKey, args);
+        }
+    }
+
+    private boolean readFromFileStream()
+    {
+        File file = this.getFile();
+
+        if (file == null)
+        {
+            this.readError("litematica.error.schematic_read_from_file_failed.no_file");
+            return false;
+        }
+
+        this.clear();
+
+        try (FileInputStream is = new FileInputStream(file);
+             NbtStreamReader reader = NbtStreamReader.createCompressed(is))
+        {
+            if (this.readFromStream(reader))
+            {
+                return true;
+            }
+        }
+        catch (Exception e)
+        {
+            this.readError("litematica.error.schematic_read_from_file_failed.cant_read", file.getAbsolutePath());
+            Litematica.logger.warn("Failed to read schematic from file '{}'", file.getAbsolutePath(), e);
+        }
+
+        this.clear();
+
+        return false;
+    }
+
+    private boolean readFromStream(NbtStreamReader reader) throws IOException
+    {
+        String fileName = this.getFile() != null ? this.getFile().getAbsolutePath() : "<null>";
+
+        if (reader.readRootCompoundStart() == false)
+        {
+            this.readError("litematica.error.schematic_read_from_file_failed.cant_read", fileName);
+            return false;
+        }
+
+        List<SubRegionData> regions = new ArrayList<>();
+        boolean hasRegions = false;
+        int version = -1;
+        int type;
+
+        while ((type = reader.readTagType()) != Constants.NBT.TAG_END)
+        {
+            String key = reader.readName();
+
+            if (type == Constants.NBT.TAG_INT && key.equals("Version"))
+            {
+                version = reader.readInt();
+            }
+            // The metadata is optional, same as in readMetadataFromTag()
+            else if (type == Constants.NBT.TAG_COMPOUND && key.equals("Metadata"))
+            {
+                this.getMetadata().fromTag(reader.readCompound());
+            }
+            else if (type == Constants.NBT.TAG_COMPOUND && key.equals("Regions"))
+            {
+                this.readSubRegionsFromStream(reader, regions);
+                hasRegions = true;
+            }
+            else
+            {
+                reader.skipPayload(type);
+            }
+        }
+
+        if (version == -1)
+        {
+            this.readError("litematica.error.schematic_load.no_schematic_version_information");
+            return false;
+        }
+
+        if (version < 1 || version > SCHEMATIC_VERSION)
+        {
+            this.readError("litematica.error.schematic_load.unsupported_schematic_version", version);
+            return false;
+        }
+
+        if (hasRegions == false)
+        {
+            this.readError("litematica.error.schematic_read_from_file_failed.cant_read", fileName);
+            return false;
+        }
+
+        // The version tag may come after the regions in the stream,
+        // so the version dependent parts are only handled at the end.
+        // The stream was already read serially, and the remaining decoding is light,
+        // so doing it in parallel would only add overhead here.
+        return this.addSubRegions(regions, version, false);
+    }
+
+    private void readSubRegionsFromStream(NbtStreamReader reader, List<SubRegionData> regions) throws IOException
+    {
+        int type;
+
+        while ((type = reader.readTagType()) != Constants.NBT.TAG_END)
+        {
+            String regionName = reader.readName();
+
+            if (type == Constants.NBT.TAG_COMPOUND)
+            {
+                regions.add(this.readSubRegionFromStream(regionName, reader));
+            }
+            else
+            {
+                reader.skipPayload(type);
+            }
+        }
+    }
+
+    private SubRegionData readSubRegionFromStream(String regionName, NbtStreamReader reader) throws IOException
+    {
+        SubRegionData region = new SubRegionData(regionName);
+        int type;
+
+        while ((type = reader.readTagType()) != Constants.NBT.TAG_END)
+        {
+            String key = reader.readName();
+
+            if (type == Constants.NBT.TAG_LONG_ARRAY && key.equals("BlockStates"))
+            {
+                region.blockStates = reader.readLongArray();
+            }
+            else if (type == Constants.NBT.TAG_LIST && key.equals("BlockStatePalette"))
+            {
+                region.palette = this.readPaletteFromStream(reader);
+            }
+            else if (type == Constants.NBT.TAG_COMPOUND && key.equals("Position"))
+            {
+                region.pos = NbtUtils.readBlockPos(reader.readCompound());
+            }
+            else if (type == Constants.NBT.TAG_COMPOUND && key.equals("Size"))
+            {
+                region.size = NbtUtils.readBlockPos(reader.readCompound());
+            }
+            else if (type == Constants.NBT.TAG_LIST && key.equals("TileEntities"))
+            {
+                region.blockEntities = (NBTTagList) reader.readPayload(type);
+            }
+            else if (type == Constants.NBT.TAG_LIST && key.equals("Entities"))
+            {
+                region.entities = (NBTTagList) reader.readPayload(type);
+            }
+            else if (type == Constants.NBT.TAG_LIST && key.equals("PendingBlockTicks"))
+            {
+                region.blockTicks = (NBTTagList) reader.readPayload(type);
+            }
+            else
+            {
+                reader.skipPayload(type);
+            }
+        }
+
+        return region;
+    }
+
+    private List<IBlockState> readPaletteFromStream(NbtStreamReader reader) throws IOException
+    {
+        final int elementType = reader.readListElementType();
+        final int length = reader.readListLength();
+        List<IBlockState> list = new ArrayList<>(length);
+
+        for (int i = 0; i < length; ++i)
+        {
+            if (elementType == Constants.NBT.TAG_COMPOUND)
+            {
+                list.add(NBTUtil.readBlockState(reader.readCompound()));
+            }
+            else
+            {
+                reader.skipPayload(elementType);
+            }
+        }
+
+        return list;
+    }
+
     private NBTTagCompound writeSubRegionsToNBT()
     {
         NBTTagCompound wrapper = new NBTTagCompound();
 
         if (this.blockContainers.isEmpty() == false)
         {
-            for (String regionName : this.blockContainers.keySet())
+            List<String> regionNames = new ArrayList<>(this.blockContainers.keySet());
+            List<NBTTagCompound> tags;
+
+            // The regions are independent of each other, so they can be written in parallel.
+            // Only the final assembly of the wrapper tag is done on the calling thread.
+            if (useParallelRegionProcessing(regionNames.size()))
+            {
+                tags = regionNames.parallelStream().map(this::writeSubRegionToTag).collect(Collectors.toList());
+            }
+            else
+            {
+                tags = regionNames.stream().map(this::writeSubRegionToTag).collect(Collectors.toList());
+            }
+
+            for (int i = 0; i < regionNames.size(); ++i)
             {
-                LitematicaBlockStateContainerFull blockContainer = (LitematicaBlockStateContainerFull) this.blockContainers.get(regionName);
-                Map<BlockPos, NBTTagCompound> tileMap = this.blockEntities.get(regionName);
-                List<EntityInfo> entityList = this.entities.get(regionName);
-                Map<BlockPos, NextTickListEntry> pendingTicks = this.pendingBlockTicks.get(regionName);
+                wrapper.setTag(regionNames.get(i), tags.get(i));
+            }
+        }
 
-                NBTTagCompound tag = new NBTTagCompound();
+        return wrapper;
+    }
 
-                tag.setTag("BlockStatePalette", this.writePaletteToLitematicaFormatTag(blockContainer.getPalette()));
-                tag.setTag("BlockStates", new NBTTagLongArray(blockContainer.getBackingLongArray()));
+    private NBTTagCompound writeSubRegionToTag(String regionName)
+    {
+        LitematicaBlockStateContainerFull blockContainer = this.blockContainers.get(regionName);
+        Map<BlockPos, NBTTagCompound> tileMap = this.blockEntities.get(regionName);
+        List<EntityInfo> entityList = this.entities.get(regionName);
+        Map<BlockPos, NextTickListEntry> pendingTicks = this.pendingBlockTicks.get(regionName);
 
-                if (tileMap != null)
-                {
-                    tag.setTag("TileEntities", this.writeBlockEntitiesToListTag(tileMap));
-                }
+        NBTTagCompound tag = new NBTTagCompound();
 
-                if (pendingTicks != null)
-                {
-                    tag.setTag("PendingBlockTicks", this.writeBlockTicksToNBT(pendingTicks));
-                }
+        tag.setTag("BlockStatePalette", this.writePaletteToLitematicaFormatTag(blockContainer.getPalette()));
+        tag.setTag("BlockStates", new NBTTagLongArray(blockContainer.getBackingLongArray()));
 
-                // The entity list will not exist, if takeEntities is false when creating the schematic
-                if (entityList != null)
-                {
-                    tag.setTag("Entities", this.writeEntitiesToListTag(entityList));
-                }
+        if (tileMap != null)
+        {
+            tag.setTag("TileEntities", this.writeBlockEntitiesToListTag(tileMap));
+        }
 
-                SubRegion region = this.subRegions.get(regionName);
-                tag.setTag("Position", NbtUtils.createBlockPosTag(region.pos));
-                tag.setTag("Size", NbtUtils.createBlockPosTag(region.size));
+        if (pendingTicks != null)
+        {
+            tag.setTag("PendingBlockTicks", this.writeBlockTicksToNBT(pendingTicks));
+        }
 
-                wrapper.setTag(regionName, tag);
-            }
+        // The entity list will not exist, if takeEntities is false when creating the schematic
+        if (entityList != null)
+        {
+            tag.setTag("Entities", this.writeEntitiesToListTag(entityList));
         }
 
-        return wrapper;
+        SubRegion region = this.subRegions.get(regionName);
+        tag.setTag("Position", NbtUtils.createBlockPosTag(region.pos));
+        tag.setTag("Size", NbtUtils.createBlockPosTag(region.size));
+
+        return tag;
     }
 
     private NBTTagList writeBlockTicksToNBT(Map<BlockPos, NextTickListEntry> tickMap)
@@ -334,69 +595,133 @@ public class LitematicaSchematic extends SchematicBase
     private boolean readSubRegionsFromTag(NBTTagCompound tag, int version)
     {
         tag = tag.getCompoundTag("Regions");
+        List<SubRegionData> regions = new ArrayList<>();
 
         for (String regionName : tag.getKeySet())
         {
             if (tag.getTag(regionName).getId() == Constants.NBT.TAG_COMPOUND)
             {
-                NBTTagCompound regionTag = tag.getCompoundTag(regionName);
-                BlockPos regionPos = NbtUtils.readBlockPos(regionTag.getCompoundTag("Position"));
-                BlockPos regionSize = NbtUtils.readBlockPos(regionTag.getCompoundTag("Size"));
+                regions.add(SubRegionData.fromTag(regionName, tag.getCompoundTag(regionName)));
+            }
+        }
 
-                if (regionPos != null && regionSize != null)
-                {
-                    this.subRegions.put(regionName, new SubRegion(regionPos, regionSize));
+        return this.addSubRegions(regions, version, true);
+    }
 
-                    if (version >= 2)
-                    {
-                        this.blockEntities.put(regionName, this.readBlockEntitiesFromListTag(regionTag.getTagList("TileEntities", Constants.NBT.TAG_COMPOUND)));
-                        this.entities.put(regionName, this.readEntitiesFromListTag(regionTag.getTagList("Entities", Constants.NBT.TAG_COMPOUND)));
-                    }
-                    else if (version == 1)
-                    {
-                        this.blockEntities.put(regionName, this.readTileEntitiesFromNBT_v1(regionTag.getTagList("TileEntities", Constants.NBT.TAG_COMPOUND)));
-                        this.entities.put(regionName, this.readEntitiesFromNBT_v1(regionTag.getTagList("Entities", Constants.NBT.TAG_COMPOUND)));
-                    }
+    /**
+     * Decodes the raw sub-region data into containers and maps, and then adds them to this schematic.
+     * The decoding is done in parallel for multiple regions if <b>allowParallel</b> is true
+     * and it's enabled in the configs, while adding the results to this schematic
+     * is always done on the calling thread.
+     */
+    private boolean addSubRegions(List<SubRegionData> regions, int version, boolean allowParallel)
+    {
+        List<DecodedSubRegion> decodedRegions;
 
-                    if (version >= 3)
-                    {
-                        this.pendingBlockTicks.put(regionName, this.readBlockTicksFromNBT(regionTag.getTagList("PendingBlockTicks", Constants.NBT.TAG_COMPOUND)));
-                    }
+        if (allowParallel && useParallelRegionProcessing(regions.size()))
+        {
+            decodedRegions = regions.parallelStream().map((data) -> this.decodeSubRegion(data, version)).collect(Collectors.toList());
+        }
+        else
+        {
+            decodedRegions = regions.stream().map((data) -> this.decodeSubRegion(data, version)).collect(Collectors.toList());
+        }
 
-                    NBTBase nbtBase = regionTag.getTag("BlockStates");
+        for (DecodedSubRegion region : decodedRegions)
+        {
+            if (region == null)
+            {
+                continue;
+            }
 
-                    // There are no convenience methods in NBTTagCompound yet in 1.12, so we'll have to do it the ugly way...
-                    if (nbtBase != null && nbtBase.getId() == Constants.NBT.TAG_LONG_ARRAY)
-                    {
-                        Vec3i size = new Vec3i(Math.abs(regionSize.getX()), Math.abs(regionSize.getY()), Math.abs(regionSize.getZ()));
-                        NBTTagList paletteTag = regionTag.getTagList("BlockStatePalette", Constants.NBT.TAG_COMPOUND);
-                        long[] blockStateArr = ((IMixinNBTTagLongArray) nbtBase).getArray();
-                        int paletteSize = paletteTag.tagCount();
-
-                        LitematicaBlockStateContainerFull container = LitematicaBlockStateContainerFull.createContainer(paletteSize, blockStateArr, size);
-
-                        if (container == null)
-                        {
-                            String fileName = this.getFile() != null ? this.getFile().getName() : "<null>";
-                            MessageDispatcher.error().translate("litematica.error.schematic_read_from_file_failed.region_container",
-                                                                regionName, fileName);
-                            return false;
-                        }
-
-                        this.readPaletteFromLitematicaFormatTag(paletteTag, container.getPalette());
-                        this.blockContainers.put(regionName, container);
-                    }
-                    else
-                    {
-                        return false;
-                    }
-                }
+            String regionName = region.name;
+            this.subRegions.put(regionName, region.subRegion);
+
+            if (region.blockEntities != null)
+            {
+                this.blockEntities.put(regionName, region.blockEntities);
             }
+
+            if (region.entities != null)
+            {
+                this.entities.put(regionName, region.entities);
+            }
+
+            if (region.blockTicks != null)
+            {
+                this.pendingBlockTicks.put(regionName, region.blockTicks);
+            }
+
+            if (region.hasBlockStates == false)
+            {
+                return false;
+            }
+
+            if (region.container == null)
+            {
+                String fileName = this.getFile() != null ? this.getFile().getName() : "<null>";
+                this.readError("litematica.error.schematic_read_from_file_failed.region_container", regionName, fileName);
+                return false;
+            }
+
+            this.blockContainers.put(regionName, region.container);
         }
 
         return true;
     }
 
+    /**
+     * Decodes the given sub-region data. This does not modify this schematic,
+     * so it is safe to call for multiple regions in parallel.
+     * @return the decoded region, or null if the region position or size was missing
+     */
+    @Nullable
+    private DecodedSubRegion decodeSubRegion(SubRegionData data, int version)
+    {
+        BlockPos regionPos = data.pos;
+        BlockPos regionSize = data.size;
+
+        if (regionPos == null || regionSize == null)
+        {
+            return null;
+        }
+
+        DecodedSubRegion region = new DecodedSubRegion(data.name, new SubRegion(regionPos, regionSize));
+
+        if (version >= 2)
+        {
+            region.blockEntities = this.readBlockEntitiesFromListTag(data.blockEntities);
+            region.entities = this.readEntitiesFromListTag(data.entities);
+        }
+        else if (version == 1)
+        {
+            region.blockEntities = this.readTileEntitiesFromNBT_v1(data.blockEntities);
+            region.entities = this.readEntitiesFromNBT_v1(data.entities);
+        }
+
+        if (version >= 3)
+        {
+            region.blockTicks = this.readBlockTicksFromNBT(data.blockTicks);
+        }
+
+        if (data.blockStates != null)
+        {
+            Vec3i size = new Vec3i(Math.abs(regionSize.getX()), Math.abs(regionSize.getY()), Math.abs(regionSize.getZ()));
+            List<IBlockState> palette = data.palette != null ? data.palette : this.readBlockStatesFromLitematicaFormatTag(data.paletteTag);
+            LitematicaBlockStateContainerFull container = LitematicaBlockStateContainerFull.createContainer(palette.size(), data.blockStates, size);
+
+            if (container != null)
+            {
+                container.getPalette().setMapping(palette);
+            }
+
+            region.container = container;
+            region.hasBlockStates = true;
+        }
+
+        return region;
+    }
+
     private Map<BlockPos, NextTickListEntry> readBlockTicksFromNBT(NBTTagList tagList)
     {
         Map<BlockPos, NextTickListEntry> tickMap = new HashMap<>();
@@ -484,6 +809,44 @@ public class LitematicaSchematic extends SchematicBase
         return false;
     }
 
+    /**
+     * Reads only the metadata from the given file, by skipping over any other data before it.
+     * The rest of the file is not read at all once the metadata tag has been found.
+     * @return the metadata, or null if the file could not be read or had no metadata
+     */
+    @Nullable
+    public static SchematicMetadata readMetadataFromFile(File file)
+    {
+        try (FileInputStream is = new FileInputStream(file);
+             NbtStreamReader reader = NbtStreamReader.createCompressed(is))
+        {
+            if (reader.readRootCompoundStart())
+            {
+                int type;
+
+                while ((type = reader.readTagType()) != Constants.NBT.TAG_END)
+                {
+                    String key = reader.readName();
+
+                    if (type == Constants.NBT.TAG_COMPOUND && key.equals("Metadata"))
+                    {
+                        SchematicMetadata metadata = new SchematicMetadata();
+                        metadata.fromTag(reader.readCompound());
+                        return metadata;
+                    }
+
+                    reader.skipPayload(type);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            Litematica.logger.warn("Failed to read the schematic metadata from file '{}'", file.getAbsolutePath(), e);
+        }
+
+        return null;
+    }
+
     @Nullable
     public static LitematicaSchematic createFromFile(File dir, String fileName)
     {
@@ -498,6 +861,71 @@ public class LitematicaSchematic extends SchematicBase
         return schematic.readFromFile() ? schematic : null;
     }
 
+    private static boolean useParallelRegionProcessing(int regionCount)
+    {
+        return regionCount > 1 && Configs.Generic.PARALLEL_SCHEMATIC_IO.getBooleanValue();
+    }
+
+    /**
+     * The raw data of one sub-region, as read from the file or from the tag
+     */
+    private static class SubRegionData
+    {
+        private final String name;
+        @Nullable private BlockPos pos;
+        @Nullable private BlockPos size;
+        @Nullable private long[] blockStates;
+        @Nullable private List<IBlockState> palette;
+        private NBTTagList paletteTag = new NBTTagList();
+        private NBTTagList blockEntities = new NBTTagList();
+        private NBTTagList entities = new NBTTagList();
+        private NBTTagList blockTicks = new NBTTagList();
+
+        private SubRegionData(String name)
+        {
+            this.name = name;
+        }
+
+        private static SubRegionData fromTag(String regionName, NBTTagCompound regionTag)
+        {
+            SubRegionData data = new SubRegionData(regionName);
+
+            data.pos = NbtUtils.readBlockPos(regionTag.getCompoundTag("Position"));
+            data.size = NbtUtils.readBlockPos(regionTag.getCompoundTag("Size"));
+            data.paletteTag = regionTag.getTagList("BlockStatePalette", Constants.NBT.TAG_COMPOUND);
+            data.blockEntities = regionTag.getTagList("TileEntities", Constants.NBT.TAG_COMPOUND);
+            data.entities = regionTag.getTagList("Entities", Constants.NBT.TAG_COMPOUND);
+            data.blockTicks = regionTag.getTagList("PendingBlockTicks", Constants.NBT.TAG_COMPOUND);
+
+            NBTBase nbtBase = regionTag.getTag("BlockStates");
+
+            // There are no convenience methods in NBTTagCompound yet in 1.12, so we'll have to do it the ugly way...
+            if (nbtBase != null && nbtBase.getId() == Constants.NBT.TAG_LONG_ARRAY)
+            {
+                data.blockStates = ((IMixinNBTTagLongArray) nbtBase).getArray();
+            }
+
+            return data;
+        }
+    }
+
+    private static class DecodedSubRegion
+    {
+        private final String name;
+        private final SubRegion subRegion;
+        @Nullable private LitematicaBlockStateContainerFull container;
+        @Nullable private Map<BlockPos, NBTTagCompound> blockEntities;
+        @Nullable private List<EntityInfo> entities;
+        @Nullable private Map<BlockPos, NextTickListEntry> blockTicks;
+        private boolean hasBlockStates;
+
+        private DecodedSubRegion(String name, SubRegion subRegion)
+        {
+            this.name = name;
+            this.subRegion = subRegion;
+        }
+    }
+
     public static class LitematicaSubRegion implements ISchematicRegion
     {
         private final LitematicaSchematic schematic;
@@ -97,6 +97,11 @@ public abstract class SchematicBase implements ISchematic
     }
 
     protected boolean readPaletteFromLitematicaFormatTag(NBTTagList tagList, ILitematicaBlockStatePalette palette)
+    {
+        return palette.setMapping(this.readBlockStatesFromLitematicaFormatTag(tagList));
+    }
+
+    protected List<IBlockState> readBlockStatesFromLitematicaFormatTag(NBTTagList tagList)
     {
         final int size = tagList.tagCount();
         List<IBlockState> list = new ArrayList<>(size);
@@ -108,7 +113,7 @@ public abstract class SchematicBase implements ISchematic
             list.add(state);
         }
 
-        return palette.setMapping(list);
+        return list;
     }
 
     protected List<EntityInfo> readEntitiesFromListTag(NBTTagList tagList)
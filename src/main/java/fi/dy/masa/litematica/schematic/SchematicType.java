@@ -179,6 +179,14 @@ public class SchematicType<S extends ISchematic>
     {
         List<SchematicType<?>> possibleTypes = getPossibleTypesFromFileName(file);
 
+        if (possibleTypes.size() == 1 && possibleTypes.get(0) == LITEMATICA)
+        {
+            // The Litematica format is read directly from the file stream,
+            // without reading the entire tag tree into memory first
+            LitematicaSchematic schematic = LITEMATICA.createSchematic(file);
+            return schematic.readFromFile() ? schematic : null;
+        }
+
         if (possibleTypes.isEmpty() == false)
         {
             NBTTagCompound tag = NbtUtils.readNbtFromFile(file);
@@ -18,5 +18,57 @@ public interface ILitematicaBlockStateContainer
 
     void setBlockState(int x, int y, int z, IBlockState state);
 
+    /**
+     * Reads the palette IDs of <b>length</b> consecutive positions along the x-axis,
+     * starting from the given position, into the array <b>idsOut</b> starting at <b>outOffset</b>.
+     * The IDs can be converted to states via {@link #getPalette()}.
+     * This doesn't modify the container or its palette. Any states that are not in the palette
+     * (which can only be air in a sparse container) get the ID -1, which the palette maps to null.
+     */
+    default void getBlockStateIdRow(int x, int y, int z, int length, int[] idsOut, int outOffset)
+    {
+        ILitematicaBlockStatePalette palette = this.getPalette();
+
+        for (int i = 0; i < length; ++i)
+        {
+            idsOut[outOffset + i] = palette.getId(this.getBlockState(x + i, y, z));
+        }
+    }
+
+    /**
+     * Reads the palette IDs of the given box (for example a 16x16x16 sub-chunk) into the array <b>idsOut</b>.
+     * The IDs are stored in the same y, z, x order as the container itself,
+     * ie. the index is {@code (y * sizeZ + z) * sizeX + x} relative to the box's minimum corner.
+     */
+    default void getBlockStateIdBox(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] idsOut)
+    {
+        int index = 0;
+
+        for (int y = minY; y < minY + sizeY; ++y)
+        {
+            for (int z = minZ; z < minZ + sizeZ; ++z)
+            {
+                this.getBlockStateIdRow(minX, y, z, sizeX, idsOut, index);
+                index += sizeX;
+            }
+        }
+    }
+
+    /**
+     * Writes <b>length</b> palette IDs from the array <b>ids</b>, starting from <b>offset</b>,
+     * to consecutive positions along the x-axis, starting from the given position.
+     * The IDs must be valid IDs in this container's current palette.
+     */
+    default void setBlockStateIdRow(int x, int y, int z, int length, int[] ids, int offset)
+    {
+        ILitematicaBlockStatePalette palette = this.getPalette();
+
+        for (int i = 0; i < length; ++i)
+        {
+            IBlockState state = palette.getBlockState(ids[offset + i]);
+            this.setBlockState(x + i, y, z, state != null ? state : LitematicaBlockStateContainerBase.AIR_BLOCK_STATE);
+        }
+    }
+
     ILitematicaBlockStateContainer copy();
 }
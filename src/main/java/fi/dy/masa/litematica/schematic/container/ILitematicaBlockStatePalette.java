@@ -18,6 +18,12 @@ public interface ILitematicaBlockStatePalette
      */
     int idFor(IBlockState state);
 
+    /**
+     * Gets the palette id for the given block state without modifying the palette.
+     * @return the id, or -1 if the state doesn't exist in the palette
+     */
+    int getId(IBlockState state);
+
     /**
      * Gets the block state by the palette ID, if the provided ID exists.
      */
@@ -17,6 +17,13 @@ public class LitematicaBitArray
     private final long maxEntryValue;
     /** Number of entries in this array (<b>not</b> the length of the long array that internally backs this array) */
     private final long arraySize;
+    /**
+     * Whether or not the entries are aligned to the long boundaries, ie. none of the entries
+     * span two longs. This is the case when bitsPerEntry divides 64 (1, 2, 4, 8, 16 and 32 bits).
+     */
+    private final boolean wordAligned;
+    /** Number of entries that fit in a single long, used for the word-aligned case */
+    private final int entriesPerLong;
 
     public LitematicaBitArray(int bitsPerEntryIn, long arraySizeIn)
     {
@@ -29,6 +36,8 @@ public class LitematicaBitArray
         this.arraySize = arraySizeIn;
         this.bitsPerEntry = bitsPerEntryIn;
         this.maxEntryValue = (1L << bitsPerEntryIn) - 1L;
+        this.wordAligned = (64 % bitsPerEntryIn) == 0;
+        this.entriesPerLong = 64 / bitsPerEntryIn;
 
         if (longArrayIn != null)
         {
@@ -77,19 +86,226 @@ public class LitematicaBitArray
         }
     }
 
+    /**
+     * Reads <b>count</b> consecutive entries starting from <b>startIndex</b>
+     * into the array <b>valuesOut</b>, starting from the array index <b>outOffset</b>.
+     * The range is only validated once, instead of once per entry like in {@link #getAt(long)}.
+     */
+    public void getRange(long startIndex, int[] valuesOut, int outOffset, int count)
+    {
+        this.validateRange(startIndex, count);
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final long[] arr = this.longArray;
+        final int end = outOffset + count;
+
+        if (this.wordAligned)
+        {
+            int arrIndex = (int) (startIndex / this.entriesPerLong);
+            int bitOffset = (int) (startIndex % this.entriesPerLong) * bits;
+            long word = arr[arrIndex];
+
+            for (int i = outOffset; i < end; ++i)
+            {
+                if (bitOffset == 64)
+                {
+                    word = arr[++arrIndex];
+                    bitOffset = 0;
+                }
+
+                valuesOut[i] = (int) (word >>> bitOffset & mask);
+                bitOffset += bits;
+            }
+        }
+        else
+        {
+            long startOffset = startIndex * (long) bits;
+            int arrIndex = (int) (startOffset >> 6);
+            int bitOffset = (int) (startOffset & 0x3F);
+
+            for (int i = outOffset; i < end; ++i)
+            {
+                int endBitOffset = bitOffset + bits;
+
+                if (endBitOffset <= 64)
+                {
+                    valuesOut[i] = (int) (arr[arrIndex] >>> bitOffset & mask);
+                }
+                else
+                {
+                    valuesOut[i] = (int) ((arr[arrIndex] >>> bitOffset | arr[arrIndex + 1] << (64 - bitOffset)) & mask);
+                }
+
+                if (endBitOffset >= 64)
+                {
+                    endBitOffset -= 64;
+                    ++arrIndex;
+                }
+
+                bitOffset = endBitOffset;
+            }
+        }
+    }
+
+    /**
+     * Writes <b>count</b> values from the array <b>values</b>, starting from the array index <b>offset</b>,
+     * into consecutive entries starting from <b>startIndex</b>.
+     * The values are masked to the entry size, and the range is only validated once.
+     */
+    public void setRange(long startIndex, int[] values, int offset, int count)
+    {
+        this.validateRange(startIndex, count);
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final long[] arr = this.longArray;
+        final int end = offset + count;
+
+        if (this.wordAligned)
+        {
+            int arrIndex = (int) (startIndex / this.entriesPerLong);
+            int bitOffset = (int) (startIndex % this.entriesPerLong) * bits;
+            long word = arr[arrIndex];
+
+            for (int i = offset; i < end; ++i)
+            {
+                if (bitOffset == 64)
+                {
+                    arr[arrIndex] = word;
+                    word = arr[++arrIndex];
+                    bitOffset = 0;
+                }
+
+                word = word & ~(mask << bitOffset) | ((long) values[i] & mask) << bitOffset;
+                bitOffset += bits;
+            }
+
+            arr[arrIndex] = word;
+        }
+        else
+        {
+            long startOffset = startIndex * (long) bits;
+            int arrIndex = (int) (startOffset >> 6);
+            int bitOffset = (int) (startOffset & 0x3F);
+
+            for (int i = offset; i < end; ++i)
+            {
+                long value = (long) values[i] & mask;
+                int endBitOffset = bitOffset + bits;
+
+                arr[arrIndex] = arr[arrIndex] & ~(mask << bitOffset) | value << bitOffset;
+
+                if (endBitOffset > 64)
+                {
+                    int shift = 64 - bitOffset;
+                    arr[arrIndex + 1] = arr[arrIndex + 1] & ~(mask >>> shift) | value >>> shift;
+                }
+
+                if (endBitOffset >= 64)
+                {
+                    endBitOffset -= 64;
+                    ++arrIndex;
+                }
+
+                bitOffset = endBitOffset;
+            }
+        }
+    }
+
+    private void validateRange(long startIndex, int count)
+    {
+        if (startIndex < 0 || count < 0 || startIndex + count > this.arraySize)
+        {
+            throw new IndexOutOfBoundsException("Invalid range: start = " + startIndex + ", count = " + count + ", size = " + this.arraySize);
+        }
+    }
+
     public long[] getValueCounts()
     {
         long[] counts = new long[(int) this.maxEntryValue + 1];
         final long size = this.arraySize;
 
-        for (long i = 0; i < size; ++i)
+        if (this.wordAligned)
+        {
+            final int bits = this.bitsPerEntry;
+            final int perLong = this.entriesPerLong;
+            final long mask = this.maxEntryValue;
+            final long[] arr = this.longArray;
+            final int fullLongs = (int) (size / perLong);
+            final int remaining = (int) (size % perLong);
+
+            for (int i = 0; i < fullLongs; ++i)
+            {
+                long word = arr[i];
+
+                for (int e = 0; e < perLong; ++e)
+                {
+                    ++counts[(int) (word & mask)];
+                    word >>>= bits;
+                }
+            }
+
+            if (remaining > 0)
+            {
+                long word = arr[fullLongs];
+
+                for (int e = 0; e < remaining; ++e)
+                {
+                    ++counts[(int) (word & mask)];
+                    word >>>= bits;
+                }
+            }
+        }
+        else
         {
-            ++counts[this.getAt(i)];
+            final int bufSize = 4096;
+            int[] buf = new int[bufSize];
+
+            for (long start = 0; start < size; start += bufSize)
+            {
+                final int count = (int) Math.min(bufSize, size - start);
+                this.getRange(start, buf, 0, count);
+
+                for (int i = 0; i < count; ++i)
+                {
+                    ++counts[buf[i]];
+                }
+            }
         }
 
         return counts;
     }
 
+    /**
+     * Copies all the entries from this array to the other array,
+     * which must have at least the same number of entries, and must
+     * be able to hold all the values (ie. it's meant for increasing the entry size).
+     */
+    public void copyTo(LitematicaBitArray other)
+    {
+        final int bufSize = 4096;
+        final long size = this.arraySize;
+        int[] buf = new int[bufSize];
+
+        for (long start = 0; start < size; start += bufSize)
+        {
+            final int count = (int) Math.min(bufSize, size - start);
+            this.getRange(start, buf, 0, count);
+            other.setRange(start, buf, 0, count);
+        }
+    }
+
     public long[] getBackingLongArray()
     {
         return this.longArray;
@@ -80,6 +80,29 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         this.hasSetBlockCounts = false; // Force a re-count when next queried
     }
 
+    @Override
+    public void getBlockStateIdRow(int x, int y, int z, int length, int[] idsOut, int outOffset)
+    {
+        this.validateRow(x, y, z, length);
+        this.storage.getRange(this.getIndex(x, y, z), idsOut, outOffset, length);
+    }
+
+    @Override
+    public void setBlockStateIdRow(int x, int y, int z, int length, int[] ids, int offset)
+    {
+        this.validateRow(x, y, z, length);
+        this.storage.setRange(this.getIndex(x, y, z), ids, offset, length);
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    protected void validateRow(int x, int y, int z, int length)
+    {
+        if (x < 0 || y < 0 || z < 0 || length < 0 || x + length > this.sizeX || y >= this.sizeY || z >= this.sizeZ)
+        {
+            throw new IndexOutOfBoundsException(String.format("Invalid row: x = %d, y = %d, z = %d, length = %d - container size: %s", x, y, z, length, this.size));
+        }
+    }
+
     @Override
     public int onResize(int bits, IBlockState state, ILitematicaBlockStatePalette oldPalette)
     {
@@ -110,13 +133,7 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         // Copy over the full old palette mapping
         this.palette.setMapping(oldPalette.getMapping());
 
-        final long size = oldArray.size();
-
-        for (long index = 0; index < size; ++index)
-        {
-            newArray.setAt(index, oldArray.getAt(index));
-        }
-
+        oldArray.copyTo(newArray);
         this.storage = newArray;
 
         return this.palette.idFor(state);
@@ -147,9 +164,18 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         PacketBuffer buf = new PacketBuffer(Unpooled.wrappedBuffer(arr));
         buf.writerIndex(0);
 
-        for (int i = 0; i < volume; ++i)
+        final int bufSize = 4096;
+        int[] ids = new int[bufSize];
+
+        for (long start = 0; start < volume; start += bufSize)
         {
-            buf.writeVarInt(this.storage.getAt(i));
+            final int count = (int) Math.min(bufSize, volume - start);
+            this.storage.getRange(start, ids, 0, count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                buf.writeVarInt(ids[i]);
+            }
         }
 
         return arr;
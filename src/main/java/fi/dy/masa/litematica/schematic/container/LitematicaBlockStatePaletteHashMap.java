@@ -37,6 +37,12 @@ public class LitematicaBlockStatePaletteHashMap implements ILitematicaBlockState
         return id;
     }
 
+    @Override
+    public int getId(IBlockState state)
+    {
+        return this.statePaletteMap.getId(state);
+    }
+
     @Override
     @Nullable
     public IBlockState getBlockState(int indexKey)
@@ -50,6 +50,20 @@ public class LitematicaBlockStatePaletteLinear implements ILitematicaBlockStateP
         }
     }
 
+    @Override
+    public int getId(IBlockState state)
+    {
+        for (int i = 0; i < this.currentSize; ++i)
+        {
+            if (this.states[i] == state)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     @Override
     @Nullable
     public IBlockState getBlockState(int id)
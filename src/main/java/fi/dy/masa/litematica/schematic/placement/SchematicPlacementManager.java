@@ -3,10 +3,13 @@ package fi.dy.masa.litematica.schematic.placement;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nullable;
 import com.google.common.collect.ArrayListMultimap;
@@ -33,8 +36,10 @@ import fi.dy.masa.malilib.util.RayTraceUtils.RayTraceFluidHandling;
 import fi.dy.masa.malilib.util.data.json.JsonUtils;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.malilib.util.position.SubChunkPos;
+import fi.dy.masa.litematica.Litematica;
 import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.config.Hotkeys;
+import fi.dy.masa.litematica.data.AsyncSchematicLoader;
 import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.data.SchematicHolder;
 import fi.dy.masa.litematica.render.LitematicaRenderer;
@@ -50,6 +55,8 @@ import fi.dy.masa.litematica.util.RayTraceUtils;
 import fi.dy.masa.litematica.util.RayTraceUtils.RayTraceWrapper;
 import fi.dy.masa.litematica.util.RayTraceUtils.RayTraceWrapper.HitType;
 import fi.dy.masa.litematica.util.ReplaceBehavior;
+import fi.dy.masa.litematica.world.ChunkSchematic;
+import fi.dy.masa.litematica.world.SchematicSectionBuilder;
 import fi.dy.masa.litematica.world.SchematicWorldHandler;
 import fi.dy.masa.litematica.world.WorldSchematic;
 
@@ -65,6 +72,11 @@ public class SchematicPlacementManager
     private final Set<ChunkPos> chunksToRebuild = new HashSet<>();
     private final Set<ChunkPos> chunksToUnload = new HashSet<>();
     private final Set<ChunkPos> chunksPreChange = new HashSet<>();
+    private final Map<ChunkPos, Integer> sectionsToRebuild = new HashMap<>();
+    private final Map<SubChunkPos, Set<PlacedRegionState>> sectionStatesPreChange = new HashMap<>();
+    private final Map<ChunkPos, SchematicSectionBuilder.PendingBuild> pendingSectionBuilds = new LinkedHashMap<>();
+    /** A per-chunk change counter, used to drop the background builds that finish after a newer change */
+    private final Map<ChunkPos, Integer> chunkBuildGenerations = new HashMap<>();
 
     private final List<IGenericEventListener> rebuildListeners = new ArrayList<>();
 
@@ -72,6 +84,12 @@ public class SchematicPlacementManager
 
     @Nullable
     private SchematicPlacement selectedPlacement;
+    /** The original list positions of the placements being loaded from the placement list file,
+     * so that the loaded placements keep their order, regardless of the order that their schematics finish loading in */
+    private final Map<SchematicPlacementUnloaded, Integer> placementLoadSlots = new HashMap<>();
+    private int pendingPlacementLoads;
+    /** The saved selected placement index, which is applied once all the placements have been loaded */
+    private int pendingSelectedIndex = -1;
     private int tickCounter;
 
     public SchematicPlacementManager()
@@ -81,12 +99,12 @@ public class SchematicPlacementManager
 
     public boolean hasPendingRebuilds()
     {
-        return this.chunksToRebuild.isEmpty() == false;
+        return this.chunksToRebuild.isEmpty() == false || this.pendingSectionBuilds.isEmpty() == false;
     }
 
     public boolean hasPendingRebuildFor(ChunkPos pos)
     {
-        return this.chunksToRebuild.contains(pos);
+        return this.chunksToRebuild.contains(pos) || this.pendingSectionBuilds.containsKey(pos);
     }
 
     public void addRebuildListener(IGenericEventListener listener)
@@ -112,6 +130,8 @@ public class SchematicPlacementManager
             {
                 for (ChunkPos pos : this.chunksToUnload)
                 {
+                    this.cancelPendingSectionBuild(pos);
+                    this.chunkBuildGenerations.remove(pos);
                     this.unloadSchematicChunk(worldSchematic, pos.x, pos.z);
                 }
             }
@@ -120,34 +140,68 @@ public class SchematicPlacementManager
         }
 
         //System.out.printf("processQueuedChunks, size: %d\n", this.chunksToRebuild.size());
-        if (this.chunksToRebuild.isEmpty() == false)
+        if (this.chunksToRebuild.isEmpty() == false || this.pendingSectionBuilds.isEmpty() == false)
         {
             WorldClient worldClient = Minecraft.getMinecraft().world;
 
             if (worldClient == null)
             {
+                this.cancelAllPendingSectionBuilds();
                 this.chunksToRebuild.clear();
+                this.sectionsToRebuild.clear();
                 return true;
             }
 
             WorldSchematic worldSchematic = SchematicWorldHandler.getSchematicWorld();
+            final boolean buildInBackground = Configs.Generic.BACKGROUND_SCHEMATIC_WORLD_BUILDING.getBooleanValue();
             Iterator<ChunkPos> iter = this.chunksToRebuild.iterator();
 
+            this.applyCompletedSectionBuilds(worldSchematic);
+
             while (iter.hasNext())
             {
-                if ((System.nanoTime() - DataManager.getClientTickStartTime()) >= 45000000L)
+                if ((System.nanoTime() - DataManager.getClientTickStartTime()) >= 45000000L ||
+                    (buildInBackground && this.pendingSectionBuilds.size() >= SchematicSectionBuilder.MAX_PENDING_BUILDS))
                 {
                     break;
                 }
 
                 ChunkPos pos = iter.next();
 
+                Integer sectionMask = this.sectionsToRebuild.remove(pos);
+
                 if (this.schematicsTouchingChunk.containsKey(pos) == false)
                 {
                     iter.remove();
                     continue;
                 }
 
+                if (buildInBackground)
+                {
+                    boolean chunkExists = worldSchematic.getChunkProvider().isChunkGeneratedAt(pos.x, pos.z);
+
+                    if (chunkExists ||
+                        Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() ||
+                        worldClient.getChunkProvider().isChunkGeneratedAt(pos.x, pos.z))
+                    {
+                        // A full rebuild replaces all the sections, which also wipes any old contents of the chunk
+                        int mask = chunkExists && sectionMask != null ? sectionMask : SchematicSectionBuilder.ALL_SECTIONS;
+                        int generation = this.chunkBuildGenerations.getOrDefault(pos, 0);
+                        this.pendingSectionBuilds.put(pos, SchematicSectionBuilder.submit(pos, mask, generation, this.schematicsTouchingChunk.get(pos)));
+                        iter.remove();
+                    }
+
+                    continue;
+                }
+
+                // Only some sections of an already existing chunk were changed, so only those get cleared and re-placed
+                if (sectionMask != null && worldSchematic.getChunkProvider().isChunkGeneratedAt(pos.x, pos.z))
+                {
+                    this.rebuildSchematicChunkSections(worldSchematic, pos, sectionMask);
+                    iter.remove();
+                    continue;
+                }
+
                 if (Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() ||
                     worldClient.getChunkProvider().isChunkGeneratedAt(pos.x, pos.z))
                 {
@@ -186,12 +240,103 @@ public class SchematicPlacementManager
 
             LitematicaRenderer.getInstance().getWorldRenderer().markNeedsUpdate();
 
-            return this.chunksToRebuild.isEmpty();
+            return this.chunksToRebuild.isEmpty() && this.pendingSectionBuilds.isEmpty();
         }
 
         return false;
     }
 
+    private void applyCompletedSectionBuilds(WorldSchematic worldSchematic)
+    {
+        Iterator<Map.Entry<ChunkPos, SchematicSectionBuilder.PendingBuild>> iter = this.pendingSectionBuilds.entrySet().iterator();
+
+        while (iter.hasNext())
+        {
+            if ((System.nanoTime() - DataManager.getClientTickStartTime()) >= 45000000L)
+            {
+                break;
+            }
+
+            Map.Entry<ChunkPos, SchematicSectionBuilder.PendingBuild> entry = iter.next();
+            SchematicSectionBuilder.PendingBuild build = entry.getValue();
+
+            if (build.isDone() == false)
+            {
+                continue;
+            }
+
+            ChunkPos pos = entry.getKey();
+            iter.remove();
+
+            // The chunk was changed after the snapshot for this build was taken, so the result is outdated
+            if (build.getGeneration() != this.chunkBuildGenerations.getOrDefault(pos, 0))
+            {
+                this.queueSectionsForRebuild(pos, build.getSectionMask());
+                continue;
+            }
+
+            try
+            {
+                build.getResult().applyTo(worldSchematic);
+            }
+            catch (Exception e)
+            {
+                Litematica.logger.warn("Failed to build the schematic world sections for chunk {}, placing them directly", pos, e);
+
+                if (worldSchematic.getChunkProvider().isChunkGeneratedAt(pos.x, pos.z) == false)
+                {
+                    worldSchematic.getChunkProvider().loadChunk(pos.x, pos.z);
+                }
+
+                this.rebuildSchematicChunkSections(worldSchematic, pos, build.getSectionMask());
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending background section build for the given chunk, if any.
+     * @return the section mask of the cancelled build, or 0 if there was no pending build
+     */
+    private int cancelPendingSectionBuild(ChunkPos pos)
+    {
+        SchematicSectionBuilder.PendingBuild build = this.pendingSectionBuilds.remove(pos);
+
+        if (build != null)
+        {
+            build.cancel();
+            return build.getSectionMask();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Marks the contents of the given chunk as changed, so that any background build
+     * for it that is still in progress gets discarded, and cancels that build.
+     * @return the section mask of the cancelled build, or 0 if there was no pending build
+     */
+    private int invalidatePendingSectionBuild(ChunkPos pos)
+    {
+        this.chunkBuildGenerations.merge(pos, 1, Integer::sum);
+        return this.cancelPendingSectionBuild(pos);
+    }
+
+    private void queueSectionsForRebuild(ChunkPos pos, int sectionMask)
+    {
+        // A pending full rebuild of the chunk already covers the changed sections
+        if (this.chunksToRebuild.contains(pos) == false || this.sectionsToRebuild.containsKey(pos))
+        {
+            this.sectionsToRebuild.merge(pos, sectionMask, (m1, m2) -> m1 | m2);
+            this.chunksToRebuild.add(pos);
+        }
+    }
+
+    private void cancelAllPendingSectionBuilds()
+    {
+        this.pendingSectionBuilds.values().forEach(SchematicSectionBuilder.PendingBuild::cancel);
+        this.pendingSectionBuilds.clear();
+    }
+
     public void onClientChunkUnload(int chunkX, int chunkZ)
     {
         if (Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() == false)
@@ -201,8 +346,45 @@ public class SchematicPlacementManager
             if (worldSchematic != null)
             {
                 this.unloadSchematicChunk(worldSchematic, chunkX, chunkZ);
-                this.chunksToRebuild.add(new ChunkPos(chunkX, chunkZ));
+                this.markChunkForRebuild(new ChunkPos(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private void rebuildSchematicChunkSections(WorldSchematic worldSchematic, ChunkPos pos, int sectionMask)
+    {
+        ((ChunkSchematic) worldSchematic.getChunk(pos.x, pos.z)).clearSections(sectionMask);
+
+        Collection<SchematicPlacement> placements = this.schematicsTouchingChunk.get(pos);
+        int cy = 0;
+
+        // Re-place each continuous run of changed sections at once
+        while (cy < 16)
+        {
+            if ((sectionMask & (1 << cy)) == 0)
+            {
+                ++cy;
+                continue;
+            }
+
+            final int minY = cy << 4;
+
+            while (cy < 16 && (sectionMask & (1 << cy)) != 0)
+            {
+                ++cy;
+            }
+
+            final int maxY = (cy << 4) - 1;
+
+            for (SchematicPlacement placement : placements)
+            {
+                if (placement.isEnabled())
+                {
+                    SchematicPlacingUtils.placeToWorldWithinChunk(placement, pos, worldSchematic, minY, maxY, ReplaceBehavior.ALL, false);
+                }
             }
+
+            worldSchematic.markBlockRangeForRenderUpdate((pos.x << 4) - 1, minY - 1, (pos.z << 4) - 1, (pos.x << 4) + 16, maxY + 1, (pos.z << 4) + 16);
         }
     }
 
@@ -315,10 +497,15 @@ public class SchematicPlacementManager
     }
 
     private void addSchematicPlacement(SchematicPlacement placement, boolean printMessages, boolean isLoadFromFile)
+    {
+        this.addSchematicPlacement(placement, this.schematicPlacements.size(), printMessages, isLoadFromFile);
+    }
+
+    private void addSchematicPlacement(SchematicPlacement placement, int listIndex, boolean printMessages, boolean isLoadFromFile)
     {
         if (this.schematicPlacements.contains(placement) == false)
         {
-            this.schematicPlacements.add(placement);
+            this.schematicPlacements.add(listIndex, placement);
             this.addVisiblePlacement(placement);
             this.addTouchedChunksFor(placement);
 
@@ -570,12 +757,15 @@ public class SchematicPlacementManager
     {
         this.chunksPreChange.clear();
         this.chunksPreChange.addAll(placement.getTouchedChunks());
+        this.sectionStatesPreChange.clear();
+        this.sectionStatesPreChange.putAll(this.getPlacedSectionStates(placement));
     }
 
     private void onPostPlacementChange(SchematicPlacement placement)
     {
         Set<ChunkPos> chunksPost = placement.getTouchedChunks();
         Set<ChunkPos> toRebuild = new HashSet<>(chunksPost);
+        Map<SubChunkPos, Set<PlacedRegionState>> sectionStatesPost = this.getPlacedSectionStates(placement);
 
         //System.out.printf("chunkPre: %s - chunkPost: %s\n", this.chunksPreChange, chunksPost);
         this.chunksPreChange.removeAll(chunksPost);
@@ -608,7 +798,93 @@ public class SchematicPlacementManager
             this.updateTouchedBoxesInChunk(pos);
         }
 
-        this.markChunksForRebuild(toRebuild);
+        this.markChangedSectionsForRebuild(toRebuild, this.sectionStatesPreChange, sectionStatesPost);
+        this.sectionStatesPreChange.clear();
+    }
+
+    /**
+     * Returns what the placement places into each chunk section it touches.
+     * If these are equal before and after a change, then the section's contents didn't change.
+     */
+    private Map<SubChunkPos, Set<PlacedRegionState>> getPlacedSectionStates(SchematicPlacement placement)
+    {
+        Map<SubChunkPos, Set<PlacedRegionState>> map = new HashMap<>();
+
+        if (placement.isEnabled() == false)
+        {
+            return map;
+        }
+
+        for (ChunkPos pos : placement.getTouchedChunks())
+        {
+            for (Map.Entry<String, IntBoundingBox> entry : placement.getBoxesWithinChunk(pos.x, pos.z).entrySet())
+            {
+                String regionName = entry.getKey();
+                IntBoundingBox box = entry.getValue();
+                SubRegionPlacement subPlacement = placement.getRelativeSubRegionPlacement(regionName);
+                final int startCY = Math.max(box.minY >> 4, 0);
+                final int endCY = Math.min(box.maxY >> 4, 15);
+
+                for (int cy = startCY; cy <= endCY; ++cy)
+                {
+                    int y1 = Math.max((cy << 4)     , box.minY);
+                    int y2 = Math.min((cy << 4) + 15, box.maxY);
+                    IntBoundingBox bbSub = new IntBoundingBox(box.minX, y1, box.minZ, box.maxX, y2, box.maxZ);
+
+                    map.computeIfAbsent(new SubChunkPos(pos.x, cy, pos.z), p -> new HashSet<>())
+                       .add(new PlacedRegionState(placement, subPlacement, regionName, bbSub));
+                }
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Marks only those sections of the given chunks for rebuild,
+     * where the contents placed by the placement have changed.
+     */
+    private void markChangedSectionsForRebuild(Collection<ChunkPos> chunks,
+                                               Map<SubChunkPos, Set<PlacedRegionState>> statesPre,
+                                               Map<SubChunkPos, Set<PlacedRegionState>> statesPost)
+    {
+        Map<ChunkPos, Integer> changedSections = new HashMap<>();
+        Set<SubChunkPos> allSections = new HashSet<>(statesPre.keySet());
+        allSections.addAll(statesPost.keySet());
+
+        for (SubChunkPos pos : allSections)
+        {
+            if (Objects.equals(statesPre.get(pos), statesPost.get(pos)) == false)
+            {
+                changedSections.merge(new ChunkPos(pos.getX(), pos.getZ()), 1 << pos.getY(), (m1, m2) -> m1 | m2);
+            }
+        }
+
+        boolean marked = false;
+
+        for (ChunkPos pos : chunks)
+        {
+            Integer sectionMask = changedSections.get(pos);
+
+            if (sectionMask == null)
+            {
+                continue;
+            }
+
+            // A build that is still in progress would publish outdated sections, so it gets re-queued
+            sectionMask |= this.invalidatePendingSectionBuild(pos);
+            this.queueSectionsForRebuild(pos, sectionMask);
+
+            marked = true;
+        }
+
+        if (marked)
+        {
+            for (IGenericEventListener listener : this.rebuildListeners)
+            {
+                listener.onEvent();
+            }
+        }
     }
 
     private void onPlacementModified(SchematicPlacement placement)
@@ -951,6 +1227,8 @@ public class SchematicPlacementManager
     {
         //System.out.printf("rebuilding %d chunks: %s\n", chunks.size(), chunks);
         this.chunksToRebuild.addAll(chunks);
+        this.sectionsToRebuild.keySet().removeAll(chunks);
+        chunks.forEach(this::invalidatePendingSectionBuild);
 
         for (IGenericEventListener listener : this.rebuildListeners)
         {
@@ -961,6 +1239,8 @@ public class SchematicPlacementManager
     public void markChunkForRebuild(ChunkPos pos)
     {
         this.chunksToRebuild.add(pos);
+        this.sectionsToRebuild.remove(pos);
+        this.invalidatePendingSectionBuild(pos);
     }
 
     public boolean changeSelection(World world, Entity entity, int maxDistance)
@@ -1100,12 +1380,20 @@ public class SchematicPlacementManager
         this.lightlyLoadedPlacements.clear();
         this.gridManager.clear();
         this.selectedPlacement = null;
+        this.placementLoadSlots.clear();
+        this.pendingPlacementLoads = 0;
+        this.pendingSelectedIndex = -1;
         this.schematicsTouchingChunk.clear();
         this.touchedVolumesInSubChunk.clear();
         this.chunksPreChange.clear();
+        this.sectionStatesPreChange.clear();
+        this.sectionsToRebuild.clear();
         this.chunksToRebuild.clear();
         this.chunksToUnload.clear();
+        this.cancelAllPendingSectionBuilds();
+        this.chunkBuildGenerations.clear();
 
+        AsyncSchematicLoader.getInstance().cancelAll();
         SchematicHolder.getInstance().clearLoadedSchematics();
     }
 
@@ -1133,25 +1421,31 @@ public class SchematicPlacementManager
                 return;
             }
 
+            // The placement is kept in the lightly loaded list while its schematic is being read
+            // on the background thread, so that it still shows up in the list and gets saved.
+            this.lightlyLoadedPlacements.add(placement);
+
             if (placement.isEnabled())
             {
-                SchematicPlacement loadedPlacement = placement.fullyLoadPlacement();
+                File schematicFile = placement.getSchematicFile();
 
-                if (loadedPlacement != null)
+                if (schematicFile != null)
                 {
-                    this.addSchematicPlacement(loadedPlacement, false, true);
+                    if (this.placementLoadSlots.containsKey(placement))
+                    {
+                        ++this.pendingPlacementLoads;
+                    }
+
+                    SchematicHolder.getInstance().getOrLoadAsync(schematicFile,
+                                                                 schematic -> this.onPlacementSchematicLoaded(placement),
+                                                                 () -> this.onPlacementSchematicLoadFailed(placement));
                 }
-                // Failed to load the schematic, or it did not have a file (that should never happen)
+                // The placement did not have a schematic file (that should never happen)
                 else
                 {
                     placement.enabled = false;
-                    this.lightlyLoadedPlacements.add(placement);
                 }
             }
-            else
-            {
-                this.lightlyLoadedPlacements.add(placement);
-            }
 
             if (isActiveList == false)
             {
@@ -1160,6 +1454,107 @@ public class SchematicPlacementManager
         }
     }
 
+    private void onPlacementSchematicLoaded(SchematicPlacementUnloaded placement)
+    {
+        // The placement was removed or loaded by other means while the schematic was being read
+        if (this.lightlyLoadedPlacements.contains(placement) == false)
+        {
+            this.onPlacementLoadFinished(placement);
+            return;
+        }
+
+        SchematicPlacement loadedPlacement = placement.fullyLoadPlacement();
+
+        if (loadedPlacement != null)
+        {
+            Integer slot = this.placementLoadSlots.get(placement);
+
+            this.lightlyLoadedPlacements.remove(placement);
+            this.addSchematicPlacement(loadedPlacement, this.getLoadedListIndexFor(slot), false, true);
+
+            // The loaded placement is a new object, which the later loaded placements get sorted against
+            if (slot != null)
+            {
+                this.placementLoadSlots.put(loadedPlacement, slot);
+            }
+        }
+        else
+        {
+            placement.enabled = false;
+        }
+
+        this.onPlacementLoadFinished(placement);
+    }
+
+    private void onPlacementSchematicLoadFailed(SchematicPlacementUnloaded placement)
+    {
+        MessageDispatcher.error().translate("litematica.error.schematic_load.failed", placement.getSchematicFile().getAbsolutePath());
+        placement.enabled = false;
+        this.onPlacementLoadFinished(placement);
+    }
+
+    /**
+     * @return the index in the loaded placements list where a placement with the given original slot should be added,
+     * so that the placements from the placement list file stay in their original order
+     */
+    private int getLoadedListIndexFor(@Nullable Integer slot)
+    {
+        if (slot == null)
+        {
+            return this.schematicPlacements.size();
+        }
+
+        for (int i = 0; i < this.schematicPlacements.size(); ++i)
+        {
+            Integer otherSlot = this.placementLoadSlots.get(this.schematicPlacements.get(i));
+
+            // Placements added by other means during the load get placed after the loaded placements
+            if (otherSlot == null || otherSlot > slot)
+            {
+                return i;
+            }
+        }
+
+        return this.schematicPlacements.size();
+    }
+
+    private void onPlacementLoadFinished(SchematicPlacementUnloaded placement)
+    {
+        if (this.placementLoadSlots.containsKey(placement) == false)
+        {
+            return;
+        }
+
+        --this.pendingPlacementLoads;
+        this.applyPendingSelectionIfDone();
+    }
+
+    /**
+     * Selects the saved selected placement once all the placements from the file have finished loading,
+     * same as the selected index was resolved against the fully loaded list before the loading was asynchronous.
+     */
+    private void applyPendingSelectionIfDone()
+    {
+        if (this.pendingPlacementLoads > 0)
+        {
+            return;
+        }
+
+        int index = this.pendingSelectedIndex;
+
+        this.placementLoadSlots.clear();
+        this.pendingPlacementLoads = 0;
+        this.pendingSelectedIndex = -1;
+
+        // Don't override a selection that the user has already made while the placements were loading
+        if (this.selectedPlacement == null && index >= 0 && index < this.schematicPlacements.size())
+        {
+            this.selectedPlacement = this.schematicPlacements.get(index);
+        }
+
+        OverlayRenderer.getInstance().updatePlacementCache();
+    }
+
     private boolean checkIsAlreadyLoaded(SchematicPlacementUnloaded placement)
     {
         if (placement.placementSaveFile == null)
@@ -1251,6 +1646,7 @@ public class SchematicPlacementManager
         {
             JsonArray arr = obj.get("placements").getAsJsonArray();
             int index = JsonUtils.hasInteger(obj, "selected") ? obj.get("selected").getAsInt() : -1;
+            List<SchematicPlacementUnloaded> placements = new ArrayList<>();
             final int size = arr.size();
 
             for (int i = 0; i < size; ++i)
@@ -1260,7 +1656,12 @@ public class SchematicPlacementManager
                 if (el.isJsonObject())
                 {
                     SchematicPlacementUnloaded placement = SchematicPlacementUnloaded.fromJson(el.getAsJsonObject());
-                    this.loadPlacementFromFile(placement, true);
+
+                    if (placement != null)
+                    {
+                        this.placementLoadSlots.put(placement, placements.size());
+                        placements.add(placement);
+                    }
                 }
                 else
                 {
@@ -1269,10 +1670,19 @@ public class SchematicPlacementManager
                 }
             }
 
-            if (index >= 0 && index < this.schematicPlacements.size())
+            // The selected index is resolved against the loaded placements once all of them have been loaded.
+            // The extra pending load prevents that from happening while the loads are still being started,
+            // as the listeners of already loaded schematics are called immediately.
+            this.pendingSelectedIndex = index;
+            this.pendingPlacementLoads = 1;
+
+            for (SchematicPlacementUnloaded placement : placements)
             {
-                this.selectedPlacement = this.schematicPlacements.get(index);
+                this.loadPlacementFromFile(placement, true);
             }
+
+            --this.pendingPlacementLoads;
+            this.applyPendingSelectionIfDone();
         }
 
         OverlayRenderer.getInstance().updatePlacementCache();
@@ -1283,6 +1693,82 @@ public class SchematicPlacementManager
         MessageDispatcher.error("litematica.message.error.schematic_placement.locked");
     }
 
+    /**
+     * The box of one sub-region within one chunk section, along with everything
+     * that affects what gets placed into that box.
+     */
+    private static class PlacedRegionState
+    {
+        private final String regionName;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private final BlockPos origin;
+        private final Rotation rotation;
+        private final Mirror mirror;
+        private final boolean ignoreEntities;
+        @Nullable private final BlockPos subRegionPos;
+        @Nullable private final Rotation subRegionRotation;
+        @Nullable private final Mirror subRegionMirror;
+        private final boolean subRegionIgnoreEntities;
+
+        private PlacedRegionState(SchematicPlacement placement, @Nullable SubRegionPlacement subPlacement,
+                                  String regionName, IntBoundingBox box)
+        {
+            this.regionName = regionName;
+            this.minX = box.minX;
+            this.minY = box.minY;
+            this.minZ = box.minZ;
+            this.maxX = box.maxX;
+            this.maxY = box.maxY;
+            this.maxZ = box.maxZ;
+            this.origin = placement.getOrigin();
+            this.rotation = placement.getRotation();
+            this.mirror = placement.getMirror();
+            this.ignoreEntities = placement.ignoreEntities();
+            this.subRegionPos = subPlacement != null ? subPlacement.getPos() : null;
+            this.subRegionRotation = subPlacement != null ? subPlacement.getRotation() : null;
+            this.subRegionMirror = subPlacement != null ? subPlacement.getMirror() : null;
+            this.subRegionIgnoreEntities = subPlacement != null && subPlacement.ignoreEntities();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) { return true; }
+            if (o == null || this.getClass() != o.getClass()) { return false; }
+
+            PlacedRegionState that = (PlacedRegionState) o;
+
+            return this.minX == that.minX && this.minY == that.minY && this.minZ == that.minZ &&
+                   this.maxX == that.maxX && this.maxY == that.maxY && this.maxZ == that.maxZ &&
+                   this.ignoreEntities == that.ignoreEntities &&
+                   this.subRegionIgnoreEntities == that.subRegionIgnoreEntities &&
+                   this.rotation == that.rotation &&
+                   this.mirror == that.mirror &&
+                   this.subRegionRotation == that.subRegionRotation &&
+                   this.subRegionMirror == that.subRegionMirror &&
+                   this.regionName.equals(that.regionName) &&
+                   this.origin.equals(that.origin) &&
+                   Objects.equals(this.subRegionPos, that.subRegionPos);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = this.regionName.hashCode();
+            result = 31 * result + this.origin.hashCode();
+            result = 31 * result + this.minX;
+            result = 31 * result + this.minY;
+            result = 31 * result + this.minZ;
+            result = 31 * result + this.maxX;
+            result = 31 * result + this.maxY;
+            result = 31 * result + this.maxZ;
+            result = 31 * result + this.rotation.hashCode();
+            result = 31 * result + this.mirror.hashCode();
+            result = 31 * result + (this.subRegionPos != null ? this.subRegionPos.hashCode() : 0);
+            return result;
+        }
+    }
+
     public static class PlacementPart
     {
         private final SchematicPlacement placement;
@@ -20,6 +20,7 @@ import net.minecraft.util.Mirror;
 import net.minecraft.util.Rotation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.Vec3i;
 import net.minecraft.world.NextTickListEntry;
@@ -38,6 +39,8 @@ import fi.dy.masa.litematica.schematic.EntityInfo;
 import fi.dy.masa.litematica.schematic.ISchematic;
 import fi.dy.masa.litematica.schematic.ISchematicRegion;
 import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStateContainer;
+import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStatePalette;
+import fi.dy.masa.litematica.schematic.container.LitematicaBlockStateContainerBase;
 import fi.dy.masa.litematica.schematic.placement.SchematicPlacement;
 import fi.dy.masa.litematica.schematic.placement.SchematicPlacementManager;
 import fi.dy.masa.litematica.schematic.placement.SubRegionPlacement;
@@ -236,13 +239,24 @@ public class SchematicPlacingUtils
         final int endY = containerEnd.getY();
         final int endZ = containerEnd.getZ();
 
+        final ILitematicaBlockStatePalette palette = container.getPalette();
+        final int rowLength = endX - startX + 1;
+        final int[] rowIds = new int[rowLength];
+
         for (int y = startY; y <= endY; ++y)
         {
             for (int z = startZ; z <= endZ; ++z)
             {
+                container.getBlockStateIdRow(startX, y, z, rowLength, rowIds, 0);
+
                 for (int x = startX; x <= endX; ++x)
                 {
-                    IBlockState state = container.getBlockState(x, y, z);
+                    IBlockState state = palette.getBlockState(rowIds[x - startX]);
+
+                    if (state == null)
+                    {
+                        state = LitematicaBlockStateContainerBase.AIR_BLOCK_STATE;
+                    }
 
                     if (state.getBlock() == Blocks.STRUCTURE_VOID)
                     {
@@ -391,6 +405,16 @@ public class SchematicPlacingUtils
     }
 
     public static boolean placeToWorldWithinChunk(SchematicPlacement schematicPlacement, ChunkPos chunkPos, World world, ReplaceBehavior replace, boolean notifyNeighbors)
+    {
+        return placeToWorldWithinChunk(schematicPlacement, chunkPos, world, 0, world.getHeight() - 1, replace, notifyNeighbors);
+    }
+
+    /**
+     * Places the parts of the placement that are within the given chunk and within the given
+     * y-range to the world. The entities are included based on the chunk section they belong to.
+     */
+    public static boolean placeToWorldWithinChunk(SchematicPlacement schematicPlacement, ChunkPos chunkPos, World world,
+                                                  int minY, int maxY, ReplaceBehavior replace, boolean notifyNeighbors)
     {
         ISchematic schematic = schematicPlacement.getSchematic();
         Set<String> regionsTouchingChunk = schematicPlacement.getRegionsTouchingChunk(chunkPos.x, chunkPos.z);
@@ -417,7 +441,7 @@ public class SchematicPlacingUtils
 
                 if (placement.isEnabled())
                 {
-                    if (placeBlocksWithinChunk(world, chunkPos, regionName, region, origin, schematicPlacement, placement, replace, notifyNeighbors) == false)
+                    if (placeBlocksWithinChunk(world, chunkPos, minY, maxY, regionName, region, origin, schematicPlacement, placement, replace, notifyNeighbors) == false)
                     {
                         allSuccess = false;
                         Litematica.logger.warn("Invalid/missing schematic data in schematic '{}' for sub-region '{}'", schematic.getMetadata().getName(), regionName);
@@ -425,7 +449,7 @@ public class SchematicPlacingUtils
 
                     if (schematicPlacement.ignoreEntities() == false && placement.ignoreEntities() == false)
                     {
-                        placeEntitiesToWorldWithinChunk(world, chunkPos, region, origin, schematicPlacement, placement);
+                        placeEntitiesToWorldWithinChunk(world, chunkPos, minY, maxY, region, origin, schematicPlacement, placement);
                     }
                 }
             }
@@ -440,6 +464,13 @@ public class SchematicPlacingUtils
 
     public static boolean placeBlocksWithinChunk(World world, ChunkPos chunkPos, String regionName, ISchematicRegion region,
             BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement, ReplaceBehavior replace, boolean notifyNeighbors)
+    {
+        return placeBlocksWithinChunk(world, chunkPos, 0, world.getHeight() - 1, regionName, region,
+                                      origin, schematicPlacement, placement, replace, notifyNeighbors);
+    }
+
+    public static boolean placeBlocksWithinChunk(World world, ChunkPos chunkPos, int minY, int maxY, String regionName, ISchematicRegion region,
+            BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement, ReplaceBehavior replace, boolean notifyNeighbors)
     {
         IntBoundingBox bounds = schematicPlacement.getBoxWithinChunkForRegion(regionName, chunkPos.x, chunkPos.z);
         ILitematicaBlockStateContainer container = region.getBlockStateContainer();
@@ -483,10 +514,17 @@ public class SchematicPlacingUtils
         final int endX = posMax.getX();
         final int endZ = posMax.getZ();
 
-        final int startY = 0;
-        final int endY = Math.abs(regionSize.getY()) - 1;
+        // The rotations and mirrors are all horizontal, so the world y-coordinate is just an offset from the relative y-coordinate
+        final int offsetY = posMinRel.getY() - regionPos.getY() + regionPosTransformed.getY() + origin.getY();
+        final int startY = Math.max(0, minY - offsetY);
+        final int endY = Math.min(Math.abs(regionSize.getY()) - 1, maxY - offsetY);
         BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
 
+        if (startY > endY)
+        {
+            return true;
+        }
+
         //System.out.printf("sx: %d, sy: %d, sz: %d => ex: %d, ey: %d, ez: %d\n", startX, startY, startZ, endX, endY, endZ);
 
         if (startX < 0 || startZ < 0 || endX >= container.getSize().getX() || endZ >= container.getSize().getZ())
@@ -508,13 +546,24 @@ public class SchematicPlacingUtils
             mirrorSub = mirrorSub == Mirror.FRONT_BACK ? Mirror.LEFT_RIGHT : Mirror.FRONT_BACK;
         }
 
+        final ILitematicaBlockStatePalette palette = container.getPalette();
+        final int rowLength = endX - startX + 1;
+        final int[] rowIds = new int[rowLength];
+
         for (int y = startY; y <= endY; ++y)
         {
             for (int z = startZ; z <= endZ; ++z)
             {
+                container.getBlockStateIdRow(startX, y, z, rowLength, rowIds, 0);
+
                 for (int x = startX; x <= endX; ++x)
                 {
-                    IBlockState state = container.getBlockState(x, y, z);
+                    IBlockState state = palette.getBlockState(rowIds[x - startX]);
+
+                    if (state == null)
+                    {
+                        state = LitematicaBlockStateContainerBase.AIR_BLOCK_STATE;
+                    }
 
                     if (state.getBlock() == Blocks.STRUCTURE_VOID)
                     {
@@ -607,6 +656,16 @@ public class SchematicPlacingUtils
 
     public static void placeEntitiesToWorldWithinChunk(World world, ChunkPos chunkPos, ISchematicRegion region,
             BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        placeEntitiesToWorldWithinChunk(world, chunkPos, 0, world.getHeight() - 1, region, origin, schematicPlacement, placement);
+    }
+
+    /**
+     * Places the entities of the sub-region that are within the given chunk, and which
+     * would be stored in the chunk sections overlapping the given y-range.
+     */
+    public static void placeEntitiesToWorldWithinChunk(World world, ChunkPos chunkPos, int minY, int maxY, ISchematicRegion region,
+            BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement)
     {
         BlockPos regionPos = placement.getPos();
         List<EntityInfo> entityList = region.getEntityList();
@@ -624,6 +683,8 @@ public class SchematicPlacingUtils
         final double minZ = (chunkPos.z << 4);
         final double maxX = (chunkPos.x << 4) + 16;
         final double maxZ = (chunkPos.z << 4) + 16;
+        final int minSection = minY >> 4;
+        final int maxSection = maxY >> 4;
 
         final Rotation rotationCombined = schematicPlacement.getRotation().add(placement.getRotation());
         final Mirror mirrorMain = schematicPlacement.getMirror();
@@ -649,7 +710,10 @@ public class SchematicPlacingUtils
                 double y = pos.y + offY;
                 double z = pos.z + offZ;
 
-                if (x >= minX && x < maxX && z >= minZ && z < maxZ)
+                // Entities outside the world's height are stored in the top or bottom sections
+                final int section = MathHelper.clamp(MathHelper.floor(y) >> 4, 0, 15);
+
+                if (x >= minX && x < maxX && z >= minZ && z < maxZ && section >= minSection && section <= maxSection)
                 {
                     rotateEntity(entity, x, y, z, rotationCombined, mirrorMain, mirrorSub);
                     //System.out.printf("post: %.1f - rot: %s, mm: %s, ms: %s\n", rotationYaw, rotationCombined, mirrorMain, mirrorSub);
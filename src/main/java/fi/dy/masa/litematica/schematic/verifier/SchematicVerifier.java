@@ -1,5 +1,6 @@
 package fi.dy.masa.litematica.schematic.verifier;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -8,15 +9,17 @@ import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 import com.google.common.collect.ArrayListMultimap;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
 import net.minecraft.init.Blocks;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
 import fi.dy.masa.malilib.listener.EventListener;
 import fi.dy.masa.malilib.listener.TaskCompletionListener;
 import fi.dy.masa.malilib.util.BlockUtils;
@@ -35,6 +38,7 @@ import fi.dy.masa.litematica.selection.SelectionBox;
 import fi.dy.masa.litematica.task.SchematicVerifierTask;
 import fi.dy.masa.litematica.util.BlockInfoListType;
 import fi.dy.masa.litematica.util.PositionUtils;
+import fi.dy.masa.litematica.world.SchematicWorldHandler;
 
 public class SchematicVerifier implements IInfoHudRenderer
 {
@@ -44,7 +48,9 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected final ArrayListMultimap<ChunkPos, IntBoundingBox> boxesInChunks = ArrayListMultimap.create();
     protected final LongOpenHashSet completedChunks = new LongOpenHashSet();
 
-    protected final Long2ObjectOpenHashMap<Object2ObjectOpenHashMap<BlockStatePair, IntArrayList>> resultsPerChunk = new Long2ObjectOpenHashMap<>();
+    protected final Long2ObjectOpenHashMap<VerifierChunkResults> resultsPerChunk = new Long2ObjectOpenHashMap<>();
+    /** The results read from a saved session, which are used if the chunk contents haven't changed since */
+    protected final Long2ObjectOpenHashMap<VerifierChunkResults> savedResultsPerChunk = new Long2ObjectOpenHashMap<>();
     protected final Object2IntOpenHashMap<BlockStatePair> countsPerPair = new Object2IntOpenHashMap<>();
     protected final Object2IntOpenHashMap<VerifierResultType> countsPerType = new Object2IntOpenHashMap<>();
 
@@ -54,7 +60,7 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected final HashSet<BlockStatePair> ignoredPairs = new HashSet<>();
     protected final HashSet<VerifierResultType> visibleCategories = new HashSet<>();
 
-    protected final ArrayList<BlockPairTypePosition> allSelectedPositions = new ArrayList<>();
+    protected final VerifierPositionIndex selectedPositions = new VerifierPositionIndex();
     protected final ArrayList<BlockPairTypePosition> closestSelectedPositions = new ArrayList<>();
 
     protected final ArrayList<String> infoHudLines = new ArrayList<>();
@@ -65,6 +71,8 @@ public class SchematicVerifier implements IInfoHudRenderer
     @Nullable protected TaskCompletionListener completionListener;
     @Nullable protected EventListener statusChangeListener;
     @Nullable BlockPos lastSortPosition;
+    /** The file that the session of this verifier was last saved to or loaded from */
+    @Nullable File lastSessionFile;
     protected boolean autoRefresh = true;
     protected boolean countsDirty;
     protected boolean infoHudEnabled;
@@ -202,6 +210,7 @@ public class SchematicVerifier implements IInfoHudRenderer
             {
                 this.clear();
                 this.updateRequiredBoxes();
+                VerifierSessionStorage.loadSession(this, this.savedResultsPerChunk);
                 this.task.setBoxes(this.boxesInChunks);
             }
 
@@ -236,6 +245,8 @@ public class SchematicVerifier implements IInfoHudRenderer
     {
         this.status = RunStatus.FINISHED;
         this.task = null;
+        this.savedResultsPerChunk.clear();
+        VerifierSessionStorage.saveSession(this);
 
         if (this.completionListener != null)
         {
@@ -376,7 +387,177 @@ public class SchematicVerifier implements IInfoHudRenderer
         }
     }
 
-    public void addBlockResultsFromWorld(ChunkPos chunkPos, Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results)
+    /**
+     * Updates the results of the changed blocks and their neighbors directly,
+     * instead of re-checking the entire chunks.
+     * The neighbors are included because the actual state of a block can depend on them.
+     * @param changedBlocks the changed block positions, with the state before the change
+     * @param reCheckChunks the chunks that can't be updated per block get added here for a full re-check
+     */
+    public void updateChangedBlocks(Long2ObjectOpenHashMap<IBlockState> changedBlocks, LongOpenHashSet reCheckChunks)
+    {
+        World schematicWorld = SchematicWorldHandler.getSchematicWorld();
+        World clientWorld = Minecraft.getMinecraft().world;
+
+        if (this.autoRefresh == false || this.status == RunStatus.STOPPED ||
+            schematicWorld == null || clientWorld == null)
+        {
+            return;
+        }
+
+        LongOpenHashSet checkedPositions = new LongOpenHashSet();
+        BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+        boolean changed = false;
+
+        for (Long2ObjectMap.Entry<IBlockState> entry : changedBlocks.long2ObjectEntrySet())
+        {
+            BlockPos pos = BlockPos.fromLong(entry.getLongKey());
+
+            changed |= this.updateBlock(pos, entry.getValue(), schematicWorld, clientWorld, checkedPositions, reCheckChunks);
+
+            for (EnumFacing side : EnumFacing.values())
+            {
+                mutablePos.setPos(pos.getX() + side.getXOffset(), pos.getY() + side.getYOffset(), pos.getZ() + side.getZOffset());
+
+                // The neighbors themselves didn't change, so the old state is the current state
+                if (changedBlocks.containsKey(mutablePos.toLong()) == false)
+                {
+                    changed |= this.updateBlock(mutablePos, clientWorld.getBlockState(mutablePos),
+                                                schematicWorld, clientWorld, checkedPositions, reCheckChunks);
+                }
+            }
+        }
+
+        if (changed)
+        {
+            if (this.statusChangeListener != null)
+            {
+                this.statusChangeListener.onEvent();
+            }
+        }
+    }
+
+    protected boolean updateBlock(BlockPos pos, IBlockState oldState, World schematicWorld, World clientWorld,
+                                  LongOpenHashSet checkedPositions, LongOpenHashSet reCheckChunks)
+    {
+        long chunkPosLong = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+
+        // Chunks that are not checked yet will be checked normally by the task later,
+        // and already re-queued chunks will get re-checked entirely anyway
+        if (this.completedChunks.contains(chunkPosLong) == false ||
+            reCheckChunks.contains(chunkPosLong) ||
+            this.isInCheckedBoxes(pos) == false ||
+            checkedPositions.add(pos.toLong()) == false)
+        {
+            return false;
+        }
+
+        VerifierChunkResults results = this.resultsPerChunk.get(chunkPosLong);
+
+        if (results == null)
+        {
+            return false;
+        }
+
+        IBlockState expectedState = schematicWorld.getBlockState(pos);
+        IBlockState foundState = clientWorld.getBlockState(pos).getActualState(clientWorld, pos);
+        int packedPos = fi.dy.masa.malilib.util.PositionUtils.getPackedChunkRelativePosition(pos);
+        final long posLong = pos.toLong();
+
+        if (results.updateBlock(expectedState, oldState, foundState, packedPos,
+                                (oldPair, newPair) -> this.onBlockResultChanged(oldPair, newPair, posLong)) == false)
+        {
+            reCheckChunks.add(chunkPosLong);
+            return false;
+        }
+
+        return true;
+    }
+
+    protected boolean isInCheckedBoxes(BlockPos pos)
+    {
+        final int x = pos.getX();
+        final int y = pos.getY();
+        final int z = pos.getZ();
+
+        for (IntBoundingBox box : this.boxesInChunks.get(new ChunkPos(x >> 4, z >> 4)))
+        {
+            if (x >= box.minX && x <= box.maxX &&
+                y >= box.minY && y <= box.maxY &&
+                z >= box.minZ && z <= box.maxZ)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Updates the counts and the selected positions for one block that moved from the old pair to the new pair.
+     * The selected positions are moved directly in the index, instead of re-building the entire index.
+     */
+    protected void onBlockResultChanged(BlockStatePair oldPair, BlockStatePair newPair, long posLong)
+    {
+        this.onPairCountChanged(oldPair, -1);
+        this.onPairCountChanged(newPair, 1);
+
+        // If the selected pairs or positions are going to be re-calculated anyway, there is no need to update them here
+        if (this.selectedPairsDirty || this.selectedPositionsDirty)
+        {
+            return;
+        }
+
+        // The positions are only stored for the mismatches, not for the correct blocks
+        if (oldPair.type != VerifierResultType.CORRECT_STATE && this.calculatedSelectedPairs.contains(oldPair))
+        {
+            this.selectedPositions.remove(oldPair, posLong);
+            this.selectedClosestPositionsDirty = true;
+        }
+
+        if (newPair.type != VerifierResultType.CORRECT_STATE && this.calculatedSelectedPairs.contains(newPair))
+        {
+            this.selectedPositions.add(newPair, posLong);
+            this.selectedClosestPositionsDirty = true;
+        }
+    }
+
+    protected void onPairCountChanged(BlockStatePair pair, int change)
+    {
+        // If the counts are going to be re-calculated anyway, there is no need to update them here
+        if (this.countsDirty == false)
+        {
+            boolean wasPresent = this.countsPerPair.containsKey(pair);
+
+            if (this.countsPerPair.addTo(pair, change) + change <= 0)
+            {
+                this.countsPerPair.removeInt(pair);
+            }
+
+            if (this.countsPerType.addTo(pair.type, change) + change <= 0)
+            {
+                this.countsPerType.removeInt(pair.type);
+            }
+
+            // A new pair might need to be included in the selected pairs by its type
+            if (wasPresent == false && (this.selectedPairs.contains(pair) || this.selectedTypes.contains(pair.type)))
+            {
+                this.calculatedSelectedPairs.add(pair);
+            }
+        }
+    }
+
+    /**
+     * @return the results of the given chunk from a saved session, if there are any.
+     * The results are removed, as they will either be used as-is or replaced by a new check.
+     */
+    @Nullable
+    public VerifierChunkResults takeSavedResults(ChunkPos pos)
+    {
+        return this.savedResultsPerChunk.remove(ChunkPos.asLong(pos.x, pos.z));
+    }
+
+    public void addBlockResultsFromWorld(ChunkPos chunkPos, VerifierChunkResults results)
     {
         long chunkPosLong = ChunkPos.asLong(chunkPos.x, chunkPos.z);
 
@@ -437,12 +618,22 @@ public class SchematicVerifier implements IInfoHudRenderer
         return this.closestSelectedPositions;
     }
 
+    /**
+     * @return the spatial index of all the currently selected positions, not just the closest ones
+     */
+    public VerifierPositionIndex getSelectedPositions()
+    {
+        this.updateSelectedPositionsIfDirty();
+        return this.selectedPositions;
+    }
+
     protected void clear()
     {
         this.boxesInChunks.clear();
         this.completedChunks.clear();
 
         this.resultsPerChunk.clear();
+        this.savedResultsPerChunk.clear();
         this.countsPerPair.clear();
         this.countsPerType.clear();
 
@@ -451,7 +642,7 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.calculatedSelectedPairs.clear();
         this.ignoredPairs.clear();
 
-        this.allSelectedPositions.clear();
+        this.selectedPositions.clear();
         this.closestSelectedPositions.clear();
 
         this.status = RunStatus.STOPPED;
@@ -509,13 +700,13 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.countsPerPair.clear();
         this.countsPerType.clear();
 
-        for (Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> map : this.resultsPerChunk.values())
+        for (VerifierChunkResults results : this.resultsPerChunk.values())
         {
-            for (BlockStatePair pair : map.keySet())
+            for (VerifierChunkResults.PairResults pairResults : results.getResults())
             {
-                int size = map.get(pair).size();
-                this.countsPerPair.addTo(pair, size);
-                this.countsPerType.addTo(pair.type, size);
+                int count = pairResults.getCount();
+                this.countsPerPair.addTo(pairResults.pair, count);
+                this.countsPerType.addTo(pairResults.pair.type, count);
             }
         }
 
@@ -542,19 +733,21 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected void updateSelectedPositions()
     {
         this.updateSelectedPairsIfDirty();
-        this.allSelectedPositions.clear();
+        this.selectedPositions.clear();
 
         for (long chunkPosLong : this.resultsPerChunk.keySet())
         {
-            Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results = this.resultsPerChunk.get(chunkPosLong);
+            VerifierChunkResults results = this.resultsPerChunk.get(chunkPosLong);
 
-            for (BlockStatePair pair : results.keySet())
+            // The positions are only stored for the mismatches, not for the correct blocks
+            for (VerifierChunkResults.PairResults pairResults : results.getResults())
             {
-                if (this.calculatedSelectedPairs.contains(pair))
+                if (pairResults.hasPositions() && this.calculatedSelectedPairs.contains(pairResults.pair))
                 {
-                    for (int relPos : results.get(pair))
+                    for (int relPos : pairResults.getPositions())
                     {
-                        this.allSelectedPositions.add(BlockPairTypePosition.of(pair, chunkPosLong, relPos));
+                        long posLong = fi.dy.masa.malilib.util.PositionUtils.getPackedAbsolutePosition(chunkPosLong, relPos);
+                        this.selectedPositions.add(pairResults.pair, posLong);
                     }
                 }
             }
@@ -586,9 +779,7 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.closestSelectedPositions.clear();
 
         int max = Configs.InfoOverlays.VERIFIER_ERROR_HIGHLIGHT_MAX_POSITIONS.getIntegerValue();
-        int endIndex = Math.min(max, this.allSelectedPositions.size());
-        this.allSelectedPositions.sort(new BlockPairTypePositionComparator(referencePos, true));
-        this.closestSelectedPositions.addAll(this.allSelectedPositions.subList(0, endIndex));
+        this.closestSelectedPositions.addAll(this.selectedPositions.getClosest(referencePos, max));
         this.selectedClosestPositionsDirty = false;
         this.lastSortPosition = referencePos;
     }
@@ -3,7 +3,9 @@ package fi.dy.masa.litematica.schematic.verifier;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import fi.dy.masa.litematica.data.DataManager;
@@ -17,6 +19,8 @@ public class SchematicVerifierManager
     protected final ArrayList<SchematicVerifier> allVerifiers = new ArrayList<>();
     protected final LongOpenHashSet touchedChunks = new LongOpenHashSet();
     protected final LongOpenHashSet reCheckChunks = new LongOpenHashSet();
+    /** The positions of the changed blocks since the last tick, with the state before the first change */
+    protected final Long2ObjectOpenHashMap<IBlockState> changedBlocks = new Long2ObjectOpenHashMap<>();
     @Nullable protected SchematicVerifier selectedVerifier;
 
     public List<SchematicVerifier> getActiveVerifiers()
@@ -83,6 +87,15 @@ public class SchematicVerifierManager
 
     public void onPlacementRemoved(SchematicPlacement placement)
     {
+        // Don't leave behind the saved sessions of removed placements
+        for (SchematicVerifier verifier : this.activeVerifiers)
+        {
+            if (verifier.hasPlacement(placement))
+            {
+                VerifierSessionStorage.deleteSession(verifier);
+            }
+        }
+
         this.activeVerifiers.removeIf((v) -> v.removePlacement(placement));
 
         if (this.selectedVerifier != null &&
@@ -92,9 +105,18 @@ public class SchematicVerifierManager
         }
     }
 
-    public void onBlockChanged(BlockPos pos)
+    /**
+     * Called when a single block changes in the client world.
+     * Only the changed block and its neighbors get re-checked, on the next tick.
+     */
+    public void onBlockChanged(BlockPos pos, IBlockState oldState)
     {
-        this.onChunkChanged(pos.getX() >> 4, pos.getZ() >> 4);
+        long chunkPosLong = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+
+        if (this.touchedChunks.contains(chunkPosLong))
+        {
+            this.changedBlocks.putIfAbsent(pos.toLong(), oldState);
+        }
     }
 
     public void onChunkChanged(int cx, int cz)
@@ -107,6 +129,19 @@ public class SchematicVerifierManager
         }
     }
 
+    public void processChangedBlocks()
+    {
+        if (this.changedBlocks.isEmpty() == false)
+        {
+            for (SchematicVerifier verifier : this.activeVerifiers)
+            {
+                verifier.updateChangedBlocks(this.changedBlocks, this.reCheckChunks);
+            }
+
+            this.changedBlocks.clear();
+        }
+    }
+
     public void scheduleReChecks()
     {
         if (this.reCheckChunks.isEmpty() == false)
@@ -129,6 +164,32 @@ public class SchematicVerifierManager
         this.activeVerifiers.add(verifier);
     }
 
+    /**
+     * Saves the current state of all the active verifiers, so that they can be resumed later
+     */
+    public void saveSessions()
+    {
+        for (SchematicVerifier verifier : this.activeVerifiers)
+        {
+            VerifierSessionStorage.saveSession(verifier);
+        }
+    }
+
+    public void clear()
+    {
+        for (SchematicVerifier verifier : this.activeVerifiers)
+        {
+            verifier.reset();
+        }
+
+        this.activeVerifiers.clear();
+        this.allVerifiers.clear();
+        this.touchedChunks.clear();
+        this.reCheckChunks.clear();
+        this.changedBlocks.clear();
+        this.selectedVerifier = null;
+    }
+
     public void updateTouchedChunks()
     {
         this.touchedChunks.clear();
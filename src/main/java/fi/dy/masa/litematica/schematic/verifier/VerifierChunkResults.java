@@ -0,0 +1,270 @@
+package fi.dy.masa.litematica.schematic.verifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * The verification results of one chunk.
+ * The results are grouped by the expected and found state pairs, which are only created once per chunk,
+ * so that checking a block doesn't allocate anything. Only the number of blocks is stored for
+ * the correct pairs, and the block positions are only stored for the mismatches,
+ * as packed chunk-relative positions.
+ */
+public class VerifierChunkResults
+{
+    private final Reference2ObjectOpenHashMap<IBlockState, Reference2ObjectOpenHashMap<IBlockState, PairResults>> resultsByStates = new Reference2ObjectOpenHashMap<>();
+    private final List<PairResults> results = new ArrayList<>();
+    /** The mismatch results by position, only built once the first single block update happens */
+    @Nullable private Int2ObjectOpenHashMap<PairResults> mismatchesByPosition;
+    private PairResults lastResults;
+    private long contentHash;
+
+    /**
+     * Adds the result for one block
+     * @param packedPosition the chunk-relative packed position of the block
+     */
+    public void addBlock(IBlockState expectedState, IBlockState foundState, int packedPosition)
+    {
+        this.getPairResults(expectedState, foundState).add(packedPosition);
+    }
+
+    private PairResults getPairResults(IBlockState expectedState, IBlockState foundState)
+    {
+        PairResults pairResults = this.lastResults;
+
+        // Adjacent blocks are very often the same pair, so check that first before the map lookups
+        if (pairResults == null || pairResults.pair.expectedState != expectedState || pairResults.pair.foundState != foundState)
+        {
+            Reference2ObjectOpenHashMap<IBlockState, PairResults> map = this.resultsByStates.computeIfAbsent(expectedState, (s) -> new Reference2ObjectOpenHashMap<>());
+            pairResults = map.get(foundState);
+
+            if (pairResults == null)
+            {
+                VerifierResultType type = VerifierResultType.from(expectedState, foundState);
+                pairResults = new PairResults(new BlockStatePair(type, expectedState, foundState));
+                map.put(foundState, pairResults);
+                this.results.add(pairResults);
+            }
+
+            this.lastResults = pairResults;
+        }
+
+        return pairResults;
+    }
+
+    /**
+     * Adds the given block to the content hash of the chunk.
+     * The actual state is used, so that the hash also changes if a neighbor
+     * or a tile entity changes the actual state of a block.
+     * @param clientState the client world state after getActualState()
+     */
+    public void addToContentHash(int packedPosition, IBlockState clientState, IBlockState schematicState)
+    {
+        this.contentHash += getBlockHash(packedPosition, clientState, schematicState);
+    }
+
+    /**
+     * @return the hash of the client world and schematic world blocks in the checked area of the chunk.
+     * The hash is the sum of the per-block hashes, so that it can be updated for single block changes.
+     */
+    public long getContentHash()
+    {
+        return this.contentHash;
+    }
+
+    void setContentHash(long contentHash)
+    {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Adds a pair with its count and positions read from a saved verifier session
+     */
+    void addSavedPair(IBlockState expectedState, IBlockState foundState, int count, int[] positions)
+    {
+        PairResults pairResults = this.getPairResults(expectedState, foundState);
+
+        if (pairResults.positions != null)
+        {
+            for (int pos : positions)
+            {
+                pairResults.add(pos);
+            }
+        }
+        else
+        {
+            pairResults.count += count;
+        }
+    }
+
+    public static long getBlockHash(int packedPosition, IBlockState clientState, IBlockState schematicState)
+    {
+        long states = ((long) Block.getStateId(clientState) << 32) | (Block.getStateId(schematicState) & 0xFFFFFFFFL);
+        return HashCommon.murmurHash3(((long) packedPosition << 32) ^ HashCommon.murmurHash3(states));
+    }
+
+    /**
+     * Updates the result of one block that has already been checked before.
+     * The old result is found via the stored position for mismatches. For the correct blocks
+     * the found state is the expected state, except for air, where the given old found state is used
+     * (which is only needed for the ignored fluids). The content hash is also updated,
+     * as the found state of the old pair is the old actual state of the block.
+     * @param oldFoundStateIfAir the found state from the last check, used if the expected state is air
+     * @param listener gets notified if the block moved from the old pair to a new pair
+     * @return false if the old result couldn't be found, in which case nothing was changed
+     */
+    public boolean updateBlock(IBlockState expectedState, IBlockState oldFoundStateIfAir, IBlockState newFoundState,
+                               int packedPosition, BlockResultChangeListener listener)
+    {
+        Int2ObjectOpenHashMap<PairResults> mismatches = this.getMismatchesByPosition();
+        PairResults oldResults = mismatches.get(packedPosition);
+
+        if (oldResults == null)
+        {
+            IBlockState oldFoundState = expectedState == SchematicVerifier.AIR ? oldFoundStateIfAir : expectedState;
+            Reference2ObjectOpenHashMap<IBlockState, PairResults> map = this.resultsByStates.get(expectedState);
+            oldResults = map != null ? map.get(oldFoundState) : null;
+
+            if (oldResults == null || oldResults.hasPositions() || oldResults.count <= 0)
+            {
+                return false;
+            }
+        }
+
+        PairResults newResults = this.getPairResults(expectedState, newFoundState);
+
+        if (newResults == oldResults)
+        {
+            return true;
+        }
+
+        oldResults.remove(packedPosition);
+        newResults.add(packedPosition);
+
+        this.contentHash += getBlockHash(packedPosition, newFoundState, expectedState) -
+                            getBlockHash(packedPosition, oldResults.pair.foundState, expectedState);
+
+        if (oldResults.hasPositions())
+        {
+            mismatches.remove(packedPosition);
+        }
+
+        if (newResults.hasPositions())
+        {
+            mismatches.put(packedPosition, newResults);
+        }
+
+        listener.onBlockResultChanged(oldResults.pair, newResults.pair);
+
+        return true;
+    }
+
+    private Int2ObjectOpenHashMap<PairResults> getMismatchesByPosition()
+    {
+        if (this.mismatchesByPosition == null)
+        {
+            this.mismatchesByPosition = new Int2ObjectOpenHashMap<>();
+
+            for (PairResults pairResults : this.results)
+            {
+                if (pairResults.positions != null)
+                {
+                    for (int pos : pairResults.positions)
+                    {
+                        this.mismatchesByPosition.put(pos, pairResults);
+                    }
+                }
+            }
+        }
+
+        return this.mismatchesByPosition;
+    }
+
+    /**
+     * Releases the unused capacity of the position sets, after all the blocks have been added
+     */
+    public void trim()
+    {
+        for (PairResults pairResults : this.results)
+        {
+            if (pairResults.positions != null)
+            {
+                pairResults.positions.trim();
+            }
+        }
+
+        this.lastResults = null;
+    }
+
+    public List<PairResults> getResults()
+    {
+        return this.results;
+    }
+
+    public interface BlockResultChangeListener
+    {
+        void onBlockResultChanged(BlockStatePair oldPair, BlockStatePair newPair);
+    }
+
+    public static class PairResults
+    {
+        public final BlockStatePair pair;
+        /** A set instead of a list, so that single block updates can remove positions in constant time */
+        private final IntOpenHashSet positions;
+        private int count;
+
+        private PairResults(BlockStatePair pair)
+        {
+            this.pair = pair;
+            this.positions = pair.type != VerifierResultType.CORRECT_STATE ? new IntOpenHashSet() : null;
+        }
+
+        private void add(int packedPosition)
+        {
+            ++this.count;
+
+            if (this.positions != null)
+            {
+                this.positions.add(packedPosition);
+            }
+        }
+
+        private void remove(int packedPosition)
+        {
+            --this.count;
+
+            if (this.positions != null)
+            {
+                this.positions.remove(packedPosition);
+            }
+        }
+
+        public int getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * @return true if the positions of the blocks are stored for this pair (ie. it's not a correct state pair)
+         */
+        public boolean hasPositions()
+        {
+            return this.positions != null;
+        }
+
+        /**
+         * @return the chunk-relative packed positions of the blocks, or an empty set for the correct state pairs
+         */
+        public IntOpenHashSet getPositions()
+        {
+            return this.positions != null ? this.positions : new IntOpenHashSet(0);
+        }
+    }
+}
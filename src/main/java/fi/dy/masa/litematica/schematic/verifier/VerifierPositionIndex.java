@@ -0,0 +1,318 @@
+package fi.dy.masa.litematica.schematic.verifier;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import fi.dy.masa.malilib.util.PositionUtils;
+
+/**
+ * A spatial index of verifier result positions, where the positions are grouped into 16x16x16 block cells.
+ * The closest positions are found by visiting the cells in the order of their distance,
+ * and ray traces only check the positions in the cells that the ray passes through.
+ */
+public class VerifierPositionIndex
+{
+    private static final int CELL_SHIFT = 4;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final Long2ObjectOpenHashMap<Cell> cells = new Long2ObjectOpenHashMap<>();
+    private int size;
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public void clear()
+    {
+        this.cells.clear();
+        this.size = 0;
+    }
+
+    public void add(BlockStatePair pair, long posLong)
+    {
+        int cx = PositionUtils.unpackX(posLong) >> CELL_SHIFT;
+        int cy = PositionUtils.unpackY(posLong) >> CELL_SHIFT;
+        int cz = PositionUtils.unpackZ(posLong) >> CELL_SHIFT;
+        long key = getCellKey(cx, cy, cz);
+        Cell cell = this.cells.get(key);
+
+        if (cell == null)
+        {
+            cell = new Cell(cx, cy, cz);
+            this.cells.put(key, cell);
+        }
+
+        cell.positions.add(posLong);
+        cell.pairs.add(pair);
+        ++this.size;
+    }
+
+    /**
+     * Removes the given position of the given pair, if it exists in the index.
+     * This only searches the one cell of the position, and fills the gap with the last entry of the cell.
+     */
+    public void remove(BlockStatePair pair, long posLong)
+    {
+        long key = getCellKey(PositionUtils.unpackX(posLong) >> CELL_SHIFT,
+                              PositionUtils.unpackY(posLong) >> CELL_SHIFT,
+                              PositionUtils.unpackZ(posLong) >> CELL_SHIFT);
+        Cell cell = this.cells.get(key);
+
+        if (cell == null)
+        {
+            return;
+        }
+
+        final int count = cell.positions.size();
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (cell.positions.getLong(i) == posLong && cell.pairs.get(i) == pair)
+            {
+                final int last = count - 1;
+                cell.positions.set(i, cell.positions.getLong(last));
+                cell.pairs.set(i, cell.pairs.get(last));
+                cell.positions.removeLong(last);
+                cell.pairs.remove(last);
+                --this.size;
+
+                if (last == 0)
+                {
+                    this.cells.remove(key);
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return up to maxCount of the positions closest to the given reference position, sorted closest first
+     */
+    public List<BlockPairTypePosition> getClosest(BlockPos referencePos, int maxCount)
+    {
+        if (maxCount <= 0 || this.size == 0)
+        {
+            return new ArrayList<>();
+        }
+
+        final int refX = referencePos.getX();
+        final int refY = referencePos.getY();
+        final int refZ = referencePos.getZ();
+        ArrayList<Cell> sortedCells = new ArrayList<>(this.cells.values());
+
+        for (Cell cell : sortedCells)
+        {
+            cell.updateDistance(refX, refY, refZ);
+        }
+
+        sortedCells.sort(Comparator.comparingLong((c) -> c.distance));
+
+        // The farthest of the currently found positions is at the head of the queue
+        PriorityQueue<BlockPairTypePosition> closest = new PriorityQueue<>(new BlockPairTypePositionComparator(referencePos, false));
+        long farthestDistance = Long.MAX_VALUE;
+
+        for (Cell cell : sortedCells)
+        {
+            // None of the positions in this or any of the remaining cells can be closer
+            if (closest.size() >= maxCount && cell.distance > farthestDistance)
+            {
+                break;
+            }
+
+            final int count = cell.positions.size();
+
+            for (int i = 0; i < count; ++i)
+            {
+                long posLong = cell.positions.getLong(i);
+                long distance = getSquareDistance(posLong, refX, refY, refZ);
+
+                if (closest.size() < maxCount)
+                {
+                    closest.add(new BlockPairTypePosition(cell.pairs.get(i), posLong));
+                }
+                else if (distance < farthestDistance)
+                {
+                    closest.poll();
+                    closest.add(new BlockPairTypePosition(cell.pairs.get(i), posLong));
+                }
+                else
+                {
+                    continue;
+                }
+
+                if (closest.size() >= maxCount)
+                {
+                    farthestDistance = getSquareDistance(closest.peek().posLong, refX, refY, refZ);
+                }
+            }
+        }
+
+        ArrayList<BlockPairTypePosition> list = new ArrayList<>(closest);
+        list.sort(new BlockPairTypePositionComparator(referencePos, true));
+
+        return list;
+    }
+
+    /**
+     * Finds the position closest to the start point that the given line segment intersects.
+     * The cells are walked along the line in order, so the search ends at the first cell with a hit.
+     */
+    @Nullable
+    public BlockPairTypePosition rayTrace(Vec3d start, Vec3d end)
+    {
+        if (this.size == 0)
+        {
+            return null;
+        }
+
+        final double dirX = end.x - start.x;
+        final double dirY = end.y - start.y;
+        final double dirZ = end.z - start.z;
+        final int stepX = dirX > 0 ? 1 : (dirX < 0 ? -1 : 0);
+        final int stepY = dirY > 0 ? 1 : (dirY < 0 ? -1 : 0);
+        final int stepZ = dirZ > 0 ? 1 : (dirZ < 0 ? -1 : 0);
+        int cx = MathHelper.floor(start.x) >> CELL_SHIFT;
+        int cy = MathHelper.floor(start.y) >> CELL_SHIFT;
+        int cz = MathHelper.floor(start.z) >> CELL_SHIFT;
+
+        // The line parameters (0..1) of the next cell boundary crossing on each axis, and the step between them
+        final double deltaX = stepX != 0 ? CELL_SIZE / Math.abs(dirX) : Double.MAX_VALUE;
+        final double deltaY = stepY != 0 ? CELL_SIZE / Math.abs(dirY) : Double.MAX_VALUE;
+        final double deltaZ = stepZ != 0 ? CELL_SIZE / Math.abs(dirZ) : Double.MAX_VALUE;
+        double nextX = stepX != 0 ? ((stepX > 0 ? (cx + 1) : cx) * CELL_SIZE - start.x) / dirX : Double.MAX_VALUE;
+        double nextY = stepY != 0 ? ((stepY > 0 ? (cy + 1) : cy) * CELL_SIZE - start.y) / dirY : Double.MAX_VALUE;
+        double nextZ = stepZ != 0 ? ((stepZ > 0 ? (cz + 1) : cz) * CELL_SIZE - start.z) / dirZ : Double.MAX_VALUE;
+
+        while (true)
+        {
+            Cell cell = this.cells.get(getCellKey(cx, cy, cz));
+
+            if (cell != null)
+            {
+                BlockPairTypePosition hit = cell.rayTrace(start, end);
+
+                // All the positions in the later cells are farther away along the line
+                if (hit != null)
+                {
+                    return hit;
+                }
+            }
+
+            if (nextX > 1.0 && nextY > 1.0 && nextZ > 1.0)
+            {
+                return null;
+            }
+
+            if (nextX <= nextY && nextX <= nextZ)
+            {
+                cx += stepX;
+                nextX += deltaX;
+            }
+            else if (nextY <= nextZ)
+            {
+                cy += stepY;
+                nextY += deltaY;
+            }
+            else
+            {
+                cz += stepZ;
+                nextZ += deltaZ;
+            }
+        }
+    }
+
+    private static long getSquareDistance(long posLong, int refX, int refY, int refZ)
+    {
+        long diffX = PositionUtils.unpackX(posLong) - refX;
+        long diffY = PositionUtils.unpackY(posLong) - refY;
+        long diffZ = PositionUtils.unpackZ(posLong) - refZ;
+        return diffX * diffX + diffY * diffY + diffZ * diffZ;
+    }
+
+    private static long getCellKey(int cx, int cy, int cz)
+    {
+        return ((long) (cx & 0x3FFFFF) << 42) | ((long) (cy & 0xFFFFF) << 22) | (long) (cz & 0x3FFFFF);
+    }
+
+    private static class Cell
+    {
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final LongArrayList positions = new LongArrayList();
+        private final ArrayList<BlockStatePair> pairs = new ArrayList<>();
+        /** The squared distance from the last reference position to the closest point of this cell */
+        private long distance;
+
+        private Cell(int cx, int cy, int cz)
+        {
+            this.minX = cx << CELL_SHIFT;
+            this.minY = cy << CELL_SHIFT;
+            this.minZ = cz << CELL_SHIFT;
+        }
+
+        private void updateDistance(int refX, int refY, int refZ)
+        {
+            long diffX = getAxisDistance(refX, this.minX);
+            long diffY = getAxisDistance(refY, this.minY);
+            long diffZ = getAxisDistance(refZ, this.minZ);
+            this.distance = diffX * diffX + diffY * diffY + diffZ * diffZ;
+        }
+
+        private static int getAxisDistance(int ref, int min)
+        {
+            if (ref < min)
+            {
+                return min - ref;
+            }
+
+            int max = min + CELL_SIZE - 1;
+
+            return ref > max ? ref - max : 0;
+        }
+
+        @Nullable
+        private BlockPairTypePosition rayTrace(Vec3d start, Vec3d end)
+        {
+            BlockPairTypePosition closest = null;
+            double closestDistance = -1;
+            final int count = this.positions.size();
+
+            for (int i = 0; i < count; ++i)
+            {
+                long posLong = this.positions.getLong(i);
+                AxisAlignedBB bb = fi.dy.masa.litematica.util.PositionUtils.createAABBForPosition(posLong);
+                RayTraceResult hit = bb.calculateIntercept(start, end);
+
+                if (hit != null)
+                {
+                    double distance = hit.hitVec.squareDistanceTo(start);
+
+                    if (closestDistance < 0 || distance < closestDistance)
+                    {
+                        closest = new BlockPairTypePosition(this.pairs.get(i), posLong);
+                        closestDistance = distance;
+                    }
+                }
+            }
+
+            return closest;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package fi.dy.masa.litematica.schematic.verifier;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.math.ChunkPos;
+import fi.dy.masa.malilib.util.WorldUtils;
+import fi.dy.masa.malilib.util.data.Constants;
+import fi.dy.masa.malilib.util.position.IntBoundingBox;
+import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.config.Configs;
+import fi.dy.masa.litematica.data.DataManager;
+import fi.dy.masa.litematica.schematic.placement.SchematicPlacement;
+
+/**
+ * Saves and reads the per-chunk results of a verifier to/from a per-world file,
+ * so that a verification of a large area can be continued after re-logging.
+ * Each chunk is saved with its checked boxes and the content hash of the checked blocks,
+ * and the saved results are only used if the boxes are the same and the hash still matches.
+ */
+public class VerifierSessionStorage
+{
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Verifier Session Writer").setDaemon(true).build();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+    /** Session files that haven't been written to in this long get deleted */
+    private static final long MAX_SESSION_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final int VERSION = 2;
+
+    /**
+     * Builds the session data on the client thread, and then compresses and writes it
+     * to the file on a background thread. If the session key of the verifier has changed
+     * since the last save or load (the placement was moved or renamed), then the old file is deleted.
+     */
+    public static void saveSession(SchematicVerifier verifier)
+    {
+        if (verifier.resultsPerChunk.isEmpty() || Minecraft.getMinecraft().world == null)
+        {
+            return;
+        }
+
+        final File file = getSessionFile(verifier);
+        final File oldFile = verifier.lastSessionFile;
+        final NBTTagCompound nbt = writeToNBT(verifier);
+
+        verifier.lastSessionFile = file;
+
+        WRITER.execute(() -> {
+            if (oldFile != null && oldFile.equals(file) == false)
+            {
+                deleteFile(oldFile);
+            }
+
+            writeToFile(nbt, file);
+            pruneOldSessions(file.getParentFile());
+        });
+    }
+
+    /**
+     * Deletes the saved session of the given verifier, for example when its placement gets removed
+     */
+    public static void deleteSession(SchematicVerifier verifier)
+    {
+        if (Minecraft.getMinecraft().world == null)
+        {
+            return;
+        }
+
+        final File file = getSessionFile(verifier);
+        final File oldFile = verifier.lastSessionFile;
+
+        verifier.lastSessionFile = null;
+
+        WRITER.execute(() -> {
+            if (oldFile != null && oldFile.equals(file) == false)
+            {
+                deleteFile(oldFile);
+            }
+
+            deleteFile(file);
+        });
+    }
+
+    private static void writeToFile(NBTTagCompound nbt, File file)
+    {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try
+        {
+            FileOutputStream os = new FileOutputStream(tmpFile);
+            CompressedStreamTools.writeCompressed(nbt, os);
+            os.close();
+
+            if ((file.exists() && file.delete() == false) || tmpFile.renameTo(file) == false)
+            {
+                Litematica.logger.warn("Failed to replace the schematic verifier session file '{}'", file.getAbsolutePath());
+            }
+        }
+        catch (Exception e)
+        {
+            Litematica.logger.warn("Failed to write the schematic verifier session to file '{}'", file.getAbsolutePath(), e);
+        }
+    }
+
+    private static void deleteFile(File file)
+    {
+        if (file.exists() && file.delete() == false)
+        {
+            Litematica.logger.warn("Failed to delete the schematic verifier session file '{}'", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Deletes the session files that haven't been saved in a long time,
+     * which are most likely from placements that no longer exist.
+     */
+    private static void pruneOldSessions(File dir)
+    {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("verifier_dim_") && name.endsWith(".nbt"));
+
+        if (files == null)
+        {
+            return;
+        }
+
+        long minTime = System.currentTimeMillis() - MAX_SESSION_AGE;
+
+        for (File file : files)
+        {
+            if (file.lastModified() < minTime)
+            {
+                deleteFile(file);
+            }
+        }
+    }
+
+    /**
+     * Reads the saved results of the chunks that have the same checked boxes as the verifier currently has
+     */
+    public static void loadSession(SchematicVerifier verifier, Long2ObjectOpenHashMap<VerifierChunkResults> resultsOut)
+    {
+        if (Minecraft.getMinecraft().world == null)
+        {
+            return;
+        }
+
+        File file = getSessionFile(verifier);
+
+        verifier.lastSessionFile = file;
+
+        if (file.exists() == false || file.canRead() == false)
+        {
+            return;
+        }
+
+        try
+        {
+            FileInputStream is = new FileInputStream(file);
+            NBTTagCompound nbt = CompressedStreamTools.readCompressed(is);
+            is.close();
+
+            if (nbt != null)
+            {
+                readFromNBT(nbt, verifier, resultsOut);
+            }
+        }
+        catch (Exception e)
+        {
+            Litematica.logger.warn("Failed to read the schematic verifier session from file '{}'", file.getAbsolutePath(), e);
+        }
+    }
+
+    private static NBTTagCompound writeToNBT(SchematicVerifier verifier)
+    {
+        NBTTagCompound nbt = new NBTTagCompound();
+        NBTTagList stateList = new NBTTagList();
+        NBTTagList chunkList = new NBTTagList();
+        Reference2IntOpenHashMap<IBlockState> stateIds = new Reference2IntOpenHashMap<>();
+
+        for (Long2ObjectMap.Entry<VerifierChunkResults> entry : verifier.resultsPerChunk.long2ObjectEntrySet())
+        {
+            long chunkPosLong = entry.getLongKey();
+            VerifierChunkResults results = entry.getValue();
+            NBTTagCompound chunkTag = new NBTTagCompound();
+            NBTTagList pairList = new NBTTagList();
+
+            for (VerifierChunkResults.PairResults pairResults : results.getResults())
+            {
+                if (pairResults.getCount() <= 0)
+                {
+                    continue;
+                }
+
+                NBTTagCompound pairTag = new NBTTagCompound();
+                pairTag.setInteger("Expected", getStateId(pairResults.pair.expectedState, stateIds, stateList));
+                pairTag.setInteger("Found", getStateId(pairResults.pair.foundState, stateIds, stateList));
+                pairTag.setInteger("Count", pairResults.getCount());
+
+                if (pairResults.hasPositions())
+                {
+                    pairTag.setIntArray("Positions", pairResults.getPositions().toIntArray());
+                }
+
+                pairList.appendTag(pairTag);
+            }
+
+            chunkTag.setLong("Pos", chunkPosLong);
+            chunkTag.setLong("Hash", results.getContentHash());
+            chunkTag.setIntArray("Boxes", getBoxesArray(verifier.boxesInChunks.get(getChunkPos(chunkPosLong))));
+            chunkTag.setTag("Pairs", pairList);
+
+            chunkList.appendTag(chunkTag);
+        }
+
+        nbt.setInteger("Version", VERSION);
+        nbt.setBoolean("IgnoreExistingFluids", Configs.Visuals.IGNORE_EXISTING_FLUIDS.getBooleanValue());
+        nbt.setTag("States", stateList);
+        nbt.setTag("Chunks", chunkList);
+
+        return nbt;
+    }
+
+    private static void readFromNBT(NBTTagCompound nbt, SchematicVerifier verifier, Long2ObjectOpenHashMap<VerifierChunkResults> resultsOut)
+    {
+        // The fluid setting affects the result types, so any results from a different setting can't be used
+        if (nbt.getInteger("Version") != VERSION ||
+            nbt.getBoolean("IgnoreExistingFluids") != Configs.Visuals.IGNORE_EXISTING_FLUIDS.getBooleanValue())
+        {
+            return;
+        }
+
+        NBTTagList stateList = nbt.getTagList("States", Constants.NBT.TAG_COMPOUND);
+        NBTTagList chunkList = nbt.getTagList("Chunks", Constants.NBT.TAG_COMPOUND);
+        List<IBlockState> states = new ArrayList<>();
+
+        for (int i = 0; i < stateList.tagCount(); ++i)
+        {
+            states.add(NBTUtil.readBlockState(stateList.getCompoundTagAt(i)));
+        }
+
+        for (int i = 0; i < chunkList.tagCount(); ++i)
+        {
+            NBTTagCompound chunkTag = chunkList.getCompoundTagAt(i);
+            long chunkPosLong = chunkTag.getLong("Pos");
+            List<IntBoundingBox> boxes = verifier.boxesInChunks.get(getChunkPos(chunkPosLong));
+
+            // The placement or the verified layer range has changed in this chunk
+            if (boxes.isEmpty() || Arrays.equals(getBoxesArray(boxes), chunkTag.getIntArray("Boxes")) == false)
+            {
+                continue;
+            }
+
+            VerifierChunkResults results = new VerifierChunkResults();
+            NBTTagList pairList = chunkTag.getTagList("Pairs", Constants.NBT.TAG_COMPOUND);
+            boolean valid = true;
+
+            for (int p = 0; p < pairList.tagCount(); ++p)
+            {
+                NBTTagCompound pairTag = pairList.getCompoundTagAt(p);
+                int expectedId = pairTag.getInteger("Expected");
+                int foundId = pairTag.getInteger("Found");
+
+                if (expectedId < 0 || expectedId >= states.size() || foundId < 0 || foundId >= states.size())
+                {
+                    valid = false;
+                    break;
+                }
+
+                results.addSavedPair(states.get(expectedId), states.get(foundId),
+                                     pairTag.getInteger("Count"), pairTag.getIntArray("Positions"));
+            }
+
+            if (valid)
+            {
+                results.setContentHash(chunkTag.getLong("Hash"));
+                results.trim();
+                resultsOut.put(chunkPosLong, results);
+            }
+        }
+    }
+
+    private static int getStateId(IBlockState state, Reference2IntOpenHashMap<IBlockState> stateIds, NBTTagList stateList)
+    {
+        if (stateIds.containsKey(state))
+        {
+            return stateIds.getInt(state);
+        }
+
+        int id = stateList.tagCount();
+        NBTTagCompound tag = new NBTTagCompound();
+        NBTUtil.writeBlockState(tag, state);
+        stateList.appendTag(tag);
+        stateIds.put(state, id);
+
+        return id;
+    }
+
+    private static int[] getBoxesArray(List<IntBoundingBox> boxes)
+    {
+        int[] arr = new int[boxes.size() * 6];
+        int i = 0;
+
+        for (IntBoundingBox box : boxes)
+        {
+            arr[i++] = box.minX;
+            arr[i++] = box.minY;
+            arr[i++] = box.minZ;
+            arr[i++] = box.maxX;
+            arr[i++] = box.maxY;
+            arr[i++] = box.maxZ;
+        }
+
+        return arr;
+    }
+
+    private static ChunkPos getChunkPos(long chunkPosLong)
+    {
+        return fi.dy.masa.malilib.util.PositionUtils.chunkPosFromLong(chunkPosLong);
+    }
+
+    private static File getSessionFile(SchematicVerifier verifier)
+    {
+        File dir = new File(DataManager.getCurrentWorldDataDirectory(), "verifier_sessions");
+
+        if (dir.exists() == false && dir.mkdirs() == false)
+        {
+            Litematica.logger.warn("Failed to create the directory '{}'", dir.getAbsolutePath());
+        }
+
+        String dim = WorldUtils.getDimensionAsString(Minecraft.getMinecraft().world);
+
+        return new File(dir, "verifier_dim_" + dim + "_" + getSessionKey(verifier) + ".nbt");
+    }
+
+    /**
+     * @return a key identifying the verified placements and their position.
+     * Hash collisions don't matter, as the boxes of each chunk are also checked when reading the results.
+     */
+    private static String getSessionKey(SchematicVerifier verifier)
+    {
+        StringBuilder sb = new StringBuilder(verifier.verifierType.name());
+
+        for (SchematicPlacement placement : verifier.placements)
+        {
+            File schematicFile = placement.getSchematicFile();
+
+            sb.append('|').append(placement.getName());
+            sb.append('|').append(schematicFile != null ? schematicFile.getAbsolutePath() : "-");
+            sb.append('|').append(placement.getOrigin().toLong());
+            sb.append('|').append(placement.getRotation().name());
+            sb.append('|').append(placement.getMirror().name());
+        }
+
+        return String.format("%08x", sb.toString().hashCode());
+    }
+}
@@ -10,6 +10,7 @@ import fi.dy.masa.malilib.listener.TaskCompletionListener;
 import fi.dy.masa.malilib.overlay.message.MessageDispatcher;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
 import fi.dy.masa.litematica.render.infohud.InfoHud;
+import fi.dy.masa.litematica.scheduler.TaskPriority;
 import fi.dy.masa.litematica.scheduler.tasks.TaskProcessChunkBase;
 import fi.dy.masa.litematica.schematic.ISchematic;
 import fi.dy.masa.litematica.schematic.util.SchematicCreationUtils;
@@ -32,6 +33,8 @@ public class CreateSchematicTask extends TaskProcessChunkBase
     {
         super("litematica.hud.task_name.save_schematic");
 
+        this.priority = TaskPriority.HIGH;
+
         this.ignoreEntities = ignoreEntities;
         this.schematic = schematic;
         this.origin = area.getEffectiveOrigin();
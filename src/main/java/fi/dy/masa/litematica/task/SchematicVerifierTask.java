@@ -1,19 +1,21 @@
 package fi.dy.masa.litematica.task;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import com.google.common.collect.ArrayListMultimap;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.IBlockAccess;
 import fi.dy.masa.malilib.util.PositionUtils;
 import fi.dy.masa.malilib.util.position.IntBoundingBox;
+import fi.dy.masa.litematica.scheduler.TaskPriority;
 import fi.dy.masa.litematica.scheduler.tasks.TaskProcessChunkBase;
-import fi.dy.masa.litematica.schematic.verifier.BlockStatePair;
 import fi.dy.masa.litematica.schematic.verifier.SchematicVerifier;
-import fi.dy.masa.litematica.schematic.verifier.VerifierResultType;
+import fi.dy.masa.litematica.schematic.verifier.VerifierChunkResults;
+import fi.dy.masa.litematica.world.BlockRegionSnapshot;
 import fi.dy.masa.litematica.world.SchematicWorldHandler;
 import fi.dy.masa.litematica.world.WorldSchematic;
 
@@ -28,6 +30,8 @@ public class SchematicVerifierTask extends TaskProcessChunkBase
     {
         super("litematica.title.hud.schematic_verifier");
 
+        this.priority = TaskPriority.LOW;
+
         this.verifier = verifier;
         this.schematicWorld = SchematicWorldHandler.getSchematicWorld();
     }
@@ -71,14 +75,85 @@ public class SchematicVerifierTask extends TaskProcessChunkBase
         return true;
     }
 
+    @Override
+    protected Callable<Runnable> createBackgroundJob(ChunkPos pos)
+    {
+        final List<IntBoundingBox> boxes = new ArrayList<>(this.getBoxesInChunk(pos));
+        // The client world needs the margin for the neighbor lookups in getActualState()
+        final IBlockAccess clientSnapshot = BlockRegionSnapshot.create(this.worldClient, boxes, 1, true);
+        // The schematic states are only compared as-is, so their tile entities are not needed
+        final IBlockAccess schematicSnapshot = BlockRegionSnapshot.create(this.schematicWorld, boxes, 0, false);
+        final VerifierChunkResults savedResults = this.verifier.takeSavedResults(pos);
+
+        return () -> {
+            if (savedResults != null && getContentHash(boxes, schematicSnapshot, clientSnapshot) == savedResults.getContentHash())
+            {
+                return () -> this.verifier.addBlockResultsFromWorld(pos, savedResults);
+            }
+
+            VerifierChunkResults results = new VerifierChunkResults();
+            this.checkBlocksInBoxes(boxes, schematicSnapshot, clientSnapshot, results);
+            return () -> this.verifier.addBlockResultsFromWorld(pos, results);
+        };
+    }
+
     protected void checkBlocksInChunk(ChunkPos pos)
+    {
+        List<IntBoundingBox> boxes = this.getBoxesInChunk(pos);
+        VerifierChunkResults results = this.verifier.takeSavedResults(pos);
+
+        // The results from a saved session can be used as-is if nothing has changed in the chunk since then
+        if (results == null || getContentHash(boxes, this.schematicWorld, this.worldClient) != results.getContentHash())
+        {
+            results = new VerifierChunkResults();
+            this.checkBlocksInBoxes(boxes, this.schematicWorld, this.worldClient, results);
+        }
+
+        this.verifier.addBlockResultsFromWorld(pos, results);
+    }
+
+    /**
+     * Calculates the same content hash that {@link #checkBlocksInBoxes} builds into the results,
+     * without actually comparing the blocks. The hash uses the actual states of the client world blocks,
+     * as those also depend on the neighbors outside the boxes and on the tile entities.
+     */
+    protected static long getContentHash(List<IntBoundingBox> boxes, IBlockAccess schematicWorld, IBlockAccess clientWorld)
     {
         BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
-        Chunk schematicChunk = this.schematicWorld.getChunk(pos.x, pos.z);
-        Chunk clientChunk = this.worldClient.getChunk(pos.x, pos.z);
-        Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results = new Object2ObjectOpenHashMap<>();
+        long hash = 0;
 
-        for (IntBoundingBox bb : this.getBoxesInChunk(pos))
+        for (IntBoundingBox bb : boxes)
+        {
+            for (int y = bb.minY; y <= bb.maxY; ++y)
+            {
+                for (int z = bb.minZ; z <= bb.maxZ; ++z)
+                {
+                    for (int x = bb.minX; x <= bb.maxX; ++x)
+                    {
+                        mutablePos.setPos(x, y, z);
+                        hash += VerifierChunkResults.getBlockHash(PositionUtils.getPackedChunkRelativePosition(mutablePos),
+                                                                  clientWorld.getBlockState(mutablePos).getActualState(clientWorld, mutablePos),
+                                                                  schematicWorld.getBlockState(mutablePos));
+                    }
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Compares the blocks within the given boxes. This is also called from the worker threads
+     * with world snapshots, so this must only use the given worlds and the results object.
+     */
+    protected void checkBlocksInBoxes(List<IntBoundingBox> boxes,
+                                      IBlockAccess schematicWorld,
+                                      IBlockAccess clientWorld,
+                                      VerifierChunkResults results)
+    {
+        BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+
+        for (IntBoundingBox bb : boxes)
         {
             final int startX = bb.minX;
             final int startY = bb.minY;
@@ -94,26 +169,25 @@ public class SchematicVerifierTask extends TaskProcessChunkBase
                     for (int x = startX; x <= endX; ++x)
                     {
                         mutablePos.setPos(x, y, z);
-                        this.checkBlock(mutablePos, schematicChunk, clientChunk, results);
+                        this.checkBlock(mutablePos, schematicWorld, clientWorld, results);
                     }
                 }
             }
         }
 
-        this.verifier.addBlockResultsFromWorld(pos, results);
+        results.trim();
     }
 
     protected void checkBlock(BlockPos.MutableBlockPos pos,
-                              Chunk schematicChunk,
-                              Chunk clientChunk,
-                              Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results)
+                              IBlockAccess schematicWorld,
+                              IBlockAccess clientWorld,
+                              VerifierChunkResults results)
     {
-        IBlockState clientBlock = clientChunk.getBlockState(pos).getActualState(clientChunk.getWorld(), pos);
-        IBlockState schematicBlock = schematicChunk.getBlockState(pos);
-        VerifierResultType type = VerifierResultType.from(schematicBlock, clientBlock);
-        BlockStatePair pair = new BlockStatePair(type, schematicBlock, clientBlock);
-        int posInt = PositionUtils.getPackedChunkRelativePosition(pos);
+        IBlockState clientBlock = clientWorld.getBlockState(pos).getActualState(clientWorld, pos);
+        IBlockState schematicBlock = schematicWorld.getBlockState(pos);
+        int packedPos = PositionUtils.getPackedChunkRelativePosition(pos);
 
-        results.computeIfAbsent(pair, (p) -> new IntArrayList()).add(posInt);
+        results.addBlock(schematicBlock, clientBlock, packedPos);
+        results.addToContentHash(packedPos, clientBlock, schematicBlock);
     }
 }
@@ -0,0 +1,329 @@
+package fi.dy.masa.litematica.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByte;
+import net.minecraft.nbt.NBTTagByteArray;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagInt;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagLong;
+import net.minecraft.nbt.NBTTagLongArray;
+import net.minecraft.nbt.NBTTagShort;
+import net.minecraft.nbt.NBTTagString;
+import fi.dy.masa.malilib.util.data.Constants;
+
+/**
+ * A simple forward-only NBT reader, which allows reading the data
+ * tag by tag from the stream, without first building the entire tag tree.
+ * The caller decides for each tag whether to read it as a primitive value,
+ * materialize it as a tag, or skip it without allocating anything.
+ */
+public class NbtStreamReader implements AutoCloseable
+{
+    private static final int MAX_DEPTH = 512;
+
+    private final DataInputStream input;
+    private final byte[] buffer = new byte[8192];
+
+    public NbtStreamReader(InputStream input)
+    {
+        this.input = new DataInputStream(input);
+    }
+
+    /**
+     * Creates a reader for the gzip compressed input stream,
+     * which is the format used by all the schematic files.
+     */
+    public static NbtStreamReader createCompressed(InputStream input) throws IOException
+    {
+        return new NbtStreamReader(new BufferedInputStream(new GZIPInputStream(input, 65536), 65536));
+    }
+
+    /**
+     * Reads the type and the name of the root tag.
+     * @return true if the root tag is a compound tag, and its contents can now be read via {@link #readTagType()}
+     */
+    public boolean readRootCompoundStart() throws IOException
+    {
+        if (this.readTagType() == Constants.NBT.TAG_COMPOUND)
+        {
+            this.skipName();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the type of the next tag inside the current compound tag.
+     * If this returns TAG_END, then the compound has ended and there is no name to read.
+     */
+    public int readTagType() throws IOException
+    {
+        return this.input.readByte();
+    }
+
+    public String readName() throws IOException
+    {
+        return this.input.readUTF();
+    }
+
+    public void skipName() throws IOException
+    {
+        this.skipFully(this.input.readUnsignedShort());
+    }
+
+    public int readInt() throws IOException
+    {
+        return this.input.readInt();
+    }
+
+    /**
+     * Reads the payload of a long array tag.
+     * The data is read in larger chunks instead of one long at a time.
+     */
+    public long[] readLongArray() throws IOException
+    {
+        final int length = this.input.readInt();
+
+        if (length < 0)
+        {
+            throw new IOException("Invalid long array length: " + length);
+        }
+
+        long[] arr = new long[length];
+        final int longsPerBuffer = this.buffer.length / 8;
+        int index = 0;
+
+        while (index < length)
+        {
+            final int count = Math.min(longsPerBuffer, length - index);
+            this.input.readFully(this.buffer, 0, count * 8);
+            ByteBuffer.wrap(this.buffer, 0, count * 8).asLongBuffer().get(arr, index, count);
+            index += count;
+        }
+
+        return arr;
+    }
+
+    /**
+     * Reads the element type of a list tag. This must be followed by {@link #readListLength()},
+     * after which exactly that many payloads of the element type need to be read or skipped.
+     */
+    public int readListElementType() throws IOException
+    {
+        return this.input.readByte();
+    }
+
+    public int readListLength() throws IOException
+    {
+        int length = this.input.readInt();
+
+        if (length < 0)
+        {
+            throw new IOException("Invalid list length: " + length);
+        }
+
+        return length;
+    }
+
+    /**
+     * Reads the payload of a compound tag fully into a new tag
+     */
+    public NBTTagCompound readCompound() throws IOException
+    {
+        return this.readCompound(0);
+    }
+
+    /**
+     * Reads the payload of a tag of the given type fully into a new tag
+     */
+    public NBTBase readPayload(int type) throws IOException
+    {
+        return this.readPayload(type, 0);
+    }
+
+    private NBTTagCompound readCompound(int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        NBTTagCompound tag = new NBTTagCompound();
+        int type;
+
+        while ((type = this.readTagType()) != Constants.NBT.TAG_END)
+        {
+            String name = this.readName();
+            tag.setTag(name, this.readPayload(type, depth + 1));
+        }
+
+        return tag;
+    }
+
+    private NBTBase readPayload(int type, int depth) throws IOException
+    {
+        switch (type)
+        {
+            case Constants.NBT.TAG_BYTE:        return new NBTTagByte(this.input.readByte());
+            case Constants.NBT.TAG_SHORT:       return new NBTTagShort(this.input.readShort());
+            case Constants.NBT.TAG_INT:         return new NBTTagInt(this.input.readInt());
+            case Constants.NBT.TAG_LONG:        return new NBTTagLong(this.input.readLong());
+            case Constants.NBT.TAG_FLOAT:       return new NBTTagFloat(this.input.readFloat());
+            case Constants.NBT.TAG_DOUBLE:      return new NBTTagDouble(this.input.readDouble());
+            case Constants.NBT.TAG_STRING:      return new NBTTagString(this.input.readUTF());
+            case Constants.NBT.TAG_COMPOUND:    return this.readCompound(depth);
+            case Constants.NBT.TAG_LONG_ARRAY:  return new NBTTagLongArray(this.readLongArray());
+
+            case Constants.NBT.TAG_BYTE_ARRAY:
+            {
+                byte[] arr = new byte[this.readArrayLength()];
+                this.input.readFully(arr);
+                return new NBTTagByteArray(arr);
+            }
+
+            case Constants.NBT.TAG_INT_ARRAY:
+            {
+                int[] arr = new int[this.readArrayLength()];
+
+                for (int i = 0; i < arr.length; ++i)
+                {
+                    arr[i] = this.input.readInt();
+                }
+
+                return new NBTTagIntArray(arr);
+            }
+
+            case Constants.NBT.TAG_LIST:
+            {
+                final int elementType = this.readListElementType();
+                final int length = this.readListLength();
+                NBTTagList list = new NBTTagList();
+
+                if (depth > MAX_DEPTH)
+                {
+                    throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+                }
+
+                for (int i = 0; i < length; ++i)
+                {
+                    list.appendTag(this.readPayload(elementType, depth + 1));
+                }
+
+                return list;
+            }
+
+            default:
+                throw new IOException("Invalid NBT tag type: " + type);
+        }
+    }
+
+    /**
+     * Skips over the payload of a tag of the given type, without allocating anything for it
+     */
+    public void skipPayload(int type) throws IOException
+    {
+        this.skipPayload(type, 0);
+    }
+
+    private void skipPayload(int type, int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("Tried to skip NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        switch (type)
+        {
+            case Constants.NBT.TAG_BYTE:        this.skipFully(1); break;
+            case Constants.NBT.TAG_SHORT:       this.skipFully(2); break;
+            case Constants.NBT.TAG_INT:         this.skipFully(4); break;
+            case Constants.NBT.TAG_LONG:        this.skipFully(8); break;
+            case Constants.NBT.TAG_FLOAT:       this.skipFully(4); break;
+            case Constants.NBT.TAG_DOUBLE:      this.skipFully(8); break;
+            case Constants.NBT.TAG_STRING:      this.skipName(); break;
+            case Constants.NBT.TAG_BYTE_ARRAY:  this.skipFully(this.readArrayLength()); break;
+            case Constants.NBT.TAG_INT_ARRAY:   this.skipFully((long) this.readArrayLength() * 4L); break;
+            case Constants.NBT.TAG_LONG_ARRAY:  this.skipFully((long) this.readArrayLength() * 8L); break;
+
+            case Constants.NBT.TAG_COMPOUND:
+            {
+                int childType;
+
+                while ((childType = this.readTagType()) != Constants.NBT.TAG_END)
+                {
+                    this.skipName();
+                    this.skipPayload(childType, depth + 1);
+                }
+
+                break;
+            }
+
+            case Constants.NBT.TAG_LIST:
+            {
+                final int elementType = this.readListElementType();
+                final int length = this.readListLength();
+
+                for (int i = 0; i < length; ++i)
+                {
+                    this.skipPayload(elementType, depth + 1);
+                }
+
+                break;
+            }
+
+            default:
+                throw new IOException("Invalid NBT tag type: " + type);
+        }
+    }
+
+    private int readArrayLength() throws IOException
+    {
+        int length = this.input.readInt();
+
+        if (length < 0)
+        {
+            throw new IOException("Invalid array length: " + length);
+        }
+
+        return length;
+    }
+
+    private void skipFully(long count) throws IOException
+    {
+        while (count > 0)
+        {
+            int skipped = this.input.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+
+            if (skipped <= 0)
+            {
+                // skipBytes() may return 0 before the end of the stream, so check for EOF by reading
+                if (this.input.read() == -1)
+                {
+                    throw new EOFException();
+                }
+
+                skipped = 1;
+            }
+
+            count -= skipped;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.input.close();
+    }
+}
@@ -3,21 +3,34 @@ package fi.dy.masa.litematica.util;
 import java.io.BufferedOutputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
+import fi.dy.masa.litematica.config.Configs;
 import fi.dy.masa.litematica.mixin.IMixinNBTBase;
 
 public class NbtUtils
 {
+    /**
+     * Reads a compressed compound tag from the given file.
+     * This just exists so that the callers that also write files only need to import this class.
+     */
+    @Nullable
+    public static NBTTagCompound readNbtFromFile(File file)
+    {
+        return fi.dy.masa.malilib.util.nbt.NbtUtils.readNbtFromFile(file);
+    }
+
     /**
      * Write the compound tag, gzipped, to the output stream.
      */
     public static void writeCompressed(NBTTagCompound tag, String tagName, OutputStream outputStream) throws IOException
     {
-        DataOutputStream dataoutputstream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream)));
+        DataOutputStream dataoutputstream = new DataOutputStream(new BufferedOutputStream(createCompressedOutputStream(outputStream), 65536));
 
         try
         {
@@ -29,6 +42,21 @@ public class NbtUtils
         }
     }
 
+    /**
+     * Creates the gzip stream to use for writing the schematic files.
+     * The output is standard gzip either way, but the parallel version
+     * deflates the data in blocks on multiple threads.
+     */
+    public static OutputStream createCompressedOutputStream(OutputStream outputStream) throws IOException
+    {
+        if (Configs.Generic.PARALLEL_SCHEMATIC_COMPRESSION.getBooleanValue())
+        {
+            return new ParallelGzipOutputStream(outputStream);
+        }
+
+        return new GZIPOutputStream(outputStream, 65536);
+    }
+
     public static void write(NBTTagCompound tag, String tagName, DataOutput output) throws IOException
     {
         writeTag(tag, tagName, output);
@@ -0,0 +1,231 @@
+package fi.dy.masa.litematica.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A gzip output stream that splits the data into blocks and deflates them in parallel
+ * on a worker pool. Each block is primed with the last 32 KB of the previous block as
+ * the dictionary, and all but the last block are ended with a sync flush, so that the
+ * compressed blocks can simply be concatenated. The result is a single regular gzip member,
+ * which any gzip reader (including the vanilla NBT reading code) can read.
+ */
+public class ParallelGzipOutputStream extends OutputStream
+{
+    private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Compression Worker %d").setDaemon(true).build();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, THREAD_FACTORY);
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32768;
+    private static final int MAX_PENDING_BLOCKS = THREAD_COUNT * 2;
+    private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final OutputStream output;
+    private final ArrayDeque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private byte[] previousBlock;
+    private int previousBlockLength;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private long totalLength;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream output) throws IOException
+    {
+        this.output = output;
+        this.output.write(GZIP_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        this.ensureOpen();
+
+        if (this.blockLength >= BLOCK_SIZE)
+        {
+            this.submitBlock(false);
+        }
+
+        this.block[this.blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException
+    {
+        this.ensureOpen();
+
+        while (length > 0)
+        {
+            if (this.blockLength >= BLOCK_SIZE)
+            {
+                this.submitBlock(false);
+            }
+
+            final int count = Math.min(length, BLOCK_SIZE - this.blockLength);
+            System.arraycopy(data, offset, this.block, this.blockLength, count);
+            this.blockLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Only flushes the underlying stream. The data in the current, partially filled
+     * block will not get compressed until the block fills up or the stream is closed.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        this.ensureOpen();
+        this.output.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+
+        this.closed = true;
+
+        try
+        {
+            // The last block is submitted even if it's empty, as it terminates the deflate stream
+            this.submitBlock(true);
+
+            while (this.pendingBlocks.isEmpty() == false)
+            {
+                this.writeNextCompletedBlock();
+            }
+
+            this.writeIntLE((int) this.crc.getValue());
+            this.writeIntLE((int) this.totalLength);
+            this.output.flush();
+        }
+        finally
+        {
+            this.pendingBlocks.forEach(future -> future.cancel(false));
+            this.pendingBlocks.clear();
+            this.output.close();
+        }
+    }
+
+    private void submitBlock(boolean lastBlock) throws IOException
+    {
+        final byte[] data = this.block;
+        final int length = this.blockLength;
+        final byte[] dictionary = this.previousBlock;
+        final int dictionaryLength = this.previousBlockLength;
+
+        // The CRC is cheap compared to deflating, so it's just calculated serially here
+        this.crc.update(data, 0, length);
+        this.totalLength += length;
+
+        while (this.pendingBlocks.size() >= MAX_PENDING_BLOCKS)
+        {
+            this.writeNextCompletedBlock();
+        }
+
+        this.pendingBlocks.add(EXECUTOR.submit(() -> compressBlock(data, length, dictionary, dictionaryLength, lastBlock)));
+
+        // The submitted arrays are not modified afterwards, so the next block gets a new array
+        this.previousBlock = data;
+        this.previousBlockLength = length;
+        this.block = lastBlock ? null : new byte[BLOCK_SIZE];
+        this.blockLength = 0;
+    }
+
+    private void writeNextCompletedBlock() throws IOException
+    {
+        Future<byte[]> future = this.pendingBlocks.poll();
+
+        try
+        {
+            this.output.write(future.get());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a compressed block", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Failed to compress a block", e.getCause());
+        }
+    }
+
+    private void writeIntLE(int value) throws IOException
+    {
+        this.output.write(value & 0xFF);
+        this.output.write((value >>> 8) & 0xFF);
+        this.output.write((value >>> 16) & 0xFF);
+        this.output.write((value >>> 24) & 0xFF);
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.closed)
+        {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static byte[] compressBlock(byte[] data, int length, byte[] dictionary, int dictionaryLength, boolean lastBlock)
+    {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[65536];
+
+        try
+        {
+            if (dictionary != null && dictionaryLength > 0)
+            {
+                final int dictLength = Math.min(DICTIONARY_SIZE, dictionaryLength);
+                deflater.setDictionary(dictionary, dictionaryLength - dictLength, dictLength);
+            }
+
+            deflater.setInput(data, 0, length);
+
+            if (lastBlock)
+            {
+                deflater.finish();
+
+                while (deflater.finished() == false)
+                {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            }
+            else
+            {
+                int count;
+
+                // A sync flush ends the block on a byte boundary, without marking it as the final block
+                do
+                {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, count);
+                }
+                while (count == buffer.length);
+            }
+        }
+        finally
+        {
+            deflater.end();
+        }
+
+        return out.toByteArray();
+    }
+}
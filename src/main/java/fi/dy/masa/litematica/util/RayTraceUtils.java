@@ -24,6 +24,7 @@ import fi.dy.masa.litematica.data.DataManager;
 import fi.dy.masa.litematica.schematic.placement.SchematicPlacement;
 import fi.dy.masa.litematica.schematic.placement.SubRegionPlacement.RequiredEnabled;
 import fi.dy.masa.litematica.schematic.verifier.BlockPairTypePosition;
+import fi.dy.masa.litematica.schematic.verifier.VerifierPositionIndex;
 import fi.dy.masa.litematica.selection.AreaSelection;
 import fi.dy.masa.litematica.selection.SelectionBox;
 import fi.dy.masa.litematica.util.PositionUtils.Corner;
@@ -315,12 +316,12 @@ public class RayTraceUtils
     }
 
     /**
-     * Ray traces to the closest position on the given list
+     * Ray traces to the closest position in the given index
      */
     @Nullable
-    public static BlockPairTypePosition traceToVerifierResultPositions(List<BlockPairTypePosition> posList, Entity entity, double range)
+    public static BlockPairTypePosition traceToVerifierResultPositions(VerifierPositionIndex index, Entity entity, double range)
     {
-        if (posList.isEmpty())
+        if (index.isEmpty())
         {
             return null;
         }
@@ -329,27 +330,7 @@ public class RayTraceUtils
         Vec3d rangedLookRot = entity.getLook(1f).scale(range);
         Vec3d lookEndPos = eyesPos.add(rangedLookRot);
 
-        BlockPairTypePosition closestPos = null;
-        double closest = -1D;
-
-        for (BlockPairTypePosition pos : posList)
-        {
-            AxisAlignedBB bb = PositionUtils.createAABBForPosition(pos.posLong);
-            RayTraceResult hit = bb.calculateIntercept(eyesPos, lookEndPos);
-
-            if (hit != null)
-            {
-                double dist = hit.hitVec.distanceTo(eyesPos);
-
-                if (closest < 0 || dist < closest)
-                {
-                    closestPos = pos;
-                    closest = dist;
-                }
-            }
-        }
-
-        return closestPos;
+        return index.rayTrace(eyesPos, lookEndPos);
     }
 
     @Nullable
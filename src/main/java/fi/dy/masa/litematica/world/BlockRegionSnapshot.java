@@ -0,0 +1,290 @@
+package fi.dy.masa.litematica.world;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Biomes;
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import fi.dy.masa.malilib.util.position.IntBoundingBox;
+import fi.dy.masa.litematica.Litematica;
+
+/**
+ * A read-only copy of the block states within a box in a world, which can be
+ * used as the world for {@link IBlockState#getActualState(IBlockAccess, BlockPos)}
+ * on other threads. The states are copied directly from the chunks' ExtendedBlockStorage
+ * sections on the client thread. Only the tile entities of the blocks that override getActualState()
+ * are copied (via their NBT data), as those are the only ones that the readers may need,
+ * and the readers must never touch the live tile entities of the world.
+ */
+public class BlockRegionSnapshot implements IBlockAccess
+{
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+    /** Whether each block class overrides getActualState(), only accessed on the client thread */
+    private static final Map<Class<?>, Boolean> ACTUAL_STATE_OVERRIDES = new HashMap<>();
+
+    private final IBlockState[] states;
+    private final Map<BlockPos, TileEntity> tileEntities = new HashMap<>();
+    private final WorldType worldType;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    private BlockRegionSnapshot(WorldType worldType, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ)
+    {
+        this.worldType = worldType;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.states = new IBlockState[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * Creates a snapshot of the area enclosing all the given boxes, expanded by <b>margin</b> blocks
+     * in each direction, so that the neighbor lookups done by getActualState() also work at the edges.
+     * This must be called on the thread that owns the world.
+     * @param copyTileEntities whether the tile entities needed by getActualState() should be copied.
+     * This can be false if the snapshot is only used for the raw block states.
+     */
+    public static BlockRegionSnapshot create(World world, List<IntBoundingBox> boxes, int margin, boolean copyTileEntities)
+    {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+
+        for (IntBoundingBox box : boxes)
+        {
+            minX = Math.min(minX, box.minX);
+            minY = Math.min(minY, box.minY);
+            minZ = Math.min(minZ, box.minZ);
+            maxX = Math.max(maxX, box.maxX);
+            maxY = Math.max(maxY, box.maxY);
+            maxZ = Math.max(maxZ, box.maxZ);
+        }
+
+        if (boxes.isEmpty())
+        {
+            return new BlockRegionSnapshot(world.getWorldType(), 0, 0, 0, 0, 0, 0);
+        }
+
+        minX -= margin;
+        minZ -= margin;
+        maxX += margin;
+        maxZ += margin;
+        minY = Math.max(minY - margin, 0);
+        maxY = Math.min(maxY + margin, world.getHeight() - 1);
+
+        BlockRegionSnapshot snapshot = new BlockRegionSnapshot(world.getWorldType(), minX, minY, minZ,
+                                                               maxX - minX + 1, Math.max(maxY - minY + 1, 0), maxZ - minZ + 1);
+        snapshot.copyFrom(world, minX, minY, minZ, maxX, maxY, maxZ, copyTileEntities);
+
+        return snapshot;
+    }
+
+    private void copyFrom(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean copyTileEntities)
+    {
+        final int minChunkX = minX >> 4;
+        final int minChunkZ = minZ >> 4;
+        final int maxChunkX = maxX >> 4;
+        final int maxChunkZ = maxZ >> 4;
+
+        for (int cz = minChunkZ; cz <= maxChunkZ; ++cz)
+        {
+            for (int cx = minChunkX; cx <= maxChunkX; ++cx)
+            {
+                if (world.getChunkProvider().isChunkGeneratedAt(cx, cz) == false)
+                {
+                    continue;
+                }
+
+                Chunk chunk = world.getChunk(cx, cz);
+                ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+                final int startX = Math.max(minX, cx << 4);
+                final int startZ = Math.max(minZ, cz << 4);
+                final int endX = Math.min(maxX, (cx << 4) + 15);
+                final int endZ = Math.min(maxZ, (cz << 4) + 15);
+
+                for (int y = minY; y <= maxY; ++y)
+                {
+                    ExtendedBlockStorage section = sections[y >> 4];
+
+                    if (section == Chunk.NULL_BLOCK_STORAGE)
+                    {
+                        continue;
+                    }
+
+                    for (int z = startZ; z <= endZ; ++z)
+                    {
+                        int index = this.getIndex(startX, y, z);
+
+                        for (int x = startX; x <= endX; ++x, ++index)
+                        {
+                            this.states[index] = section.get(x & 15, y & 15, z & 15);
+                        }
+                    }
+                }
+
+                if (copyTileEntities == false)
+                {
+                    continue;
+                }
+
+                for (Map.Entry<BlockPos, TileEntity> entry : chunk.getTileEntityMap().entrySet())
+                {
+                    BlockPos pos = entry.getKey();
+
+                    // Serializing all the tile entities (with their inventories etc.) would be way too slow,
+                    // and most blocks don't read their tile entity in getActualState()
+                    if (this.isInside(pos) && overridesGetActualState(this.getBlockState(pos).getBlock().getClass()))
+                    {
+                        this.copyTileEntity(world, pos, entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a detached copy of the tile entity, which doesn't reference the world
+     */
+    private void copyTileEntity(World world, BlockPos pos, TileEntity te)
+    {
+        try
+        {
+            TileEntity copy = TileEntity.create(world, te.writeToNBT(new NBTTagCompound()));
+
+            if (copy != null)
+            {
+                this.tileEntities.put(pos, copy);
+            }
+        }
+        catch (Exception e)
+        {
+            Litematica.logger.warn("Failed to copy the TileEntity at {} for a block snapshot", pos);
+        }
+    }
+
+    /**
+     * Checks whether the block class or any of its super classes below Block declares getActualState().
+     * The method is found by its signature instead of its name, so that this also works in an obfuscated environment.
+     */
+    private static boolean overridesGetActualState(Class<?> blockClass)
+    {
+        Boolean overrides = ACTUAL_STATE_OVERRIDES.get(blockClass);
+
+        if (overrides == null)
+        {
+            overrides = false;
+
+            for (Class<?> clazz = blockClass; clazz != null && clazz != Block.class; clazz = clazz.getSuperclass())
+            {
+                for (Method method : clazz.getDeclaredMethods())
+                {
+                    Class<?>[] params = method.getParameterTypes();
+
+                    if (method.getReturnType() == IBlockState.class && params.length == 3 &&
+                        params[0] == IBlockState.class && params[1] == IBlockAccess.class && params[2] == BlockPos.class)
+                    {
+                        overrides = true;
+                        break;
+                    }
+                }
+
+                if (overrides)
+                {
+                    break;
+                }
+            }
+
+            ACTUAL_STATE_OVERRIDES.put(blockClass, overrides);
+        }
+
+        return overrides;
+    }
+
+    private int getIndex(int x, int y, int z)
+    {
+        return ((y - this.minY) * this.sizeZ + (z - this.minZ)) * this.sizeX + (x - this.minX);
+    }
+
+    private boolean isInside(BlockPos pos)
+    {
+        int x = pos.getX() - this.minX;
+        int y = pos.getY() - this.minY;
+        int z = pos.getZ() - this.minZ;
+
+        return x >= 0 && y >= 0 && z >= 0 && x < this.sizeX && y < this.sizeY && z < this.sizeZ;
+    }
+
+    @Override
+    public IBlockState getBlockState(BlockPos pos)
+    {
+        if (this.isInside(pos))
+        {
+            IBlockState state = this.states[this.getIndex(pos.getX(), pos.getY(), pos.getZ())];
+            return state != null ? state : AIR;
+        }
+
+        return AIR;
+    }
+
+    @Override
+    @Nullable
+    public TileEntity getTileEntity(BlockPos pos)
+    {
+        return this.tileEntities.get(pos);
+    }
+
+    @Override
+    public boolean isAirBlock(BlockPos pos)
+    {
+        return this.getBlockState(pos).getMaterial() == Material.AIR;
+    }
+
+    @Override
+    public int getCombinedLight(BlockPos pos, int lightValue)
+    {
+        return 0;
+    }
+
+    @Override
+    public Biome getBiome(BlockPos pos)
+    {
+        return Biomes.PLAINS;
+    }
+
+    @Override
+    public int getStrongPower(BlockPos pos, EnumFacing direction)
+    {
+        return this.getBlockState(pos).getStrongPower(this, pos, direction);
+    }
+
+    @Override
+    public WorldType getWorldType()
+    {
+        return this.worldType;
+    }
+}
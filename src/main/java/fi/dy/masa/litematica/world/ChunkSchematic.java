@@ -1,8 +1,11 @@
 package fi.dy.masa.litematica.world;
 
+import java.util.ArrayList;
+import java.util.List;
 import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
 import net.minecraft.init.Blocks;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
@@ -103,6 +106,68 @@ public class ChunkSchematic extends Chunk
         }
     }
 
+    @Override
+    public void onUnload()
+    {
+        super.onUnload();
+
+        if (this.getWorld() instanceof WorldSchematic)
+        {
+            ((WorldSchematic) this.getWorld()).onChunkUnloaded(this.x, this.z);
+        }
+    }
+
+    /**
+     * Clears the given 16 block tall sections of this chunk, including the
+     * tile entities and entities in them, without unloading the entire chunk.
+     * @param sectionMask a bit mask of the sections to clear, where bit 0 is the bottom section
+     */
+    public void clearSections(int sectionMask)
+    {
+        ExtendedBlockStorage[] sections = this.getBlockStorageArray();
+        World world = this.getWorld();
+
+        for (int cy = 0; cy < sections.length; ++cy)
+        {
+            if ((sectionMask & (1 << cy)) == 0)
+            {
+                continue;
+            }
+
+            if (sections[cy] != NULL_BLOCK_STORAGE)
+            {
+                final int minY = cy << 4;
+                final int maxY = minY + 15;
+                List<BlockPos> tilePositions = new ArrayList<>();
+
+                for (BlockPos pos : this.getTileEntityMap().keySet())
+                {
+                    if (pos.getY() >= minY && pos.getY() <= maxY)
+                    {
+                        tilePositions.add(pos);
+                    }
+                }
+
+                for (BlockPos pos : tilePositions)
+                {
+                    world.removeTileEntity(pos);
+                }
+
+                sections[cy] = NULL_BLOCK_STORAGE;
+            }
+
+            if (this.getEntityLists()[cy].isEmpty() == false)
+            {
+                for (Entity entity : new ArrayList<>(this.getEntityLists()[cy]))
+                {
+                    world.removeEntityDangerously(entity);
+                }
+            }
+        }
+
+        this.markDirty();
+    }
+
     @Override
     public int getLightFor(EnumSkyBlock type, BlockPos pos)
     {
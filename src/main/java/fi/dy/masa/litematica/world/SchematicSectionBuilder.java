@@ -0,0 +1,539 @@
+package fi.dy.masa.litematica.world;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.block.Block;
+import net.minecraft.block.ITileEntityProvider;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Mirror;
+import net.minecraft.util.Rotation;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3i;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import fi.dy.masa.malilib.util.position.IntBoundingBox;
+import fi.dy.masa.litematica.Litematica;
+import fi.dy.masa.litematica.schematic.ISchematic;
+import fi.dy.masa.litematica.schematic.ISchematicRegion;
+import fi.dy.masa.litematica.schematic.container.ILitematicaBlockStateContainer;
+import fi.dy.masa.litematica.schematic.container.LitematicaBlockStateContainerBase;
+import fi.dy.masa.litematica.schematic.placement.SchematicPlacement;
+import fi.dy.masa.litematica.schematic.placement.SubRegionPlacement;
+import fi.dy.masa.litematica.schematic.util.SchematicPlacingUtils;
+import fi.dy.masa.litematica.util.PositionUtils;
+
+/**
+ * Builds the block storage sections of one schematic world chunk on a worker thread,
+ * from a snapshot of the schematic block state containers. The built sections are then
+ * swapped into the chunk on the client thread in {@link BuiltSections#applyTo(WorldSchematic)},
+ * which also creates the tile entities and spawns the entities, as those can't be
+ * safely created outside of the client thread.
+ */
+public class SchematicSectionBuilder
+{
+    private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final ThreadFactory THREAD_FACTORY = (new ThreadFactoryBuilder()).setNameFormat("Litematica Schematic World Worker %d").setDaemon(true).build();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, THREAD_FACTORY);
+
+    public static final int MAX_PENDING_BUILDS = THREAD_COUNT * 8;
+    public static final int ALL_SECTIONS = 0xFFFF;
+
+    /**
+     * Takes a snapshot of the placement data and the block IDs for the given chunk on the client thread,
+     * and then builds the sections selected by <b>sectionMask</b> on a worker thread.
+     * The placements are placed in the iteration order, so later placements overwrite earlier ones,
+     * same as when placing them via {@link SchematicPlacingUtils#placeToWorldWithinChunk}.
+     * The <b>generation</b> is the chunk's change counter at the time of the snapshot,
+     * which is used to detect builds that were made outdated by later changes.
+     */
+    public static PendingBuild submit(ChunkPos chunkPos, int sectionMask, int generation, Collection<SchematicPlacement> placements)
+    {
+        List<RegionPart> parts = new ArrayList<>();
+
+        for (SchematicPlacement placement : placements)
+        {
+            if (placement.isEnabled())
+            {
+                addRegionParts(chunkPos, sectionMask, placement, parts);
+            }
+        }
+
+        return new PendingBuild(sectionMask, generation, EXECUTOR.submit(() -> buildSections(chunkPos, sectionMask, parts)));
+    }
+
+    private static void addRegionParts(ChunkPos chunkPos, int sectionMask, SchematicPlacement schematicPlacement, List<RegionPart> parts)
+    {
+        ISchematic schematic = schematicPlacement.getSchematic();
+
+        for (String regionName : schematicPlacement.getRegionsTouchingChunk(chunkPos.x, chunkPos.z))
+        {
+            SubRegionPlacement placement = schematicPlacement.getRelativeSubRegionPlacement(regionName);
+            ISchematicRegion region = schematic.getSchematicRegion(regionName);
+            IntBoundingBox bounds = schematicPlacement.getBoxWithinChunkForRegion(regionName, chunkPos.x, chunkPos.z);
+
+            if (placement == null || region == null || bounds == null || placement.isEnabled() == false ||
+                region.getBlockStateContainer() == null || region.getBlockEntityMap() == null)
+            {
+                continue;
+            }
+
+            RegionPart part = new RegionPart(schematicPlacement, placement, region, bounds);
+
+            if (part.startX < 0 || part.startZ < 0 || part.endX >= part.container.getSize().getX() || part.endZ >= part.container.getSize().getZ())
+            {
+                Litematica.logger.warn("Invalid/missing schematic data in schematic '{}' for sub-region '{}'", schematic.getMetadata().getName(), regionName);
+                continue;
+            }
+
+            part.readBlockIds(sectionMask);
+            parts.add(part);
+        }
+    }
+
+    private static BuiltSections buildSections(ChunkPos chunkPos, int sectionMask, List<RegionPart> parts)
+    {
+        BuiltSections built = new BuiltSections(chunkPos, sectionMask, parts);
+
+        for (RegionPart part : parts)
+        {
+            part.placeBlocks(built);
+        }
+
+        for (int cy = 0; cy < built.sections.length; ++cy)
+        {
+            if (built.sections[cy] != null && built.sections[cy].isEmpty())
+            {
+                built.sections[cy] = null;
+            }
+        }
+
+        return built;
+    }
+
+    public static class PendingBuild
+    {
+        private final int sectionMask;
+        private final int generation;
+        private final Future<BuiltSections> future;
+
+        private PendingBuild(int sectionMask, int generation, Future<BuiltSections> future)
+        {
+            this.sectionMask = sectionMask;
+            this.generation = generation;
+            this.future = future;
+        }
+
+        public int getSectionMask()
+        {
+            return this.sectionMask;
+        }
+
+        public int getGeneration()
+        {
+            return this.generation;
+        }
+
+        public boolean isDone()
+        {
+            return this.future.isDone();
+        }
+
+        public void cancel()
+        {
+            this.future.cancel(false);
+        }
+
+        /**
+         * @return the built sections. This should only be called once the build is done.
+         */
+        public BuiltSections getResult() throws InterruptedException, ExecutionException
+        {
+            return this.future.get();
+        }
+    }
+
+    public static class BuiltSections
+    {
+        private final ChunkPos chunkPos;
+        private final int sectionMask;
+        private final List<RegionPart> parts;
+        private final ExtendedBlockStorage[] sections = new ExtendedBlockStorage[16];
+        private final Map<BlockPos, TileEntityInfo> tileEntities = new HashMap<>();
+
+        private BuiltSections(ChunkPos chunkPos, int sectionMask, List<RegionPart> parts)
+        {
+            this.chunkPos = chunkPos;
+            this.sectionMask = sectionMask;
+            this.parts = parts;
+        }
+
+        /**
+         * Replaces the built sections in the schematic world's chunk, loading the chunk first if needed.
+         * This must be called on the client thread.
+         */
+        public void applyTo(WorldSchematic world)
+        {
+            final int chunkX = this.chunkPos.x;
+            final int chunkZ = this.chunkPos.z;
+            Chunk chunk;
+
+            if (world.getChunkProvider().isChunkGeneratedAt(chunkX, chunkZ))
+            {
+                chunk = world.getChunk(chunkX, chunkZ);
+                ((ChunkSchematic) chunk).clearSections(this.sectionMask);
+            }
+            else
+            {
+                chunk = world.getChunkProvider().loadChunk(chunkX, chunkZ);
+            }
+
+            ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+
+            for (int cy = 0; cy < storage.length; ++cy)
+            {
+                if ((this.sectionMask & (1 << cy)) != 0)
+                {
+                    storage[cy] = this.sections[cy] != null ? this.sections[cy] : Chunk.NULL_BLOCK_STORAGE;
+                }
+            }
+
+            for (Map.Entry<BlockPos, TileEntityInfo> entry : this.tileEntities.entrySet())
+            {
+                entry.getValue().createTileEntity(world, entry.getKey());
+            }
+
+            final int minY = Integer.numberOfTrailingZeros(this.sectionMask) << 4;
+            final int maxY = ((32 - Integer.numberOfLeadingZeros(this.sectionMask)) << 4) - 1;
+
+            for (RegionPart part : this.parts)
+            {
+                part.placeEntities(world, this.chunkPos, this.sectionMask);
+            }
+
+            chunk.markDirty();
+            world.markBlockRangeForRenderUpdate((chunkX << 4) - 1, minY - 1, (chunkZ << 4) - 1, (chunkX << 4) + 16, maxY + 1, (chunkZ << 4) + 16);
+        }
+    }
+
+    private static class RegionPart
+    {
+        private final SchematicPlacement schematicPlacement;
+        private final SubRegionPlacement placement;
+        private final ISchematicRegion region;
+        private final ILitematicaBlockStateContainer container;
+        private final Map<BlockPos, NBTTagCompound> blockEntityMap;
+        private final boolean placeEntities;
+        private final BlockPos origin;
+        private final BlockPos regionPos;
+        private final BlockPos posMinRel;
+        private final BlockPos regionPosTransformed;
+        private final Mirror mirrorMainPlacement;
+        private final Rotation rotationMainPlacement;
+        private final Mirror mirrorSubPlacement;
+        private final Rotation rotationSubPlacement;
+        private final Mirror mirrorMain;
+        private final Mirror mirrorSub;
+        private final Rotation rotationCombined;
+        private final int startX;
+        private final int startZ;
+        private final int endX;
+        private final int endZ;
+        private final int sizeY;
+        private final int offsetY;
+        /** The palette and the block IDs of the area within the chunk, copied on the client thread */
+        private IBlockState[] paletteStates;
+        private int[] blockIds;
+        /** The index of each y-layer in the blockIds array, or -1 if the layer is not in any of the built sections */
+        private int[] layerOffsets;
+
+        /**
+         * This uses the same transforms as SchematicPlacingUtils#placeBlocksWithinChunk(),
+         * to get the area of the sub-region that is within the given bounds.
+         */
+        private RegionPart(SchematicPlacement schematicPlacement, SubRegionPlacement placement, ISchematicRegion region, IntBoundingBox bounds)
+        {
+            this.schematicPlacement = schematicPlacement;
+            this.placement = placement;
+            this.region = region;
+            this.container = region.getBlockStateContainer();
+            this.blockEntityMap = region.getBlockEntityMap();
+            this.placeEntities = schematicPlacement.ignoreEntities() == false && placement.ignoreEntities() == false;
+            this.origin = schematicPlacement.getOrigin();
+            this.regionPos = placement.getPos();
+            this.mirrorMainPlacement = schematicPlacement.getMirror();
+            this.rotationMainPlacement = schematicPlacement.getRotation();
+            this.mirrorSubPlacement = placement.getMirror();
+            this.rotationSubPlacement = placement.getRotation();
+
+            Vec3i regionSize = region.getSize();
+            BlockPos posEndRel = (new BlockPos(PositionUtils.getRelativeEndPositionFromAreaSize(regionSize))).add(this.regionPos);
+            this.posMinRel = fi.dy.masa.malilib.util.PositionUtils.getMinCorner(this.regionPos, posEndRel);
+            this.regionPosTransformed = PositionUtils.getTransformedBlockPos(this.regionPos, this.mirrorMainPlacement, this.rotationMainPlacement);
+
+            BlockPos boxMinRel = new BlockPos(bounds.minX - this.origin.getX() - this.regionPosTransformed.getX(), 0, bounds.minZ - this.origin.getZ() - this.regionPosTransformed.getZ());
+            BlockPos boxMaxRel = new BlockPos(bounds.maxX - this.origin.getX() - this.regionPosTransformed.getX(), 0, bounds.maxZ - this.origin.getZ() - this.regionPosTransformed.getZ());
+
+            boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, this.mirrorSubPlacement, this.rotationSubPlacement);
+            boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, this.mirrorSubPlacement, this.rotationSubPlacement);
+
+            boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, this.mirrorMainPlacement, this.rotationMainPlacement);
+            boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, this.mirrorMainPlacement, this.rotationMainPlacement);
+
+            boxMinRel = boxMinRel.subtract(this.posMinRel.subtract(this.regionPos));
+            boxMaxRel = boxMaxRel.subtract(this.posMinRel.subtract(this.regionPos));
+
+            BlockPos posMin = fi.dy.masa.malilib.util.PositionUtils.getMinCorner(boxMinRel, boxMaxRel);
+            BlockPos posMax = fi.dy.masa.malilib.util.PositionUtils.getMaxCorner(boxMinRel, boxMaxRel);
+
+            this.startX = posMin.getX();
+            this.startZ = posMin.getZ();
+            this.endX = posMax.getX();
+            this.endZ = posMax.getZ();
+            this.sizeY = Math.abs(regionSize.getY());
+            this.offsetY = this.posMinRel.getY() - this.regionPos.getY() + this.regionPosTransformed.getY() + this.origin.getY();
+
+            Mirror mirrorSub = this.mirrorSubPlacement;
+
+            if (mirrorSub != Mirror.NONE &&
+                (this.rotationMainPlacement == Rotation.CLOCKWISE_90 ||
+                 this.rotationMainPlacement == Rotation.COUNTERCLOCKWISE_90))
+            {
+                mirrorSub = mirrorSub == Mirror.FRONT_BACK ? Mirror.LEFT_RIGHT : Mirror.FRONT_BACK;
+            }
+
+            this.mirrorMain = this.mirrorMainPlacement;
+            this.mirrorSub = mirrorSub;
+            this.rotationCombined = this.rotationMainPlacement.add(this.rotationSubPlacement);
+        }
+
+        /**
+         * Copies the palette and the block IDs of the y-layers within the built sections,
+         * so that the worker thread never reads the live container, which the client thread may modify.
+         * This must be called on the client thread.
+         */
+        private void readBlockIds(int sectionMask)
+        {
+            final int rowLength = this.endX - this.startX + 1;
+            final int layerSize = rowLength * (this.endZ - this.startZ + 1);
+            int layerCount = 0;
+
+            this.layerOffsets = new int[this.sizeY];
+
+            for (int y = 0; y < this.sizeY; ++y)
+            {
+                final int worldY = y + this.offsetY;
+
+                if (worldY < 0 || worldY > 255 || (sectionMask & (1 << (worldY >> 4))) == 0)
+                {
+                    this.layerOffsets[y] = -1;
+                }
+                else
+                {
+                    this.layerOffsets[y] = layerCount * layerSize;
+                    ++layerCount;
+                }
+            }
+
+            this.blockIds = new int[layerCount * layerSize];
+            this.paletteStates = this.container.getPalette().getMapping().toArray(new IBlockState[0]);
+
+            for (int y = 0; y < this.sizeY; ++y)
+            {
+                int index = this.layerOffsets[y];
+
+                if (index < 0)
+                {
+                    continue;
+                }
+
+                for (int z = this.startZ; z <= this.endZ; ++z)
+                {
+                    this.container.getBlockStateIdRow(this.startX, y, z, rowLength, this.blockIds, index);
+                    index += rowLength;
+                }
+            }
+        }
+
+        private void placeBlocks(BuiltSections built)
+        {
+            final IBlockState[] paletteStates = this.paletteStates;
+            final int[] blockIds = this.blockIds;
+            final IBlockState air = LitematicaBlockStateContainerBase.AIR_BLOCK_STATE;
+            BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos();
+
+            for (int y = 0; y < this.sizeY; ++y)
+            {
+                int index = this.layerOffsets[y];
+
+                if (index < 0)
+                {
+                    continue;
+                }
+
+                final int worldY = y + this.offsetY;
+                final int cy = worldY >> 4;
+
+                for (int z = this.startZ; z <= this.endZ; ++z)
+                {
+                    for (int x = this.startX; x <= this.endX; ++x, ++index)
+                    {
+                        final int id = blockIds[index];
+                        IBlockState state = id >= 0 && id < paletteStates.length ? paletteStates[id] : null;
+
+                        if (state == null)
+                        {
+                            state = air;
+                        }
+
+                        if (state.getBlock() == Blocks.STRUCTURE_VOID)
+                        {
+                            continue;
+                        }
+
+                        posMutable.setPos(  this.posMinRel.getX() + x - this.regionPos.getX(),
+                                            this.posMinRel.getY() + y - this.regionPos.getY(),
+                                            this.posMinRel.getZ() + z - this.regionPos.getZ());
+
+                        BlockPos pos = PositionUtils.getTransformedBlockPos(posMutable, this.mirrorMainPlacement, this.rotationMainPlacement);
+                        pos = PositionUtils.getTransformedBlockPos(pos, this.mirrorSubPlacement, this.rotationSubPlacement);
+                        pos = pos.add(this.regionPosTransformed).add(this.origin);
+
+                        if (this.mirrorMain != Mirror.NONE) { state = state.withMirror(this.mirrorMain); }
+                        if (this.mirrorSub != Mirror.NONE)  { state = state.withMirror(this.mirrorSub); }
+                        if (this.rotationCombined != Rotation.NONE) { state = state.withRotation(this.rotationCombined); }
+
+                        ExtendedBlockStorage section = built.sections[cy];
+
+                        if (section == null)
+                        {
+                            if (state == air)
+                            {
+                                continue;
+                            }
+
+                            section = new ExtendedBlockStorage(cy << 4, false);
+                            built.sections[cy] = section;
+                        }
+
+                        section.set(pos.getX() & 15, worldY & 15, pos.getZ() & 15, state);
+
+                        // The transformed position may still be the mutable position, if there is no transform or offset
+                        pos = pos.toImmutable();
+
+                        if (state.getBlock() instanceof ITileEntityProvider)
+                        {
+                            // The tile entity data is read on the client thread, when the tile entity is created
+                            built.tileEntities.put(pos, new TileEntityInfo(state, this.blockEntityMap, new BlockPos(x, y, z),
+                                                                           this.mirrorMain, this.mirrorSub, this.rotationCombined));
+                        }
+                        else
+                        {
+                            // A later placement may overwrite a tile entity block of an earlier placement
+                            built.tileEntities.remove(pos);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void placeEntities(WorldSchematic world, ChunkPos chunkPos, int sectionMask)
+        {
+            if (this.placeEntities == false)
+            {
+                return;
+            }
+
+            int cy = 0;
+
+            while (cy < 16)
+            {
+                if ((sectionMask & (1 << cy)) == 0)
+                {
+                    ++cy;
+                    continue;
+                }
+
+                final int minY = cy << 4;
+
+                while (cy < 16 && (sectionMask & (1 << cy)) != 0)
+                {
+                    ++cy;
+                }
+
+                SchematicPlacingUtils.placeEntitiesToWorldWithinChunk(world, chunkPos, minY, (cy << 4) - 1, this.region,
+                                                                      this.origin, this.schematicPlacement, this.placement);
+            }
+        }
+    }
+
+    private static class TileEntityInfo
+    {
+        private final IBlockState state;
+        private final Map<BlockPos, NBTTagCompound> blockEntityMap;
+        private final BlockPos regionPos;
+        private final Mirror mirrorMain;
+        private final Mirror mirrorSub;
+        private final Rotation rotationCombined;
+
+        private TileEntityInfo(IBlockState state, Map<BlockPos, NBTTagCompound> blockEntityMap, BlockPos regionPos,
+                               Mirror mirrorMain, Mirror mirrorSub, Rotation rotationCombined)
+        {
+            this.state = state;
+            this.blockEntityMap = blockEntityMap;
+            this.regionPos = regionPos;
+            this.mirrorMain = mirrorMain;
+            this.mirrorSub = mirrorSub;
+            this.rotationCombined = rotationCombined;
+        }
+
+        private void createTileEntity(WorldSchematic world, BlockPos pos)
+        {
+            Block block = this.state.getBlock();
+            TileEntity te = ((ITileEntityProvider) block).createNewTileEntity(world, block.getMetaFromState(this.state));
+
+            if (te == null)
+            {
+                return;
+            }
+
+            world.setTileEntity(pos, te);
+            NBTTagCompound nbt = this.blockEntityMap.get(this.regionPos);
+
+            if (nbt != null)
+            {
+                NBTTagCompound teNBT = nbt.copy();
+                teNBT.setInteger("x", pos.getX());
+                teNBT.setInteger("y", pos.getY());
+                teNBT.setInteger("z", pos.getZ());
+
+                try
+                {
+                    te.readFromNBT(teNBT);
+
+                    if (this.mirrorMain != Mirror.NONE) { te.mirror(this.mirrorMain); }
+                    if (this.mirrorSub != Mirror.NONE)  { te.mirror(this.mirrorSub); }
+                    if (this.rotationCombined != Rotation.NONE) { te.rotate(this.rotationCombined); }
+                }
+                catch (Exception e)
+                {
+                    Litematica.logger.warn("Failed to load TileEntity data for {} @ {}", this.state, pos);
+                }
+            }
+
+            te.updateContainingBlockInfo();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package fi.dy.masa.litematica.world;
 
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.client.network.NetHandlerPlayClient;
@@ -18,6 +19,9 @@ import fi.dy.masa.litematica.mixin.IMixinWorldClient;
 
 public class WorldSchematic extends WorldClient
 {
+    /** The number of entities in each sub-chunk that has any, keyed by the sub-chunk's minimum corner position as a long */
+    private final Long2IntOpenHashMap entityCountsBySubChunk = new Long2IntOpenHashMap();
+
     public WorldSchematic(NetHandlerPlayClient netHandler, WorldSettings settings, int dimension,
             EnumDifficulty difficulty, Profiler profilerIn)
     {
@@ -85,6 +89,66 @@ public class WorldSchematic extends WorldClient
         }
     }
 
+    @Override
+    protected void onEntityAdded(Entity entity)
+    {
+        super.onEntityAdded(entity);
+
+        if (entity.addedToChunk)
+        {
+            this.entityCountsBySubChunk.addTo(getSubChunkKey(entity), 1);
+        }
+    }
+
+    @Override
+    protected void onEntityRemoved(Entity entity)
+    {
+        super.onEntityRemoved(entity);
+
+        long key = getSubChunkKey(entity);
+        int count = this.entityCountsBySubChunk.get(key);
+
+        if (count > 1)
+        {
+            this.entityCountsBySubChunk.put(key, count - 1);
+        }
+        else
+        {
+            this.entityCountsBySubChunk.remove(key);
+        }
+    }
+
+    /**
+     * Removes the given chunk's sub-chunks from the entity index.
+     * The entities of unloaded chunks are never actually removed from the world,
+     * because the schematic world doesn't get ticked.
+     */
+    void onChunkUnloaded(int chunkX, int chunkZ)
+    {
+        for (int cy = 0; cy < 16; ++cy)
+        {
+            this.entityCountsBySubChunk.remove(new BlockPos(chunkX << 4, cy << 4, chunkZ << 4).toLong());
+        }
+    }
+
+    /**
+     * @return true if the sub-chunk with the given minimum corner position has any entities in it
+     */
+    public boolean hasEntitiesInSubChunk(BlockPos subChunkCorner)
+    {
+        return this.entityCountsBySubChunk.isEmpty() == false && this.entityCountsBySubChunk.containsKey(subChunkCorner.toLong());
+    }
+
+    public boolean hasEntities()
+    {
+        return this.entityCountsBySubChunk.isEmpty() == false;
+    }
+
+    private static long getSubChunkKey(Entity entity)
+    {
+        return new BlockPos(entity.chunkCoordX << 4, entity.chunkCoordY << 4, entity.chunkCoordZ << 4).toLong();
+    }
+
     @Override
     public int getLight(BlockPos pos)
     {